@@ -1,11 +1,18 @@
 package com.spinwish.backend.config;
 
 import com.spinwish.backend.entities.Roles;
+import com.spinwish.backend.repositories.DJDailyStatsRepository;
+import com.spinwish.backend.repositories.RequestsRepository;
 import com.spinwish.backend.repositories.RoleRepository;
+import com.spinwish.backend.repositories.SessionRepository;
+import com.spinwish.backend.repositories.StkPushSessionRepository;
+import com.spinwish.backend.services.RequestSongService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -18,9 +25,81 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private RequestSongService requestSongService;
+
+    @Autowired
+    private RequestsRepository requestsRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private StkPushSessionRepository stkPushSessionRepository;
+
+    @Autowired
+    private DJDailyStatsRepository dailyStatsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Override
     public void run(String... args) throws Exception {
         initializeRoles();
+        backfillRequestSongs();
+        backfillCreatedAt();
+        backfillPlayedAt();
+    }
+
+    /**
+     * Give played requests a play time and, the first time, drop the DJ stats rollup that
+     * counted them by updated_at, so DJStatsService rolls it up again. Mirrors V17.
+     */
+    private void backfillPlayedAt() {
+        try {
+            Integer updated = new TransactionTemplate(transactionManager).execute(status -> {
+                int rows = requestsRepository.backfillPlayedAt();
+                if (rows > 0) {
+                    dailyStatsRepository.deleteAllInBatch();
+                }
+                return rows;
+            });
+            if (updated != null && updated > 0) {
+                log.info("Backfilled played_at of {} requests and reset the DJ stats rollup", updated);
+            }
+        } catch (Exception e) {
+            log.error("Error backfilling played_at: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Give rows without created_at a timestamp so keyset pages do not skip them.
+     * Mirrors the V16 migration for databases that are not managed by Flyway.
+     */
+    private void backfillCreatedAt() {
+        try {
+            LocalDateTime fallback = LocalDateTime.of(1970, 1, 1, 0, 0);
+            int[] updated = new int[3];
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                updated[0] = requestsRepository.backfillCreatedAt(fallback);
+                updated[1] = sessionRepository.backfillCreatedAt(fallback);
+                updated[2] = stkPushSessionRepository.backfillCreatedAt(fallback);
+            });
+            if (updated[0] + updated[1] + updated[2] > 0) {
+                log.info("Backfilled created_at of {} requests, {} sessions and {} STK sessions",
+                        updated[0], updated[1], updated[2]);
+            }
+        } catch (Exception e) {
+            log.error("Error backfilling created_at: {}", e.getMessage());
+        }
+    }
+
+    private void backfillRequestSongs() {
+        try {
+            requestSongService.backfillLegacyRequests();
+        } catch (Exception e) {
+            log.error("Error backfilling request songs: {}", e.getMessage());
+        }
     }
 
     private void initializeRoles() {
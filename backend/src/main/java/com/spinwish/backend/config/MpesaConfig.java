@@ -19,4 +19,28 @@ public class MpesaConfig {
     private String tokenUrl;
     private String stkQueryUrl;
     private String callbackUrl;
+    private Http http = new Http();
+    private Token token = new Token();
+
+    /**
+     * Connection settings of the shared Daraja HTTP client
+     */
+    @Getter
+    @Setter
+    public static class Http {
+        private long connectTimeoutMs = 5000;
+        private long readTimeoutMs = 30000;
+        private int maxConcurrentCalls = 20;
+        private long slotWaitMs = 2000;
+    }
+
+    /**
+     * Caching of the Daraja OAuth token
+     */
+    @Getter
+    @Setter
+    public static class Token {
+        // Fetch the next token once the current one expires within this margin
+        private long refreshMarginMs = 300000;
+    }
 }
@@ -42,7 +42,8 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                 .allowedHeaders("*")
                 .allowCredentials(true)
-                .exposedHeaders("X-Correlation-ID", "X-Request-ID", "Authorization")
+                .exposedHeaders("X-Correlation-ID", "X-Request-ID", "Authorization",
+                        "X-Next-Cursor", "X-Result-Truncated")
                 .maxAge(3600);
 
         // Add CORS mapping for WebSocket endpoints
@@ -1,7 +1,14 @@
 package com.spinwish.backend.controllers;
 
 import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.models.responses.users.DJProfile;
+import com.spinwish.backend.models.responses.users.LeaderboardEntry;
+import com.spinwish.backend.services.DJDirectory;
+import com.spinwish.backend.services.DJLeaderboards;
 import com.spinwish.backend.services.DJService;
+import com.spinwish.backend.services.LiveSessionDirectory;
+import com.spinwish.backend.utils.CursorResponses;
+import com.spinwish.backend.utils.ETagResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -29,14 +36,14 @@ public class DJController {
 
     @Operation(
             summary = "Get all DJs",
-            description = "Retrieve all registered DJs",
+            description = "Retrieve registered DJs a page at a time, sorted by name, rating, followers or newest",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "DJs retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = Users.class))
+                    content = @Content(schema = @Schema(implementation = DJProfile.class))
             ),
             @ApiResponse(
                     responseCode = "401",
@@ -44,9 +51,15 @@ public class DJController {
             )
     })
     @GetMapping
-    public ResponseEntity<List<Users>> getAllDJs() {
-        List<Users> djs = djService.getAllDJs();
-        return new ResponseEntity<>(djs, HttpStatus.OK);
+    public ResponseEntity<?> getAllDJs(
+            @Parameter(description = "Sort order: name, rating, followers or newest")
+            @RequestParam(required = false) String sort,
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit,
+                (c, l) -> djService.getAllDJs(DJDirectory.Sort.parse(sort), c, l));
     }
 
     @Operation(
@@ -58,7 +71,7 @@ public class DJController {
             @ApiResponse(
                     responseCode = "200",
                     description = "DJ found",
-                    content = @Content(schema = @Schema(implementation = Users.class))
+                    content = @Content(schema = @Schema(implementation = DJProfile.class))
             ),
             @ApiResponse(
                     responseCode = "404",
@@ -73,7 +86,7 @@ public class DJController {
     public ResponseEntity<?> getDJById(
             @Parameter(description = "DJ ID", required = true)
             @PathVariable UUID djId) {
-        Optional<Users> dj = djService.getDJById(djId);
+        Optional<DJProfile> dj = djService.getDJById(djId);
         if (dj.isPresent()) {
             return new ResponseEntity<>(dj.get(), HttpStatus.OK);
         } else {
@@ -83,13 +96,30 @@ public class DJController {
 
     @Operation(
             summary = "Get live DJs",
-            description = "Retrieve all DJs that are currently live",
+            description = "Retrieve all DJs that are currently live. Supports If-None-Match; unchanged lists return 304",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/live")
-    public ResponseEntity<List<Users>> getLiveDJs() {
-        List<Users> liveDJs = djService.getLiveDJs();
-        return new ResponseEntity<>(liveDJs, HttpStatus.OK);
+    public ResponseEntity<List<DJProfile>> getLiveDJs(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        LiveSessionDirectory.Listing<DJProfile> liveDJs = djService.getLiveDJs();
+        return ETagResponses.respond(ifNoneMatch, liveDJs.etag(), liveDJs.items());
+    }
+
+    @Operation(
+            summary = "Get followed live DJs",
+            description = "Live DJs the current user follows. Supports If-None-Match; unchanged lists return 304",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @GetMapping("/following/live")
+    public ResponseEntity<?> getFollowedLiveDJs(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        try {
+            LiveSessionDirectory.Listing<DJProfile> liveDJs = djService.getFollowedLiveDJs();
+            return ETagResponses.respond(ifNoneMatch, liveDJs.etag(), liveDJs.items());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to get followed live DJs: " + e.getMessage());
+        }
     }
 
     @Operation(
@@ -98,11 +128,17 @@ public class DJController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/genre/{genre}")
-    public ResponseEntity<List<Users>> getDJsByGenre(
+    public ResponseEntity<?> getDJsByGenre(
             @Parameter(description = "Genre name", required = true)
-            @PathVariable String genre) {
-        List<Users> djs = djService.getDJsByGenre(genre);
-        return new ResponseEntity<>(djs, HttpStatus.OK);
+            @PathVariable String genre,
+            @Parameter(description = "Sort order: name, rating, followers or newest")
+            @RequestParam(required = false) String sort,
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit,
+                (c, l) -> djService.getDJsByGenre(genre, DJDirectory.Sort.parse(sort), c, l));
     }
 
     @Operation(
@@ -111,10 +147,10 @@ public class DJController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/top-rated")
-    public ResponseEntity<List<Users>> getTopRatedDJs(
+    public ResponseEntity<List<DJProfile>> getTopRatedDJs(
             @Parameter(description = "Maximum number of DJs to return", required = false)
             @RequestParam(defaultValue = "10") int limit) {
-        List<Users> djs = djService.getTopRatedDJs(limit);
+        List<DJProfile> djs = djService.getTopRatedDJs(limit);
         return new ResponseEntity<>(djs, HttpStatus.OK);
     }
 
@@ -124,24 +160,49 @@ public class DJController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/most-followed")
-    public ResponseEntity<List<Users>> getMostFollowedDJs(
+    public ResponseEntity<List<DJProfile>> getMostFollowedDJs(
             @Parameter(description = "Maximum number of DJs to return", required = false)
             @RequestParam(defaultValue = "10") int limit) {
-        List<Users> djs = djService.getMostFollowedDJs(limit);
+        List<DJProfile> djs = djService.getMostFollowedDJs(limit);
         return new ResponseEntity<>(djs, HttpStatus.OK);
     }
 
+    @Operation(
+            summary = "Get a DJ leaderboard",
+            description = "Top DJs by rating, followers, weekly-earnings or nightly-requests",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @GetMapping("/leaderboards/{board}")
+    public ResponseEntity<?> getLeaderboard(
+            @Parameter(description = "Leaderboard: rating, followers, weekly-earnings or nightly-requests", required = true)
+            @PathVariable String board,
+            @Parameter(description = "Maximum number of DJs to return", required = false)
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<LeaderboardEntry> entries = djService.getLeaderboard(DJLeaderboards.Board.parse(board), limit);
+            return new ResponseEntity<>(entries, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
     @Operation(
             summary = "Search DJs by name",
             description = "Search for DJs by username (case-insensitive partial match)",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/search/{name}")
-    public ResponseEntity<List<Users>> searchDJsByName(
+    public ResponseEntity<?> searchDJsByName(
             @Parameter(description = "DJ name to search for", required = true)
-            @PathVariable String name) {
-        List<Users> djs = djService.searchDJsByName(name);
-        return new ResponseEntity<>(djs, HttpStatus.OK);
+            @PathVariable String name,
+            @Parameter(description = "Sort order: name, rating, followers or newest")
+            @RequestParam(required = false) String sort,
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit,
+                (c, l) -> djService.searchDJsByName(name, DJDirectory.Sort.parse(sort), c, l));
     }
 
     @Operation(
@@ -150,13 +211,17 @@ public class DJController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/rating/{minRating}/{maxRating}")
-    public ResponseEntity<List<Users>> getDJsByRatingRange(
+    public ResponseEntity<?> getDJsByRatingRange(
             @Parameter(description = "Minimum rating", required = true)
             @PathVariable double minRating,
             @Parameter(description = "Maximum rating", required = true)
-            @PathVariable double maxRating) {
-        List<Users> djs = djService.getDJsByRatingRange(minRating, maxRating);
-        return new ResponseEntity<>(djs, HttpStatus.OK);
+            @PathVariable double maxRating,
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit,
+                (c, l) -> djService.getDJsByRatingRange(minRating, maxRating, c, l));
     }
 
     @Operation(
@@ -165,13 +230,17 @@ public class DJController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/followers/{minFollowers}/{maxFollowers}")
-    public ResponseEntity<List<Users>> getDJsByFollowerRange(
+    public ResponseEntity<?> getDJsByFollowerRange(
             @Parameter(description = "Minimum followers", required = true)
             @PathVariable int minFollowers,
             @Parameter(description = "Maximum followers", required = true)
-            @PathVariable int maxFollowers) {
-        List<Users> djs = djService.getDJsByFollowerRange(minFollowers, maxFollowers);
-        return new ResponseEntity<>(djs, HttpStatus.OK);
+            @PathVariable int maxFollowers,
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit,
+                (c, l) -> djService.getDJsByFollowerRange(minFollowers, maxFollowers, c, l));
     }
 
     @Operation(
@@ -183,7 +252,7 @@ public class DJController {
             @ApiResponse(
                     responseCode = "200",
                     description = "DJ profile updated successfully",
-                    content = @Content(schema = @Schema(implementation = Users.class))
+                    content = @Content(schema = @Schema(implementation = DJProfile.class))
             ),
             @ApiResponse(
                     responseCode = "400",
@@ -205,7 +274,7 @@ public class DJController {
             @Parameter(description = "Updated DJ profile data", required = true)
             @RequestBody Users updatedDJ) {
         try {
-            Users dj = djService.updateDJProfile(djId, updatedDJ);
+            DJProfile dj = djService.updateDJProfile(djId, updatedDJ);
             return new ResponseEntity<>(dj, HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to update DJ profile: " + e.getMessage());
@@ -224,7 +293,7 @@ public class DJController {
             @Parameter(description = "Live status", required = true)
             @PathVariable boolean isLive) {
         try {
-            Users dj = djService.setDJLiveStatus(djId, isLive);
+            DJProfile dj = djService.setDJLiveStatus(djId, isLive);
             return new ResponseEntity<>(dj, HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to update DJ live status: " + e.getMessage());
@@ -243,7 +312,7 @@ public class DJController {
             @Parameter(description = "New rating (0.0 to 5.0)", required = true)
             @PathVariable double rating) {
         try {
-            Users dj = djService.updateDJRating(djId, rating);
+            DJProfile dj = djService.updateDJRating(djId, rating);
             return new ResponseEntity<>(dj, HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to update DJ rating: " + e.getMessage());
@@ -252,7 +321,8 @@ public class DJController {
 
     @Operation(
             summary = "Follow DJ",
-            description = "Add a follower to a DJ",
+            description = "Follow a DJ as the current user. Following twice has no effect; " +
+                    "the follower count catches up within a few seconds",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @PostMapping("/{djId}/follow")
@@ -260,7 +330,7 @@ public class DJController {
             @Parameter(description = "DJ ID", required = true)
             @PathVariable UUID djId) {
         try {
-            Users dj = djService.addFollower(djId);
+            DJProfile dj = djService.addFollower(djId);
             return new ResponseEntity<>(dj, HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to follow DJ: " + e.getMessage());
@@ -269,7 +339,7 @@ public class DJController {
 
     @Operation(
             summary = "Unfollow DJ",
-            description = "Remove a follower from a DJ",
+            description = "Stop following a DJ as the current user. Unfollowing twice has no effect",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @PostMapping("/{djId}/unfollow")
@@ -277,7 +347,7 @@ public class DJController {
             @Parameter(description = "DJ ID", required = true)
             @PathVariable UUID djId) {
         try {
-            Users dj = djService.removeFollower(djId);
+            DJProfile dj = djService.removeFollower(djId);
             return new ResponseEntity<>(dj, HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to unfollow DJ: " + e.getMessage());
@@ -3,8 +3,10 @@ package com.spinwish.backend.controllers;
 import com.spinwish.backend.models.requests.payments.MpesaRequest;
 import com.spinwish.backend.models.responses.payments.MpesaCallbackResponse;
 import com.spinwish.backend.models.responses.payments.PaymentResponse;
+import com.spinwish.backend.services.MpesaCallbackInboxService;
 import com.spinwish.backend.services.PaymentService;
 import com.spinwish.backend.services.ReceiptService;
+import com.spinwish.backend.utils.CursorResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -26,6 +28,9 @@ public class PaymentController {
     @Autowired
     private ReceiptService receiptService;
 
+    @Autowired
+    private MpesaCallbackInboxService callbackInbox;
+
     @PostMapping("/mpesa/stkpush")
     public ResponseEntity<String> initiateStkPush(@RequestBody MpesaRequest mpesaRequest) {
         try {
@@ -38,11 +43,15 @@ public class PaymentController {
     }
 
     @PostMapping("/mpesa/callback")
-    public ResponseEntity<String> handleCallback(@RequestBody MpesaCallbackResponse payload) {
-        paymentService.saveMpesaTransaction(payload);
-        System.out.println(payload);
+    public ResponseEntity<String> handleCallback(@RequestBody String payload) {
         log.info("Received M-PESA Callback: {}", payload);
-        return ResponseEntity.ok("Callback received");
+        try {
+            // Stored for asynchronous processing, so Safaricom gets its answer right away
+            callbackInbox.accept(payload);
+            return ResponseEntity.ok("Callback received");
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Callback not stored: " + e.getMessage());
+        }
     }
 
     @GetMapping("/stk/query/{checkoutRequestId}")
@@ -58,9 +67,9 @@ public class PaymentController {
     }
 
     @GetMapping
-    public ResponseEntity<List<PaymentResponse>> getPayments(){
-        List<PaymentResponse> paymentResponse = paymentService.getAllPayments();
-        return new ResponseEntity<>(paymentResponse, HttpStatus.OK);
+    public ResponseEntity<?> getPayments(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit){
+        return CursorResponses.respond(cursor, limit, paymentService::getAllPayments);
     }
 
     @GetMapping("/{id}")
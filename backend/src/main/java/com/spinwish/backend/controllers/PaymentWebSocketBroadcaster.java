@@ -1,8 +1,9 @@
 package com.spinwish.backend.controllers;
 
+import com.spinwish.backend.models.responses.payments.PaymentUpdateEvent;
+import com.spinwish.backend.services.WebSocketOutbox;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -12,29 +13,29 @@ import java.util.UUID;
 
 /**
  * WebSocket broadcaster for real-time payment notifications.
- * Sends payment updates to connected clients via WebSocket.
+ * Messages go out through the outbox once the surrounding transaction commits; status
+ * changes of one payment within the outbox window coalesce into the latest.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentWebSocketBroadcaster {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    public static final String PAYMENTS_TOPIC = "/topic/payments";
+
+    private final WebSocketOutbox outbox;
 
     /**
      * Broadcast payment initiation to all subscribers.
      */
     public void broadcastPaymentInitiated(String checkoutRequestId, String paymentType,
                                           Double amount, String phoneNumber) {
-        Map<String, Object> message = new HashMap<>();
-        message.put("event", "PAYMENT_INITIATED");
-        message.put("checkoutRequestId", checkoutRequestId);
-        message.put("paymentType", paymentType);
-        message.put("amount", amount);
-        message.put("phoneNumber", phoneNumber);
-        message.put("timestamp", LocalDateTime.now().toString());
-
-        messagingTemplate.convertAndSend("/topic/payments", message);
+        publish(checkoutRequestId, PaymentUpdateEvent.builder()
+                .event("PAYMENT_INITIATED")
+                .checkoutRequestId(checkoutRequestId)
+                .paymentType(paymentType)
+                .amount(amount)
+                .phoneNumber(phoneNumber));
         log.debug("📡 Broadcasted payment initiation: {}", checkoutRequestId);
     }
 
@@ -42,13 +43,10 @@ public class PaymentWebSocketBroadcaster {
      * Broadcast payment processing status.
      */
     public void broadcastPaymentProcessing(String checkoutRequestId, String status) {
-        Map<String, Object> message = new HashMap<>();
-        message.put("event", "PAYMENT_PROCESSING");
-        message.put("checkoutRequestId", checkoutRequestId);
-        message.put("status", status);
-        message.put("timestamp", LocalDateTime.now().toString());
-
-        messagingTemplate.convertAndSend("/topic/payments", message);
+        publish(checkoutRequestId, PaymentUpdateEvent.builder()
+                .event("PAYMENT_PROCESSING")
+                .checkoutRequestId(checkoutRequestId)
+                .status(status));
         log.debug("📡 Broadcasted payment processing: {} - {}", checkoutRequestId, status);
     }
 
@@ -57,15 +55,12 @@ public class PaymentWebSocketBroadcaster {
      */
     public void broadcastPaymentCompleted(String checkoutRequestId, String paymentType,
                                           Double amount, String receiptNumber) {
-        Map<String, Object> message = new HashMap<>();
-        message.put("event", "PAYMENT_COMPLETED");
-        message.put("checkoutRequestId", checkoutRequestId);
-        message.put("paymentType", paymentType);
-        message.put("amount", amount);
-        message.put("receiptNumber", receiptNumber);
-        message.put("timestamp", LocalDateTime.now().toString());
-
-        messagingTemplate.convertAndSend("/topic/payments", message);
+        publish(checkoutRequestId, PaymentUpdateEvent.builder()
+                .event("PAYMENT_COMPLETED")
+                .checkoutRequestId(checkoutRequestId)
+                .paymentType(paymentType)
+                .amount(amount)
+                .receiptNumber(receiptNumber));
         log.info("📡 Broadcasted payment completion: {} - Amount: {}", checkoutRequestId, amount);
     }
 
@@ -74,15 +69,12 @@ public class PaymentWebSocketBroadcaster {
      */
     public void broadcastPaymentFailed(String checkoutRequestId, String paymentType,
                                        Integer resultCode, String resultDescription) {
-        Map<String, Object> message = new HashMap<>();
-        message.put("event", "PAYMENT_FAILED");
-        message.put("checkoutRequestId", checkoutRequestId);
-        message.put("paymentType", paymentType);
-        message.put("resultCode", resultCode);
-        message.put("resultDescription", resultDescription);
-        message.put("timestamp", LocalDateTime.now().toString());
-
-        messagingTemplate.convertAndSend("/topic/payments", message);
+        publish(checkoutRequestId, PaymentUpdateEvent.builder()
+                .event("PAYMENT_FAILED")
+                .checkoutRequestId(checkoutRequestId)
+                .paymentType(paymentType)
+                .resultCode(resultCode)
+                .resultDescription(resultDescription));
         log.info("📡 Broadcasted payment failure: {} - Reason: {}", checkoutRequestId, resultDescription);
     }
 
@@ -91,15 +83,16 @@ public class PaymentWebSocketBroadcaster {
      */
     public void broadcastPaymentToDJ(UUID djId, String paymentType, Double amount,
                                      String fromUser) {
-        Map<String, Object> message = new HashMap<>();
-        message.put("event", "DJ_PAYMENT_RECEIVED");
-        message.put("paymentType", paymentType);
-        message.put("amount", amount);
-        message.put("fromUser", fromUser);
-        message.put("timestamp", LocalDateTime.now().toString());
-
-        // Send to DJ-specific topic
-        messagingTemplate.convertAndSend("/topic/dj/" + djId + "/payments", message);
+        PaymentUpdateEvent message = PaymentUpdateEvent.builder()
+                .event("DJ_PAYMENT_RECEIVED")
+                .paymentType(paymentType)
+                .amount(amount)
+                .fromUser(fromUser)
+                .timestamp(LocalDateTime.now().toString())
+                .build();
+
+        // Send to DJ-specific topic; every payment is its own notification
+        outbox.publish("/topic/dj/" + djId + "/payments", message);
         log.info("📡 Broadcasted payment to DJ {}: {} KES from {}", djId, amount, fromUser);
     }
 
@@ -108,15 +101,12 @@ public class PaymentWebSocketBroadcaster {
      */
     public void broadcastPaymentStatusQuery(String checkoutRequestId, String status,
                                             Integer resultCode, String resultDescription) {
-        Map<String, Object> message = new HashMap<>();
-        message.put("event", "PAYMENT_STATUS_QUERY");
-        message.put("checkoutRequestId", checkoutRequestId);
-        message.put("status", status);
-        message.put("resultCode", resultCode);
-        message.put("resultDescription", resultDescription);
-        message.put("timestamp", LocalDateTime.now().toString());
-
-        messagingTemplate.convertAndSend("/topic/payments", message);
+        publish(checkoutRequestId, PaymentUpdateEvent.builder()
+                .event("PAYMENT_STATUS_QUERY")
+                .checkoutRequestId(checkoutRequestId)
+                .status(status)
+                .resultCode(resultCode)
+                .resultDescription(resultDescription));
         log.debug("📡 Broadcasted payment status query: {} - {}", checkoutRequestId, status);
     }
 
@@ -124,13 +114,17 @@ public class PaymentWebSocketBroadcaster {
      * Broadcast general payment event.
      */
     public void broadcastPaymentEvent(String eventType, Map<String, Object> eventData) {
-        Map<String, Object> message = new HashMap<>();
+        Map<String, Object> message = new HashMap<>(eventData.size() + 2);
         message.put("event", eventType);
         message.putAll(eventData);
         message.put("timestamp", LocalDateTime.now().toString());
 
-        messagingTemplate.convertAndSend("/topic/payments", message);
+        outbox.publish(PAYMENTS_TOPIC, message);
         log.debug("📡 Broadcasted payment event: {}", eventType);
     }
-}
 
+    private void publish(String checkoutRequestId, PaymentUpdateEvent.PaymentUpdateEventBuilder message) {
+        outbox.publish(PAYMENTS_TOPIC, checkoutRequestId,
+                message.timestamp(LocalDateTime.now().toString()).build());
+    }
+}
@@ -4,6 +4,7 @@ import com.spinwish.backend.exceptions.PlaySongException;
 import com.spinwish.backend.models.requests.users.PlaySongRequest;
 import com.spinwish.backend.models.responses.users.PlaySongResponse;
 import com.spinwish.backend.services.RequestsService;
+import com.spinwish.backend.utils.CursorResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -74,7 +75,7 @@ public class RequestController {
 
     @Operation(
             summary = "Get all requests",
-            description = "Retrieve all song requests (admin/DJ access)",
+            description = "Retrieve song requests newest first (admin/DJ access). Pass cursor or limit for a paged response",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @ApiResponses(value = {
@@ -82,8 +83,12 @@ public class RequestController {
             @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token required")
     })
     @GetMapping
-    public ResponseEntity<List<PlaySongResponse>> getAll() {
-        return ResponseEntity.ok(requestsService.getAllRequests());
+    public ResponseEntity<?> getAll(
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit, requestsService::getAllRequests);
     }
 
     @PutMapping("/{id}")
@@ -132,7 +137,7 @@ public class RequestController {
 
     @Operation(
             summary = "Get current user's requests",
-            description = "Retrieve all song requests made by the current user",
+            description = "Retrieve song requests made by the current user, newest first. Pass cursor or limit for a paged response",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @ApiResponses(value = {
@@ -140,14 +145,17 @@ public class RequestController {
             @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token required")
     })
     @GetMapping("/my-requests")
-    public ResponseEntity<List<PlaySongResponse>> getMyRequests() {
-        List<PlaySongResponse> requests = requestsService.getCurrentUserRequests();
-        return ResponseEntity.ok(requests);
+    public ResponseEntity<?> getMyRequests(
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit, requestsService::getCurrentUserRequests);
     }
 
     @Operation(
             summary = "Get requests for current DJ",
-            description = "Retrieve all song requests for the current DJ's sessions",
+            description = "Retrieve song requests for the current DJ's sessions, newest first. Pass cursor or limit for a paged response",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @ApiResponses(value = {
@@ -157,9 +165,12 @@ public class RequestController {
     })
     @PreAuthorize("hasRole('DJ')")
     @GetMapping("/dj-requests")
-    public ResponseEntity<List<PlaySongResponse>> getDJRequests() {
-        List<PlaySongResponse> requests = requestsService.getCurrentDJRequests();
-        return ResponseEntity.ok(requests);
+    public ResponseEntity<?> getDJRequests(
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit, requestsService::getCurrentDJRequests);
     }
 
     @Operation(
@@ -185,7 +196,7 @@ public class RequestController {
 
     @Operation(
             summary = "Get requests by session",
-            description = "Retrieve all song requests for a specific session",
+            description = "Retrieve song requests for a specific session, newest first. Pass cursor or limit for a paged response",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @ApiResponses(value = {
@@ -193,12 +204,16 @@ public class RequestController {
             @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token required")
     })
     @GetMapping("/session/{sessionId}")
-    public ResponseEntity<List<PlaySongResponse>> getRequestsBySession(
+    public ResponseEntity<?> getRequestsBySession(
             @Parameter(description = "Session ID", required = true)
-            @PathVariable UUID sessionId) {
+            @PathVariable UUID sessionId,
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<PlaySongResponse> requests = requestsService.getRequestsBySessionId(sessionId);
-            return ResponseEntity.ok(requests);
+            return CursorResponses.respond(cursor, limit,
+                    (c, l) -> requestsService.getRequestsBySessionId(sessionId, c, l));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
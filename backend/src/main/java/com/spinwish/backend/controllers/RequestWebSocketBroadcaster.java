@@ -1,18 +1,111 @@
 package com.spinwish.backend.controllers;
 
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.models.responses.requests.RequestUpdateEvent;
 import com.spinwish.backend.models.responses.users.PlaySongResponse;
-import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.spinwish.backend.services.WebSocketOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.*;
+
+/**
+ * Publishes request changes to /topic/sessions/{sessionId}/requests and /topic/djs/{djId}/requests
+ * as compact deltas, so subscribers only receive traffic for the session or DJ they follow.
+ * The global /topic/requests with full responses stays on until all clients have moved over.
+ * Messages go through the outbox, so they leave after commit and repeated updates of one
+ * request within its window coalesce.
+ */
 @Component
-@RequiredArgsConstructor
 public class RequestWebSocketBroadcaster {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    public static final String LEGACY_TOPIC = "/topic/requests";
+    public static final String UPDATED = "UPDATED";
+    public static final String REORDERED = "REORDERED";
+
+    private final WebSocketOutbox outbox;
+    private final boolean legacyTopicEnabled;
+    private final Counter sessionMessages;
+    private final Counter djMessages;
+    private final Counter legacyMessages;
 
-    public void broadcastRequestUpdate(PlaySongResponse response) {
-        messagingTemplate.convertAndSend("/topic/requests", response);
+    public RequestWebSocketBroadcaster(WebSocketOutbox outbox,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${spinwish.websocket.legacy-request-topic.enabled:true}") boolean legacyTopicEnabled) {
+        this.outbox = outbox;
+        this.legacyTopicEnabled = legacyTopicEnabled;
+        this.sessionMessages = messageCounter(meterRegistry, "session");
+        this.djMessages = messageCounter(meterRegistry, "dj");
+        this.legacyMessages = messageCounter(meterRegistry, "legacy");
+    }
+
+    private static Counter messageCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("websocket.request.messages")
+                .description("Request update messages queued for the broker")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    public static String sessionTopic(UUID sessionId) {
+        return "/topic/sessions/" + sessionId + "/requests";
+    }
+
+    public static String djTopic(UUID djId) {
+        return "/topic/djs/" + djId + "/requests";
     }
-}
 
+    public void broadcastRequestUpdate(Request request, PlaySongResponse response) {
+        RequestUpdateEvent event = new RequestUpdateEvent(UPDATED, List.of(toChange(request, response.getQueuePosition())));
+        if (request.getSessionId() != null) {
+            send(sessionTopic(request.getSessionId()), request.getId(), event, sessionMessages);
+        }
+        if (request.getDjId() != null) {
+            send(djTopic(request.getDjId()), request.getId(), event, djMessages);
+        }
+        if (legacyTopicEnabled) {
+            send(LEGACY_TOPIC, request.getId(), response, legacyMessages);
+        }
+    }
+
+    /**
+     * One message per affected session and one for the DJ, instead of one per request
+     */
+    public void broadcastQueueReorder(UUID djId, List<Request> requests, List<PlaySongResponse> responses) {
+        List<RequestUpdateEvent.Change> changes = new ArrayList<>(requests.size());
+        Map<UUID, List<RequestUpdateEvent.Change>> bySession = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            RequestUpdateEvent.Change change = toChange(request, responses.get(i).getQueuePosition());
+            changes.add(change);
+            if (request.getSessionId() != null) {
+                bySession.computeIfAbsent(request.getSessionId(), id -> new ArrayList<>()).add(change);
+            }
+        }
+
+        bySession.forEach((sessionId, sessionChanges) ->
+                send(sessionTopic(sessionId), null, new RequestUpdateEvent(REORDERED, sessionChanges), sessionMessages));
+        send(djTopic(djId), null, new RequestUpdateEvent(REORDERED, changes), djMessages);
+        if (legacyTopicEnabled) {
+            for (int i = 0; i < requests.size(); i++) {
+                send(LEGACY_TOPIC, requests.get(i).getId(), responses.get(i), legacyMessages);
+            }
+        }
+    }
+
+    private RequestUpdateEvent.Change toChange(Request request, Integer queuePosition) {
+        return new RequestUpdateEvent.Change(
+                request.getId(),
+                request.getSessionId(),
+                request.getStatus() != null ? request.getStatus().name() : null,
+                queuePosition != null ? queuePosition : request.getQueuePosition(),
+                request.getUpdatedAt());
+    }
+
+    // Messages with the same non-null key on a destination coalesce in the outbox
+    private void send(String destination, UUID key, Object payload, Counter counter) {
+        outbox.publish(destination, key, payload);
+        counter.increment();
+    }
+}
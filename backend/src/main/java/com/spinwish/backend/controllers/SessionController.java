@@ -2,7 +2,12 @@ package com.spinwish.backend.controllers;
 
 import com.spinwish.backend.entities.Session;
 import com.spinwish.backend.models.responses.sessions.SessionAnalyticsResponse;
+import com.spinwish.backend.models.responses.sessions.SessionDetail;
+import com.spinwish.backend.models.responses.sessions.SessionSummary;
+import com.spinwish.backend.services.LiveSessionDirectory;
 import com.spinwish.backend.services.SessionService;
+import com.spinwish.backend.utils.CursorResponses;
+import com.spinwish.backend.utils.ETagResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,7 +24,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -35,35 +39,6 @@ public class SessionController {
     @Autowired
     private SessionService sessionService;
 
-    /**
-     * Helper method to convert Session entity to clean Map to avoid Hibernate proxy issues
-     */
-    private Map<String, Object> sessionToMap(Session session) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", session.getId().toString());
-        map.put("djId", session.getDjId().toString());
-        map.put("clubId", session.getClubId() != null ? session.getClubId().toString() : null);
-        map.put("type", session.getType().name());
-        map.put("status", session.getStatus().name());
-        map.put("title", session.getTitle());
-        map.put("description", session.getDescription());
-        map.put("startTime", session.getStartTime());
-        map.put("endTime", session.getEndTime());
-        map.put("listenerCount", session.getListenerCount());
-        map.put("totalEarnings", session.getTotalEarnings());
-        map.put("totalTips", session.getTotalTips());
-        map.put("totalRequests", session.getTotalRequests());
-        map.put("acceptedRequests", session.getAcceptedRequests());
-        map.put("rejectedRequests", session.getRejectedRequests());
-        map.put("isAcceptingRequests", session.getIsAcceptingRequests());
-        map.put("minTipAmount", session.getMinTipAmount());
-        map.put("genres", session.getGenres());
-        map.put("shareableLink", session.getShareableLink());
-        map.put("imageUrl", session.getImageUrl());
-        map.put("thumbnailUrl", session.getThumbnailUrl());
-        return map;
-    }
-
     @Operation(
             summary = "Create a new session",
             description = "Create a new DJ session",
@@ -91,7 +66,7 @@ public class SessionController {
             @RequestBody Session session) {
         try {
             Session createdSession = sessionService.createSession(session);
-            return new ResponseEntity<>(sessionToMap(createdSession), HttpStatus.CREATED);
+            return new ResponseEntity<>(SessionDetail.from(createdSession), HttpStatus.CREATED);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create session: " + e.getMessage());
         }
@@ -99,7 +74,7 @@ public class SessionController {
 
     @Operation(
             summary = "Get all sessions",
-            description = "Retrieve all sessions",
+            description = "Retrieve sessions newest first. Pass cursor or limit for a paged response",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @ApiResponses(value = {
@@ -114,9 +89,12 @@ public class SessionController {
             )
     })
     @GetMapping
-    public ResponseEntity<List<Session>> getAllSessions() {
-        List<Session> sessions = sessionService.getAllSessions();
-        return new ResponseEntity<>(sessions, HttpStatus.OK);
+    public ResponseEntity<?> getAllSessions(
+            @Parameter(description = "Opaque cursor from a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at 100")
+            @RequestParam(required = false) Integer limit) {
+        return CursorResponses.respond(cursor, limit, sessionService::getAllSessions);
     }
 
     @Operation(
@@ -146,7 +124,7 @@ public class SessionController {
             @PathVariable UUID sessionId) {
         Optional<Session> session = sessionService.getSessionById(sessionId);
         if (session.isPresent()) {
-            return new ResponseEntity<>(sessionToMap(session.get()), HttpStatus.OK);
+            return new ResponseEntity<>(SessionDetail.from(session.get()), HttpStatus.OK);
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Session not found with id: " + sessionId);
         }
@@ -154,24 +132,26 @@ public class SessionController {
 
     @Operation(
             summary = "Get active sessions",
-            description = "Retrieve all active sessions (LIVE or PREPARING status)",
+            description = "Retrieve all active sessions (LIVE or PREPARING status). Supports If-None-Match; unchanged lists return 304",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/active")
-    public ResponseEntity<List<Session>> getActiveSessions() {
-        List<Session> sessions = sessionService.getActiveSessions();
-        return new ResponseEntity<>(sessions, HttpStatus.OK);
+    public ResponseEntity<List<SessionSummary>> getActiveSessions(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        LiveSessionDirectory.Listing<SessionSummary> sessions = sessionService.getActiveSessions();
+        return ETagResponses.respond(ifNoneMatch, sessions.etag(), sessions.items());
     }
 
     @Operation(
             summary = "Get live sessions",
-            description = "Retrieve all live sessions",
+            description = "Retrieve all live sessions. Supports If-None-Match; unchanged lists return 304",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/live")
-    public ResponseEntity<List<Session>> getLiveSessions() {
-        List<Session> sessions = sessionService.getLiveSessions();
-        return new ResponseEntity<>(sessions, HttpStatus.OK);
+    public ResponseEntity<List<SessionSummary>> getLiveSessions(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        LiveSessionDirectory.Listing<SessionSummary> sessions = sessionService.getLiveSessions();
+        return ETagResponses.respond(ifNoneMatch, sessions.etag(), sessions.items());
     }
 
     @Operation(
@@ -180,10 +160,10 @@ public class SessionController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/dj/{djId}")
-    public ResponseEntity<List<Session>> getSessionsByDj(
+    public ResponseEntity<List<SessionSummary>> getSessionsByDj(
             @Parameter(description = "DJ ID", required = true)
             @PathVariable UUID djId) {
-        List<Session> sessions = sessionService.getSessionsByDj(djId);
+        List<SessionSummary> sessions = sessionService.getSessionsByDj(djId);
         return new ResponseEntity<>(sessions, HttpStatus.OK);
     }
 
@@ -193,10 +173,10 @@ public class SessionController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/club/{clubId}")
-    public ResponseEntity<List<Session>> getSessionsByClub(
+    public ResponseEntity<List<SessionSummary>> getSessionsByClub(
             @Parameter(description = "Club ID", required = true)
             @PathVariable UUID clubId) {
-        List<Session> sessions = sessionService.getSessionsByClub(clubId);
+        List<SessionSummary> sessions = sessionService.getSessionsByClub(clubId);
         return new ResponseEntity<>(sessions, HttpStatus.OK);
     }
 
@@ -206,22 +186,23 @@ public class SessionController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/genre/{genre}")
-    public ResponseEntity<List<Session>> getSessionsByGenre(
+    public ResponseEntity<List<SessionSummary>> getSessionsByGenre(
             @Parameter(description = "Genre name", required = true)
             @PathVariable String genre) {
-        List<Session> sessions = sessionService.getSessionsByGenre(genre);
+        List<SessionSummary> sessions = sessionService.getSessionsByGenre(genre);
         return new ResponseEntity<>(sessions, HttpStatus.OK);
     }
 
     @Operation(
             summary = "Get sessions accepting requests",
-            description = "Retrieve sessions that are currently accepting song requests",
+            description = "Retrieve sessions that are currently accepting song requests. Supports If-None-Match; unchanged lists return 304",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/accepting-requests")
-    public ResponseEntity<List<Session>> getSessionsAcceptingRequests() {
-        List<Session> sessions = sessionService.getSessionsAcceptingRequests();
-        return new ResponseEntity<>(sessions, HttpStatus.OK);
+    public ResponseEntity<List<SessionSummary>> getSessionsAcceptingRequests(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        LiveSessionDirectory.Listing<SessionSummary> sessions = sessionService.getSessionsAcceptingRequests();
+        return ETagResponses.respond(ifNoneMatch, sessions.etag(), sessions.items());
     }
 
     @Operation(
@@ -230,10 +211,10 @@ public class SessionController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Session>> getSessionsByStatus(
+    public ResponseEntity<List<SessionSummary>> getSessionsByStatus(
             @Parameter(description = "Session status", required = true)
             @PathVariable Session.SessionStatus status) {
-        List<Session> sessions = sessionService.getSessionsByStatus(status);
+        List<SessionSummary> sessions = sessionService.getSessionsByStatus(status);
         return new ResponseEntity<>(sessions, HttpStatus.OK);
     }
 
@@ -243,10 +224,10 @@ public class SessionController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<Session>> getSessionsByType(
+    public ResponseEntity<List<SessionSummary>> getSessionsByType(
             @Parameter(description = "Session type", required = true)
             @PathVariable Session.SessionType type) {
-        List<Session> sessions = sessionService.getSessionsByType(type);
+        List<SessionSummary> sessions = sessionService.getSessionsByType(type);
         return new ResponseEntity<>(sessions, HttpStatus.OK);
     }
 
@@ -262,7 +243,7 @@ public class SessionController {
             @PathVariable UUID sessionId) {
         try {
             Session session = sessionService.startSession(sessionId);
-            return new ResponseEntity<>(sessionToMap(session), HttpStatus.OK);
+            return new ResponseEntity<>(SessionDetail.from(session), HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to start session: " + e.getMessage());
         }
@@ -280,7 +261,7 @@ public class SessionController {
             @PathVariable UUID sessionId) {
         try {
             Session session = sessionService.endSession(sessionId);
-            return new ResponseEntity<>(sessionToMap(session), HttpStatus.OK);
+            return new ResponseEntity<>(SessionDetail.from(session), HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to end session: " + e.getMessage());
         }
@@ -298,7 +279,7 @@ public class SessionController {
             @PathVariable UUID sessionId) {
         try {
             Session session = sessionService.pauseSession(sessionId);
-            return new ResponseEntity<>(sessionToMap(session), HttpStatus.OK);
+            return new ResponseEntity<>(SessionDetail.from(session), HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to pause session: " + e.getMessage());
         }
@@ -318,7 +299,7 @@ public class SessionController {
             @RequestBody Session updatedSession) {
         try {
             Session session = sessionService.updateSession(sessionId, updatedSession);
-            return new ResponseEntity<>(sessionToMap(session), HttpStatus.OK);
+            return new ResponseEntity<>(SessionDetail.from(session), HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to update session: " + e.getMessage());
         }
@@ -326,7 +307,7 @@ public class SessionController {
 
     @Operation(
             summary = "Update listener count",
-            description = "Update the number of listeners for a session",
+            description = "Manually set the number of listeners for a session. Live sessions are counted automatically from WebSocket subscriptions to /topic/sessions/{id}/...",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @PutMapping("/{sessionId}/listeners/{count}")
@@ -349,13 +330,13 @@ public class SessionController {
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/date-range")
-    public ResponseEntity<List<Session>> getSessionsByDateRange(
+    public ResponseEntity<List<SessionSummary>> getSessionsByDateRange(
             @Parameter(description = "Start date (ISO format: yyyy-MM-dd)", required = true)
             @RequestParam String startDate,
             @Parameter(description = "End date (ISO format: yyyy-MM-dd)", required = true)
             @RequestParam String endDate) {
         try {
-            List<Session> sessions = sessionService.getSessionsByDateRange(startDate, endDate);
+            List<SessionSummary> sessions = sessionService.getSessionsByDateRange(startDate, endDate);
             return new ResponseEntity<>(sessions, HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
@@ -364,13 +345,14 @@ public class SessionController {
 
     @Operation(
             summary = "Get today's live sessions",
-            description = "Retrieve all live sessions for today",
+            description = "Retrieve all live sessions for today. Supports If-None-Match; unchanged lists return 304",
             security = @SecurityRequirement(name = "Bearer Authentication")
     )
     @GetMapping("/today/live")
-    public ResponseEntity<List<Session>> getTodaysLiveSessions() {
-        List<Session> sessions = sessionService.getTodaysLiveSessions();
-        return new ResponseEntity<>(sessions, HttpStatus.OK);
+    public ResponseEntity<List<SessionSummary>> getTodaysLiveSessions(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        LiveSessionDirectory.Listing<SessionSummary> sessions = sessionService.getTodaysLiveSessions();
+        return ETagResponses.respond(ifNoneMatch, sessions.etag(), sessions.items());
     }
 
     @Operation(
@@ -439,7 +421,7 @@ public class SessionController {
         try {
             Session session = sessionService.uploadSessionImage(sessionId, imageFile);
             log.info("Successfully uploaded image for session: {}", sessionId);
-            return new ResponseEntity<>(sessionToMap(session), HttpStatus.OK);
+            return new ResponseEntity<>(SessionDetail.from(session), HttpStatus.OK);
         } catch (IOException e) {
             log.error("IO error while uploading image for session {}: {}", sessionId, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -494,7 +476,7 @@ public class SessionController {
             @PathVariable UUID sessionId) {
         try {
             Session session = sessionService.deleteSessionImage(sessionId);
-            return new ResponseEntity<>(sessionToMap(session), HttpStatus.OK);
+            return new ResponseEntity<>(SessionDetail.from(session), HttpStatus.OK);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body("Failed to delete image: " + e.getMessage());
@@ -0,0 +1,84 @@
+package com.spinwish.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Earnings of one DJ on one finished day, split the way the earnings summary reports them:
+ * tips, payments of accepted requests and payments of requests still pending.
+ *
+ * Request payments count under the request's current status, so a day is rolled up again
+ * whenever one of its requests changes status. A row is always replaced by delete and
+ * insert, so save always inserts.
+ */
+@Entity
+@Table(name = "dj_daily_earnings", indexes = {
+        @Index(name = "idx_dj_daily_earnings_date", columnList = "earn_date")
+})
+@IdClass(DJDailyEarnings.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class DJDailyEarnings implements Persistable<DJDailyEarnings.Key> {
+    @Id
+    @Column(name = "dj_id")
+    private UUID djId;
+
+    @Id
+    @Column(name = "earn_date")
+    private LocalDate day;
+
+    @Column(name = "tips_amount", nullable = false)
+    private Double tipsAmount = 0.0;
+
+    @Column(name = "tips_count", nullable = false)
+    private Integer tipsCount = 0;
+
+    @Column(name = "accepted_amount", nullable = false)
+    private Double acceptedAmount = 0.0;
+
+    @Column(name = "accepted_count", nullable = false)
+    private Integer acceptedCount = 0;
+
+    @Column(name = "pending_amount", nullable = false)
+    private Double pendingAmount = 0.0;
+
+    @Column(name = "pending_count", nullable = false)
+    private Integer pendingCount = 0;
+
+    @Column(name = "rolled_up_at", nullable = false)
+    private LocalDateTime rolledUpAt;
+
+    public DJDailyEarnings(UUID djId, LocalDate day) {
+        this.djId = djId;
+        this.day = day;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(djId, day);
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID djId;
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,77 @@
+package com.spinwish.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Activity of one DJ on one finished day. Lifetime DJ stats are the sum of these rows plus
+ * the days not rolled up yet, so history is never rescanned.
+ *
+ * Rows are inserted by the rollup job, so save always inserts; a late payment re-rolls the
+ * earnings of a loaded row in place.
+ */
+@Entity
+@Table(name = "dj_daily_stats", indexes = {
+        @Index(name = "idx_dj_daily_stats_date", columnList = "stat_date")
+})
+@IdClass(DJDailyStats.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class DJDailyStats implements Persistable<DJDailyStats.Key> {
+    @Id
+    @Column(name = "dj_id")
+    private UUID djId;
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate day;
+
+    @Column(name = "earnings", nullable = false)
+    private Double earnings = 0.0;
+
+    @Column(name = "sessions", nullable = false)
+    private Integer sessions = 0;
+
+    @Column(name = "requests", nullable = false)
+    private Integer requests = 0;
+
+    @Column(name = "songs_played", nullable = false)
+    private Integer songsPlayed = 0;
+
+    @Column(name = "rolled_up_at", nullable = false)
+    private LocalDateTime rolledUpAt;
+
+    public DJDailyStats(UUID djId, LocalDate day) {
+        this.djId = djId;
+        this.day = day;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(djId, day);
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID djId;
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,80 @@
+package com.spinwish.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sum of a DJ's dj_daily_earnings rows, kept in step with them in the same transaction.
+ * Covers every day up to and including throughDate. The DJ has no rows before firstDate,
+ * so a period starting on or before it can be answered from this row alone.
+ */
+@Entity
+@Table(name = "dj_earnings_totals")
+@Getter
+@Setter
+@NoArgsConstructor
+public class DJEarningsTotals implements Persistable<UUID> {
+    @Id
+    @Column(name = "dj_id")
+    private UUID djId;
+
+    @Column(name = "first_date", nullable = false)
+    private LocalDate firstDate;
+
+    @Column(name = "through_date", nullable = false)
+    private LocalDate throughDate;
+
+    @Column(name = "tips_amount", nullable = false)
+    private Double tipsAmount = 0.0;
+
+    @Column(name = "tips_count", nullable = false)
+    private Long tipsCount = 0L;
+
+    @Column(name = "accepted_amount", nullable = false)
+    private Double acceptedAmount = 0.0;
+
+    @Column(name = "accepted_count", nullable = false)
+    private Long acceptedCount = 0L;
+
+    @Column(name = "pending_amount", nullable = false)
+    private Double pendingAmount = 0.0;
+
+    @Column(name = "pending_count", nullable = false)
+    private Long pendingCount = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Transient
+    private boolean created;
+
+    public DJEarningsTotals(UUID djId, LocalDate day) {
+        this.djId = djId;
+        this.firstDate = day;
+        this.throughDate = day;
+        this.created = true;
+    }
+
+    @Override
+    public UUID getId() {
+        return djId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.created = false;
+    }
+}
@@ -0,0 +1,48 @@
+package com.spinwish.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A user following a DJ. At most one row per (follower, DJ) pair.
+ */
+@Entity
+@Table(name = "dj_followers",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_dj_followers_follower_dj", columnNames = {"follower_id", "dj_id"})
+        },
+        indexes = {
+                @Index(name = "idx_dj_followers_dj", columnList = "dj_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class DJFollower {
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "follower_id", nullable = false)
+    private UUID followerId;
+
+    @Column(name = "dj_id", nullable = false)
+    private UUID djId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public DJFollower(UUID followerId, UUID djId) {
+        this.followerId = followerId;
+        this.djId = djId;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
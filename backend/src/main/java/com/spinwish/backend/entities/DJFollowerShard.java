@@ -0,0 +1,63 @@
+package com.spinwish.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * One slice of a DJ's follower count. Follows and unfollows add to a random shard, so
+ * concurrent follows of a popular DJ do not queue on the same row; the sum of all shards
+ * is the follower count.
+ *
+ * Shards are only ever inserted as new rows and then changed with SQL increments, so save
+ * always inserts and a concurrent creation fails instead of overwriting the counts.
+ */
+@Entity
+@Table(name = "dj_follower_shards")
+@IdClass(DJFollowerShard.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class DJFollowerShard implements Persistable<DJFollowerShard.Key> {
+    @Id
+    @Column(name = "dj_id")
+    private UUID djId;
+
+    @Id
+    @Column(name = "shard")
+    private Integer shard;
+
+    @Column(name = "delta", nullable = false)
+    private Long delta = 0L;
+
+    public DJFollowerShard(UUID djId, Integer shard, Long delta) {
+        this.djId = djId;
+        this.shard = shard;
+        this.delta = delta;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(djId, shard);
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID djId;
+        private Integer shard;
+    }
+}
@@ -0,0 +1,29 @@
+package com.spinwish.backend.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A named row locked FOR UPDATE to serialize the writers of a ledger across instances. It
+ * carries no data; holding its lock is what matters.
+ */
+@Entity
+@Table(name = "ledger_locks")
+@Getter
+@NoArgsConstructor
+public class LedgerLock {
+
+    public static final String DJ_EARNINGS = "dj_earnings";
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    public LedgerLock(String name) {
+        this.name = name;
+    }
+}
@@ -13,7 +13,17 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
-@Table(name = "requests")
+@Table(name = "requests", indexes = {
+        @Index(name = "idx_requests_dj_status", columnList = "dj_id, status"),
+        @Index(name = "idx_requests_session_status", columnList = "session_id, status"),
+        @Index(name = "idx_requests_client_created", columnList = "client_id, created_at, id"),
+        @Index(name = "idx_requests_dj_created", columnList = "dj_id, created_at, id"),
+        @Index(name = "idx_requests_session_created", columnList = "session_id, created_at, id"),
+        @Index(name = "idx_requests_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_requests_status_updated", columnList = "status, updated_at"),
+        @Index(name = "idx_requests_dj_played", columnList = "dj_id, played_at"),
+        @Index(name = "idx_requests_played", columnList = "played_at")
+})
 public class Request {
     @Id
     @GeneratedValue
@@ -28,6 +38,7 @@ public class Request {
     @Column(name = "session_id")
     private UUID sessionId;
 
+    // Legacy comma-joined song IDs, kept for older clients; request_songs is the source of truth
     @Column(name = "songs_id")
     private String songId;
 
@@ -44,12 +55,20 @@ public class Request {
     @Column(name = "queue_position")
     private Integer queuePosition;
 
-    @Column(name = "created_at")
+    // Sparse manual ordering key; a move only rewrites the moved rows
+    @Column(name = "queue_rank")
+    private Long queueRank;
+
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // When the request was first marked played; unlike updatedAt it never moves afterwards
+    @Column(name = "played_at")
+    private LocalDateTime playedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "dj_id", referencedColumnName = "id", insertable = false, updatable = false)
     private Users dj;
@@ -0,0 +1,44 @@
+package com.spinwish.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+/**
+ * One song of a song request. Multi-song requests have one row per song,
+ * ordered by {@code position}.
+ */
+@Entity
+@Table(name = "request_songs",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_request_songs_request_position", columnNames = {"request_id", "position"})
+        },
+        indexes = {
+                @Index(name = "idx_request_songs_song_request", columnList = "song_id, request_id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class RequestSong {
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "request_id", nullable = false)
+    private UUID requestId;
+
+    @Column(name = "song_id", nullable = false)
+    private UUID songId;
+
+    @Column(name = "position", nullable = false)
+    private Integer position;
+
+    public RequestSong(UUID requestId, UUID songId, Integer position) {
+        this.requestId = requestId;
+        this.songId = songId;
+        this.position = position;
+    }
+}
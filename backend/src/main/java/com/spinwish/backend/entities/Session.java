@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonValue;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,7 +14,11 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "sessions")
+@DynamicUpdate
+@Table(name = "sessions", indexes = {
+        @Index(name = "idx_sessions_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_sessions_dj_created", columnList = "dj_id, created_at")
+})
 @Getter
 @Setter
 public class Session {
@@ -46,27 +52,31 @@ public class Session {
     @Column(name = "end_time")
     private LocalDateTime endTime;
 
-    @Column(name = "listener_count")
+    // Set only by SessionRepository.setListenerCount
+    @Column(name = "listener_count", updatable = false)
     private Integer listenerCount;
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "session_request_queue", joinColumns = @JoinColumn(name = "session_id"))
     @Column(name = "request_id")
     private List<String> requestQueue;
 
-    @Column(name = "total_earnings")
+    // Inserted with the session, then changed only by the increment queries in SessionRepository;
+    // entity updates leave these columns out, so a save never overwrites a newer increment
+    @Column(name = "total_earnings", updatable = false)
     private Double totalEarnings;
 
-    @Column(name = "total_tips")
+    @Column(name = "total_tips", updatable = false)
     private Double totalTips;
 
-    @Column(name = "total_requests")
+    @Column(name = "total_requests", updatable = false)
     private Integer totalRequests;
 
-    @Column(name = "accepted_requests")
+    @Column(name = "accepted_requests", updatable = false)
     private Integer acceptedRequests;
 
-    @Column(name = "rejected_requests")
+    @Column(name = "rejected_requests", updatable = false)
     private Integer rejectedRequests;
 
     @Column(name = "current_song_id")
@@ -79,6 +89,7 @@ public class Session {
     private Double minTipAmount;
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "session_genres", joinColumns = @JoinColumn(name = "session_id"))
     @Column(name = "genre")
     private List<String> genres;
@@ -92,7 +103,7 @@ public class Session {
     @Column(name = "thumbnail_url")
     private String thumbnailUrl;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
@@ -0,0 +1,53 @@
+package com.spinwish.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Running analytics totals of one session, updated in place on request and listener events
+ * and rebuilt from the requests table when it needs repair.
+ */
+@Entity
+@Table(name = "session_analytics")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SessionAnalytics {
+    @Id
+    @Column(name = "session_id")
+    private UUID sessionId;
+
+    @Column(name = "total_requests", nullable = false)
+    private Integer totalRequests = 0;
+
+    @Column(name = "pending_requests", nullable = false)
+    private Integer pendingRequests = 0;
+
+    @Column(name = "accepted_requests", nullable = false)
+    private Integer acceptedRequests = 0;
+
+    @Column(name = "rejected_requests", nullable = false)
+    private Integer rejectedRequests = 0;
+
+    @Column(name = "played_requests", nullable = false)
+    private Integer playedRequests = 0;
+
+    // Sum of amounts of requests currently in ACCEPTED status
+    @Column(name = "accepted_amount", nullable = false)
+    private Double acceptedAmount = 0.0;
+
+    @Column(name = "peak_listeners", nullable = false)
+    private Integer peakListeners = 0;
+
+    @Column(name = "rebuilt_at")
+    private LocalDateTime rebuiltAt;
+
+    public SessionAnalytics(UUID sessionId) {
+        this.sessionId = sessionId;
+    }
+}
@@ -1,6 +1,8 @@
 package com.spinwish.backend.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.security.core.GrantedAuthority;
@@ -12,6 +14,10 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@DynamicUpdate
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_role_live", columnList = "role_id, is_live")
+})
 @Getter
 @Setter
 public class Users implements UserDetails {
@@ -60,6 +66,7 @@ public class Users implements UserDetails {
     private String profileImage;
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "user_genres", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "genre")
     private List<String> genres;
@@ -73,7 +80,8 @@ public class Users implements UserDetails {
     @Column(name = "is_live")
     private Boolean isLive;
 
-    @Column(name = "followers")
+    // Maintained by FollowerService through UsersRepository.setFollowers; profile saves leave it alone
+    @Column(name = "followers", updatable = false)
     private Integer followers;
 
     @Column(name = "credits")
@@ -0,0 +1,71 @@
+package com.spinwish.backend.entities.payments;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An M-Pesa STK callback exactly as Safaricom sent it, stored before it is processed.
+ * One row per CheckoutRequestID, so a resent callback is acknowledged without being
+ * processed twice. The payload is never modified; only the processing state is.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "mpesa_callback_inbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_mpesa_callback_inbox_checkout", columnNames = "checkout_request_id"),
+        indexes = @Index(name = "idx_mpesa_callback_inbox_due", columnList = "status, next_attempt_at"))
+public class MpesaCallbackInbox {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    // Null when the payload could not be parsed
+    @Column(name = "checkout_request_id")
+    private String checkoutRequestId;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public MpesaCallbackInbox(String checkoutRequestId, String payload, LocalDateTime receivedAt) {
+        this.checkoutRequestId = checkoutRequestId;
+        this.payload = payload;
+        this.receivedAt = receivedAt;
+        this.nextAttemptAt = receivedAt;
+    }
+
+    public enum Status {
+        PENDING,     // Waiting for its first or next attempt
+        PROCESSING,  // Claimed by a worker
+        DONE,        // Processed
+        FAILED       // Gave up after the maximum number of attempts
+    }
+}
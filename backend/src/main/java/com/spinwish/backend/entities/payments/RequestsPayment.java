@@ -12,13 +12,17 @@ import java.util.UUID;
 @Entity
 @Getter
 @Setter
-@Table(name = "request_payments")
+@Table(name = "request_payments", indexes = {
+        @Index(name = "uk_request_payments_receipt", columnList = "receipt_number", unique = true),
+        @Index(name = "idx_request_payments_date_id", columnList = "transaction_date, id"),
+        @Index(name = "idx_request_payments_request", columnList = "request_id")
+})
 public class RequestsPayment {
     @Id
     @GeneratedValue
     private UUID id;
 
-    @Column(name = "receipt_number", nullable = false, unique = true)
+    @Column(name = "receipt_number", nullable = false)
     private String receiptNumber;
 
     @Column(name = "payer_name", nullable = false)
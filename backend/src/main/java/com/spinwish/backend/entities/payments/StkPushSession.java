@@ -12,7 +12,9 @@ import java.util.UUID;
 @Entity
 @Getter
 @Setter
-@Table(name = "stk_push_sessions")
+@Table(name = "stk_push_sessions", indexes = {
+        @Index(name = "idx_stk_push_sessions_status_created", columnList = "status, created_at, id")
+})
 public class StkPushSession {
     @Id
     @GeneratedValue
@@ -42,7 +44,7 @@ public class StkPushSession {
     @Column(name = "status")
     private String status = "PENDING";
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @Column(name = "last_updated")
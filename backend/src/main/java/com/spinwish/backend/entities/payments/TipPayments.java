@@ -12,13 +12,17 @@ import java.util.UUID;
 @Entity
 @Getter
 @Setter
-@Table(name = "tip_payments")
+@Table(name = "tip_payments", indexes = {
+        @Index(name = "uk_tip_payments_receipt", columnList = "receipt_number", unique = true),
+        @Index(name = "idx_tip_payments_date_id", columnList = "transaction_date, id"),
+        @Index(name = "idx_tip_payments_dj_date", columnList = "dj_id, transaction_date")
+})
 public class TipPayments {
     @Id
     @GeneratedValue
     private UUID id;
 
-    @Column(name = "receipt_number", nullable = false, unique = true)
+    @Column(name = "receipt_number", nullable = false)
     private String receiptNumber;
 
     @Column(name = "payer_name", nullable = false)
@@ -0,0 +1,12 @@
+package com.spinwish.backend.exceptions;
+
+/**
+ * A pagination cursor sent by the client could not be decoded
+ */
+public class InvalidCursorException extends ValidationException {
+
+    public InvalidCursorException() {
+        super("Invalid cursor");
+        addFieldError("cursor", null, "Cursor is not one returned by a previous page", "INVALID_FORMAT");
+    }
+}
@@ -0,0 +1,23 @@
+package com.spinwish.backend.models.responses.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated list. nextCursor is opaque and only set when hasNext is true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public <R> CursorPage<R> withItems(List<R> newItems) {
+        return new CursorPage<>(newItems, nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,30 @@
+package com.spinwish.backend.models.responses.payments;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payment change pushed on /topic/payments and the DJ payment topics.
+ * Only the fields relevant to the event are set.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentUpdateEvent {
+    private String event;
+    private String checkoutRequestId;
+    private String paymentType;
+    private Double amount;
+    private String phoneNumber;
+    private String status;
+    private String receiptNumber;
+    private Integer resultCode;
+    private String resultDescription;
+    private String fromUser;
+    private String timestamp;
+}
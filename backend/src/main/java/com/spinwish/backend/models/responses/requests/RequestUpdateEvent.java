@@ -0,0 +1,32 @@
+package com.spinwish.backend.models.responses.requests;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact request change pushed on the session and DJ request topics.
+ * Clients fetch the full request over REST when they need more than this.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestUpdateEvent {
+    private String type;
+    private List<Change> changes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private UUID id;
+        private UUID sessionId;
+        private String status;
+        private Integer queuePosition;
+        private LocalDateTime updatedAt;
+    }
+}
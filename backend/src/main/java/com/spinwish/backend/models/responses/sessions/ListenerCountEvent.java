@@ -0,0 +1,20 @@
+package com.spinwish.backend.models.responses.sessions;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Live listener numbers of a session, published on /topic/sessions/{id}/listeners
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListenerCountEvent {
+    private UUID sessionId;
+    private Integer listeners;
+    private Integer peakListeners;
+    private Long uniqueListeners;
+}
@@ -0,0 +1,19 @@
+package com.spinwish.backend.models.responses.sessions;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Requests and earnings of a session within one minute
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionAnalyticsBucket {
+    private LocalDateTime minute;
+    private Integer requests;
+    private Double earnings;
+}
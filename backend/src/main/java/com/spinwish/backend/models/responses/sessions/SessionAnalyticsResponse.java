@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -23,6 +24,7 @@ public class SessionAnalyticsResponse {
     // Listener metrics
     private Integer activeListeners;
     private Integer peakListeners;
+    private Long uniqueListeners; // Approximate, from WebSocket presence
     
     // Request metrics
     private Integer totalRequests;
@@ -42,5 +44,8 @@ public class SessionAnalyticsResponse {
     private Long sessionDurationMinutes;
     private Double earningsPerHour;
     private Double requestsPerHour;
+
+    // Per-minute requests and earnings over the recent part of the session
+    private List<SessionAnalyticsBucket> timeline;
 }
 
@@ -0,0 +1,72 @@
+package com.spinwish.backend.models.responses.sessions;
+
+import com.spinwish.backend.entities.Session;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Full view of a single session. Everything except the legacy request queue, which is
+ * internal and never sent to clients.
+ */
+@Data
+@NoArgsConstructor
+public class SessionDetail {
+    private UUID id;
+    private UUID djId;
+    private UUID clubId;
+    private Session.SessionType type;
+    private Session.SessionStatus status;
+    private String title;
+    private String description;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Integer listenerCount;
+    private Double totalEarnings;
+    private Double totalTips;
+    private Integer totalRequests;
+    private Integer acceptedRequests;
+    private Integer rejectedRequests;
+    private String currentSongId;
+    private Boolean isAcceptingRequests;
+    private Double minTipAmount;
+    private List<String> genres;
+    private String shareableLink;
+    private String imageUrl;
+    private String thumbnailUrl;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static SessionDetail from(Session session) {
+        SessionDetail detail = new SessionDetail();
+        detail.setId(session.getId());
+        detail.setDjId(session.getDjId());
+        detail.setClubId(session.getClubId());
+        detail.setType(session.getType());
+        detail.setStatus(session.getStatus());
+        detail.setTitle(session.getTitle());
+        detail.setDescription(session.getDescription());
+        detail.setStartTime(session.getStartTime());
+        detail.setEndTime(session.getEndTime());
+        detail.setListenerCount(session.getListenerCount());
+        detail.setTotalEarnings(session.getTotalEarnings());
+        detail.setTotalTips(session.getTotalTips());
+        detail.setTotalRequests(session.getTotalRequests());
+        detail.setAcceptedRequests(session.getAcceptedRequests());
+        detail.setRejectedRequests(session.getRejectedRequests());
+        detail.setCurrentSongId(session.getCurrentSongId());
+        detail.setIsAcceptingRequests(session.getIsAcceptingRequests());
+        detail.setMinTipAmount(session.getMinTipAmount());
+        detail.setGenres(session.getGenres() != null ? new ArrayList<>(session.getGenres()) : new ArrayList<>());
+        detail.setShareableLink(session.getShareableLink());
+        detail.setImageUrl(session.getImageUrl());
+        detail.setThumbnailUrl(session.getThumbnailUrl());
+        detail.setCreatedAt(session.getCreatedAt());
+        detail.setUpdatedAt(session.getUpdatedAt());
+        return detail;
+    }
+}
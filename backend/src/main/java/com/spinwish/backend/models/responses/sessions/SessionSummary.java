@@ -0,0 +1,71 @@
+package com.spinwish.backend.models.responses.sessions;
+
+import com.spinwish.backend.entities.Session;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Session as shown in listings: every scalar field the clients read, without the request
+ * queue. Loaded by a JPQL constructor query; genres are filled in by GenreLoader.
+ */
+@Data
+@NoArgsConstructor
+public class SessionSummary {
+    private UUID id;
+    private UUID djId;
+    private UUID clubId;
+    private Session.SessionType type;
+    private Session.SessionStatus status;
+    private String title;
+    private String description;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Integer listenerCount;
+    private Integer totalRequests;
+    private Integer acceptedRequests;
+    private Integer rejectedRequests;
+    private Double totalEarnings;
+    private Double totalTips;
+    private Boolean isAcceptingRequests;
+    private Double minTipAmount;
+    private String currentSongId;
+    private String shareableLink;
+    private List<String> genres;
+    private String imageUrl;
+    private String thumbnailUrl;
+    private LocalDateTime createdAt;
+
+    public SessionSummary(UUID id, UUID djId, UUID clubId, Session.SessionType type, Session.SessionStatus status,
+                          String title, String description, LocalDateTime startTime, LocalDateTime endTime,
+                          Integer listenerCount, Integer totalRequests, Integer acceptedRequests,
+                          Integer rejectedRequests, Double totalEarnings, Double totalTips,
+                          Boolean isAcceptingRequests, Double minTipAmount, String currentSongId,
+                          String shareableLink, String imageUrl, String thumbnailUrl, LocalDateTime createdAt) {
+        this.id = id;
+        this.djId = djId;
+        this.clubId = clubId;
+        this.type = type;
+        this.status = status;
+        this.title = title;
+        this.description = description;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.listenerCount = listenerCount;
+        this.totalRequests = totalRequests;
+        this.acceptedRequests = acceptedRequests;
+        this.rejectedRequests = rejectedRequests;
+        this.totalEarnings = totalEarnings;
+        this.totalTips = totalTips;
+        this.isAcceptingRequests = isAcceptingRequests;
+        this.minTipAmount = minTipAmount;
+        this.currentSongId = currentSongId;
+        this.shareableLink = shareableLink;
+        this.imageUrl = imageUrl;
+        this.thumbnailUrl = thumbnailUrl;
+        this.createdAt = createdAt;
+    }
+}
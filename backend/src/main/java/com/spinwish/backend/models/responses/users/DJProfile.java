@@ -0,0 +1,49 @@
+package com.spinwish.backend.models.responses.users;
+
+import com.spinwish.backend.entities.Users;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Public DJ profile. Loaded by a JPQL constructor query with genres filled in afterwards,
+ * so credentials and contact details never leave the users table.
+ */
+@Data
+@NoArgsConstructor
+public class DJProfile {
+    private UUID id;
+    private String username;
+    private String bio;
+    private String profileImage;
+    private List<String> genres;
+    private Double rating;
+    private String instagramHandle;
+    private Boolean isLive;
+    private Integer followers;
+    private LocalDateTime createdAt;
+
+    public DJProfile(UUID id, String username, String bio, String profileImage, Double rating,
+                     String instagramHandle, Boolean isLive, Integer followers, LocalDateTime createdAt) {
+        this.id = id;
+        this.username = username;
+        this.bio = bio;
+        this.profileImage = profileImage;
+        this.rating = rating;
+        this.instagramHandle = instagramHandle;
+        this.isLive = isLive;
+        this.followers = followers;
+        this.createdAt = createdAt;
+    }
+
+    public static DJProfile from(Users dj) {
+        DJProfile profile = new DJProfile(dj.getId(), dj.getActualUsername(), dj.getBio(), dj.getProfileImage(),
+                dj.getRating(), dj.getInstagramHandle(), dj.getIsLive(), dj.getFollowers(), dj.getCreatedAt());
+        profile.setGenres(dj.getGenres() != null ? new ArrayList<>(dj.getGenres()) : new ArrayList<>());
+        return profile;
+    }
+}
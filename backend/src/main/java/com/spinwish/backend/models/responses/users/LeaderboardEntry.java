@@ -0,0 +1,18 @@
+package com.spinwish.backend.models.responses.users;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One place on a DJ leaderboard. score is the rating, follower count, earnings or request
+ * count, depending on the board.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+    private int rank;
+    private double score;
+    private DJProfile dj;
+}
@@ -1,155 +1,337 @@
 package com.spinwish.backend.monitoring;
 
+import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
 /**
- * Metrics collection for payment operations
+ * Metrics collection for payment operations.
+ *
+ * Meters for the fixed tag values (payment type, success) are registered once at startup
+ * into arrays indexed by PaymentType ordinal and by success, so recording one is an array
+ * read and an increment. Meters tagged with open-ended values, such as M-Pesa result codes,
+ * are registered on first use and cached, up to MAX_TAG_VALUES per meter. Timings are taken
+ * as clock ticks rather than Timer.Sample objects.
  */
 @Component
-@RequiredArgsConstructor
 public class PaymentMetrics {
 
-    private final MeterRegistry meterRegistry;
-
     // Counters for payment events
     private static final String PAYMENT_INITIATED = "payment.initiated";
     private static final String PAYMENT_COMPLETED = "payment.completed";
     private static final String PAYMENT_FAILED = "payment.failed";
     private static final String PAYMENT_CANCELLED = "payment.cancelled";
+    private static final String PAYMENT_AMOUNT = "payment.amount";
     private static final String CALLBACK_RECEIVED = "payment.callback.received";
     private static final String CALLBACK_PROCESSED = "payment.callback.processed";
     private static final String VALIDATION_ERROR = "payment.validation.error";
+    private static final String DUPLICATE_RECEIPT = "payment.duplicate.receipt";
 
     // Timers for performance monitoring
     private static final String STK_PUSH_DURATION = "payment.stk.push.duration";
     private static final String CALLBACK_PROCESSING_DURATION = "payment.callback.processing.duration";
     private static final String PAYMENT_QUERY_DURATION = "payment.query.duration";
 
+    // Callback inbox backlog and lag
+    private static final String CALLBACK_INBOX_PENDING = "payment.callback.inbox.pending";
+    private static final String CALLBACK_INBOX_OLDEST_AGE = "payment.callback.inbox.oldest.age.seconds";
+    private static final String CALLBACK_INBOX_LAG = "payment.callback.inbox.lag";
+    private static final String CALLBACK_INBOX_DUPLICATE = "payment.callback.inbox.duplicate";
+    private static final String CALLBACK_INBOX_SPOOLED = "payment.callback.inbox.spooled";
+
+    // STK reconciliation runs
+    private static final String RECONCILIATION_RUN_DURATION = "payment.reconciliation.run.duration";
+    private static final String RECONCILIATION_BACKLOG = "payment.reconciliation.backlog";
+    private static final String RECONCILIATION_OUTCOME = "payment.reconciliation.outcome";
+
+    // Distinct values cached per open-ended tag; later ones are counted as "other"
+    private static final int MAX_TAG_VALUES = 64;
+    private static final String OTHER = "other";
+
+    /**
+     * Payment types as tagged on the meters; anything else is UNKNOWN
+     */
+    public enum PaymentType {
+        REQUEST,
+        TIP,
+        UNKNOWN;
+
+        public static PaymentType of(String type) {
+            if ("REQUEST".equals(type)) {
+                return REQUEST;
+            }
+            if ("TIP".equals(type)) {
+                return TIP;
+            }
+            return UNKNOWN;
+        }
+    }
+
+    private static final PaymentType[] TYPES = PaymentType.values();
+
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    private final Counter[] initiated = new Counter[TYPES.length];
+    private final Counter[] completed = new Counter[TYPES.length];
+    private final Counter[] cancelled = new Counter[TYPES.length];
+    private final DistributionSummary[] amounts = new DistributionSummary[TYPES.length];
+    @SuppressWarnings("unchecked")
+    private final Map<String, Counter>[] failed = new Map[TYPES.length];
+    private final Function<String, Counter>[] failedFactories;
+
+    // Indexed by success: [0] false, [1] true
+    private final Counter[] callbacksProcessed = new Counter[2];
+    private final Timer[] stkPushDurations = new Timer[2];
+    private final Timer[] callbackProcessingDurations = new Timer[2];
+    private final Timer[] queryDurations = new Timer[2];
+    private final Timer[] inboxLags = new Timer[2];
+
+    private final Map<String, Counter> callbacksReceived = new ConcurrentHashMap<>();
+    private final Map<String, Counter> validationErrors = new ConcurrentHashMap<>();
+    private final Map<String, Counter> duplicateReceipts = new ConcurrentHashMap<>();
+    private final Map<String, Counter> reconciliationOutcomes = new ConcurrentHashMap<>();
+    private final Function<String, Counter> callbackReceivedFactory;
+    private final Function<String, Counter> validationErrorFactory;
+    private final Function<String, Counter> duplicateReceiptFactory;
+    private final Function<String, Counter> reconciliationOutcomeFactory;
+
+    private final Counter inboxDuplicates;
+    private final Counter callbacksSpooled;
+    private final Timer reconciliationRuns;
+
+    private final AtomicLong inboxPending = new AtomicLong();
+    private final AtomicLong inboxOldestAgeSeconds = new AtomicLong();
+    private final AtomicLong reconciliationBacklog = new AtomicLong();
+    // Values behind recordGauge, held here so the gauges are not collected; double bits
+    private final Map<GaugeKey, AtomicLong> gaugeValues = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.clock = meterRegistry.config().clock();
+
+        this.failedFactories = new Function[TYPES.length];
+        for (PaymentType type : TYPES) {
+            int i = type.ordinal();
+            initiated[i] = Counter.builder(PAYMENT_INITIATED).tag("type", type.name()).register(meterRegistry);
+            completed[i] = Counter.builder(PAYMENT_COMPLETED).tag("type", type.name()).register(meterRegistry);
+            cancelled[i] = Counter.builder(PAYMENT_CANCELLED).tag("type", type.name()).register(meterRegistry);
+            amounts[i] = DistributionSummary.builder(PAYMENT_AMOUNT).tag("type", type.name()).register(meterRegistry);
+            failed[i] = new ConcurrentHashMap<>();
+            failedFactories[i] = errorCode -> Counter.builder(PAYMENT_FAILED)
+                    .tag("type", type.name())
+                    .tag("error_code", errorCode)
+                    .register(meterRegistry);
+        }
+
+        for (int i = 0; i < 2; i++) {
+            String success = String.valueOf(i == 1);
+            callbacksProcessed[i] = Counter.builder(CALLBACK_PROCESSED).tag("success", success).register(meterRegistry);
+            stkPushDurations[i] = Timer.builder(STK_PUSH_DURATION)
+                    .tag("success", success)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            callbackProcessingDurations[i] = Timer.builder(CALLBACK_PROCESSING_DURATION)
+                    .tag("success", success)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            queryDurations[i] = Timer.builder(PAYMENT_QUERY_DURATION).tag("success", success).register(meterRegistry);
+            inboxLags[i] = Timer.builder(CALLBACK_INBOX_LAG).tag("success", success).register(meterRegistry);
+        }
+
+        this.callbackReceivedFactory = resultCode ->
+                Counter.builder(CALLBACK_RECEIVED).tag("result_code", resultCode).register(meterRegistry);
+        this.validationErrorFactory = errorType ->
+                Counter.builder(VALIDATION_ERROR).tag("error_type", errorType).register(meterRegistry);
+        this.duplicateReceiptFactory = detectedBy ->
+                Counter.builder(DUPLICATE_RECEIPT).tag("detected_by", detectedBy).register(meterRegistry);
+        this.reconciliationOutcomeFactory = outcome ->
+                Counter.builder(RECONCILIATION_OUTCOME).tag("outcome", outcome).register(meterRegistry);
+
+        this.inboxDuplicates = meterRegistry.counter(CALLBACK_INBOX_DUPLICATE);
+        this.callbacksSpooled = meterRegistry.counter(CALLBACK_INBOX_SPOOLED);
+        this.reconciliationRuns = meterRegistry.timer(RECONCILIATION_RUN_DURATION);
+
+        meterRegistry.gauge(CALLBACK_INBOX_PENDING, inboxPending);
+        meterRegistry.gauge(CALLBACK_INBOX_OLDEST_AGE, inboxOldestAgeSeconds);
+        meterRegistry.gauge(RECONCILIATION_BACKLOG, reconciliationBacklog);
+    }
+
+    private static int index(boolean success) {
+        return success ? 1 : 0;
+    }
+
+    /**
+     * The cached meter for a tag value, registering it on first use
+     */
+    private static Counter cached(Map<String, Counter> cache, String value, Function<String, Counter> factory) {
+        Counter counter = cache.get(value);
+        if (counter != null) {
+            return counter;
+        }
+        if (cache.size() >= MAX_TAG_VALUES) {
+            value = OTHER;
+        }
+        return cache.computeIfAbsent(value, factory);
+    }
+
     /**
      * Record payment initiation
      */
     public void recordPaymentInitiated(String paymentType) {
-        Counter.builder(PAYMENT_INITIATED)
-                .tag("type", paymentType)
-                .register(meterRegistry)
-                .increment();
+        initiated[PaymentType.of(paymentType).ordinal()].increment();
     }
 
     /**
      * Record successful payment completion
      */
     public void recordPaymentCompleted(String paymentType, double amount) {
-        Counter.builder(PAYMENT_COMPLETED)
-                .tag("type", paymentType)
-                .register(meterRegistry)
-                .increment();
-
+        int type = PaymentType.of(paymentType).ordinal();
+        completed[type].increment();
         // Record payment amount distribution
-        meterRegistry.summary("payment.amount", "type", paymentType)
-                .record(amount);
+        amounts[type].record(amount);
     }
 
     /**
      * Record payment failure
      */
     public void recordPaymentFailed(String paymentType, String errorCode) {
-        Counter.builder(PAYMENT_FAILED)
-                .tag("type", paymentType)
-                .tag("error_code", errorCode)
-                .register(meterRegistry)
-                .increment();
+        int type = PaymentType.of(paymentType).ordinal();
+        cached(failed[type], errorCode, failedFactories[type]).increment();
     }
 
     /**
      * Record payment cancellation
      */
     public void recordPaymentCancelled(String paymentType) {
-        Counter.builder(PAYMENT_CANCELLED)
-                .tag("type", paymentType)
-                .register(meterRegistry)
-                .increment();
+        cancelled[PaymentType.of(paymentType).ordinal()].increment();
     }
 
     /**
      * Record callback received
      */
     public void recordCallbackReceived(String resultCode) {
-        Counter.builder(CALLBACK_RECEIVED)
-                .tag("result_code", resultCode)
-                .register(meterRegistry)
-                .increment();
+        cached(callbacksReceived, resultCode, callbackReceivedFactory).increment();
     }
 
     /**
      * Record callback processing completion
      */
     public void recordCallbackProcessed(boolean success) {
-        Counter.builder(CALLBACK_PROCESSED)
-                .tag("success", String.valueOf(success))
-                .register(meterRegistry)
-                .increment();
+        callbacksProcessed[index(success)].increment();
     }
 
     /**
      * Record validation error
      */
     public void recordValidationError(String errorType) {
-        Counter.builder(VALIDATION_ERROR)
-                .tag("error_type", errorType)
-                .register(meterRegistry)
-                .increment();
+        cached(validationErrors, errorType, validationErrorFactory).increment();
+    }
+
+    /**
+     * Record a payment skipped because its receipt was already recorded
+     */
+    public void recordDuplicateReceipt(String detectedBy) {
+        cached(duplicateReceipts, detectedBy, duplicateReceiptFactory).increment();
     }
 
     /**
-     * Time STK push operation
+     * Time STK push operation; returns the start tick for stopStkPushTimer
      */
-    public Timer.Sample startStkPushTimer() {
-        return Timer.start(meterRegistry);
+    public long startStkPushTimer() {
+        return clock.monotonicTime();
     }
 
     /**
      * Stop STK push timer
      */
-    public void stopStkPushTimer(Timer.Sample sample, boolean success) {
-        sample.stop(Timer.builder(STK_PUSH_DURATION)
-                .tag("success", String.valueOf(success))
-                .register(meterRegistry));
+    public void stopStkPushTimer(long start, boolean success) {
+        stkPushDurations[index(success)].record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
     }
 
     /**
-     * Time callback processing
+     * Time callback processing; returns the start tick for stopCallbackProcessingTimer
      */
-    public Timer.Sample startCallbackProcessingTimer() {
-        return Timer.start(meterRegistry);
+    public long startCallbackProcessingTimer() {
+        return clock.monotonicTime();
     }
 
     /**
      * Stop callback processing timer
      */
-    public void stopCallbackProcessingTimer(Timer.Sample sample, boolean success) {
-        sample.stop(Timer.builder(CALLBACK_PROCESSING_DURATION)
-                .tag("success", String.valueOf(success))
-                .register(meterRegistry));
+    public void stopCallbackProcessingTimer(long start, boolean success) {
+        callbackProcessingDurations[index(success)].record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
     }
 
     /**
-     * Time payment query operation
+     * Time payment query operation; returns the start tick for stopPaymentQueryTimer
      */
-    public Timer.Sample startPaymentQueryTimer() {
-        return Timer.start(meterRegistry);
+    public long startPaymentQueryTimer() {
+        return clock.monotonicTime();
     }
 
     /**
      * Stop payment query timer
      */
-    public void stopPaymentQueryTimer(Timer.Sample sample, boolean success) {
-        sample.stop(Timer.builder(PAYMENT_QUERY_DURATION)
-                .tag("success", String.valueOf(success))
-                .register(meterRegistry));
+    public void stopPaymentQueryTimer(long start, boolean success) {
+        queryDurations[index(success)].record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Update the callback inbox backlog gauges
+     */
+    public void recordCallbackInboxBacklog(long pending, long oldestAgeSeconds) {
+        inboxPending.set(pending);
+        inboxOldestAgeSeconds.set(oldestAgeSeconds);
+    }
+
+    /**
+     * Record the time from receiving a callback to finishing with it
+     */
+    public void recordCallbackInboxLag(Duration lag, boolean success) {
+        inboxLags[index(success)].record(lag);
+    }
+
+    /**
+     * Record a resent callback that was already in the inbox
+     */
+    public void recordCallbackInboxDuplicate() {
+        inboxDuplicates.increment();
+    }
+
+    /**
+     * Record a callback written to the local spool because the inbox was unavailable
+     */
+    public void recordCallbackSpooled() {
+        callbacksSpooled.increment();
+    }
+
+    /**
+     * Record one reconciliation run and the pending sessions it started with
+     */
+    public void recordReconciliationRun(Duration duration, long backlog) {
+        reconciliationRuns.record(duration);
+        reconciliationBacklog.set(backlog);
+    }
+
+    /**
+     * Record what reconciliation did with one pending session
+     */
+    public void recordReconciliationOutcome(String outcome) {
+        cached(reconciliationOutcomes, outcome, reconciliationOutcomeFactory).increment();
     }
 
     /**
@@ -160,36 +342,44 @@ public class PaymentMetrics {
     }
 
     /**
-     * Record gauge metric (for current values)
+     * Record gauge metric (for current values). The gauge is registered on first use and
+     * reads the value held here, so it keeps reporting the latest one.
      */
     public void recordGauge(String metricName, String tagKey, String tagValue, double value) {
-        meterRegistry.gauge(metricName,
-            io.micrometer.core.instrument.Tags.of(tagKey, tagValue),
-            value);
+        AtomicLong bits = gaugeValues.computeIfAbsent(new GaugeKey(metricName, tagKey, tagValue), key -> {
+            AtomicLong holder = new AtomicLong(Double.doubleToLongBits(Double.NaN));
+            Gauge.builder(key.name(), holder, h -> Double.longBitsToDouble(h.get()))
+                    .tags(Tags.of(key.tagKey(), key.tagValue()))
+                    .register(meterRegistry);
+            return holder;
+        });
+        bits.set(Double.doubleToLongBits(value));
     }
 
     /**
      * Get payment success rate
      */
     public double getPaymentSuccessRate() {
-        double completed = getCounterValue(PAYMENT_COMPLETED);
-        double failed = getCounterValue(PAYMENT_FAILED);
-        double cancelled = getCounterValue(PAYMENT_CANCELLED);
-        
-        double total = completed + failed + cancelled;
-        return total > 0 ? (completed / total) * 100 : 0;
+        double completedCount = sum(PAYMENT_COMPLETED);
+        double failedCount = sum(PAYMENT_FAILED);
+        double cancelledCount = sum(PAYMENT_CANCELLED);
+
+        double total = completedCount + failedCount + cancelledCount;
+        return total > 0 ? (completedCount / total) * 100 : 0;
     }
 
     /**
      * Get average payment processing time
      */
     public double getAverageProcessingTime() {
-        Timer timer = meterRegistry.find(STK_PUSH_DURATION).timer();
-        return timer != null ? timer.mean(java.util.concurrent.TimeUnit.MILLISECONDS) : 0;
+        return stkPushDurations[index(true)].mean(TimeUnit.MILLISECONDS);
+    }
+
+    // Across all tag values of a counter
+    private double sum(String counterName) {
+        return meterRegistry.find(counterName).counters().stream().mapToDouble(Counter::count).sum();
     }
 
-    private double getCounterValue(String counterName) {
-        Counter counter = meterRegistry.find(counterName).counter();
-        return counter != null ? counter.count() : 0;
+    private record GaugeKey(String name, String tagKey, String tagValue) {
     }
 }
@@ -0,0 +1,31 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.DJDailyEarnings;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DJDailyEarningsRepository extends JpaRepository<DJDailyEarnings, DJDailyEarnings.Key> {
+
+    // [tipsAmount, tipsCount, acceptedAmount, acceptedCount, pendingAmount, pendingCount] of a DJ over [from, through]
+    @Query("SELECT COALESCE(SUM(e.tipsAmount), 0), COALESCE(SUM(e.tipsCount), 0), " +
+           "COALESCE(SUM(e.acceptedAmount), 0), COALESCE(SUM(e.acceptedCount), 0), " +
+           "COALESCE(SUM(e.pendingAmount), 0), COALESCE(SUM(e.pendingCount), 0) " +
+           "FROM DJDailyEarnings e WHERE e.djId = :djId AND e.day >= :from AND e.day <= :through")
+    List<Object[]> sumByDjIdBetween(@Param("djId") UUID djId, @Param("from") LocalDate from,
+                                    @Param("through") LocalDate through);
+
+    @Query("SELECT e.djId FROM DJDailyEarnings e WHERE e.day = :day")
+    List<UUID> findDjIdsByDay(@Param("day") LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM DJDailyEarnings e WHERE e.djId = :djId AND e.day = :day")
+    int deleteByDjIdAndDay(@Param("djId") UUID djId, @Param("day") LocalDate day);
+}
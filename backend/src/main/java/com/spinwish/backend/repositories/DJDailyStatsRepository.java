@@ -0,0 +1,37 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.DJDailyStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DJDailyStatsRepository extends JpaRepository<DJDailyStats, DJDailyStats.Key> {
+
+    // Latest rolled up day, null before the first rollup
+    @Query("SELECT MAX(s.day) FROM DJDailyStats s")
+    LocalDate findLastDay();
+
+    // [earnings, sessions, requests, songsPlayed] of a DJ up to and including a day
+    @Query("SELECT COALESCE(SUM(s.earnings), 0), COALESCE(SUM(s.sessions), 0), COALESCE(SUM(s.requests), 0), " +
+           "COALESCE(SUM(s.songsPlayed), 0) FROM DJDailyStats s WHERE s.djId = :djId AND s.day <= :through")
+    List<Object[]> sumByDjIdThrough(@Param("djId") UUID djId, @Param("through") LocalDate through);
+
+    // Serializes re-rolls of one DJ's day
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DJDailyStats s WHERE s.djId = :djId AND s.day = :day")
+    Optional<DJDailyStats> findForUpdate(@Param("djId") UUID djId, @Param("day") LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM DJDailyStats s WHERE s.day = :day")
+    int deleteByDay(@Param("day") LocalDate day);
+}
@@ -0,0 +1,24 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.DJEarningsTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Repository
+public interface DJEarningsTotalsRepository extends JpaRepository<DJEarningsTotals, UUID> {
+
+    // Latest rolled up day, null before the first rollup
+    @Query("SELECT MAX(t.throughDate) FROM DJEarningsTotals t")
+    LocalDate findLastDay();
+
+    // A day without earnings for a DJ still moves their totals past it
+    @Modifying
+    @Query("UPDATE DJEarningsTotals t SET t.throughDate = :day WHERE t.throughDate < :day")
+    int advanceThrough(@Param("day") LocalDate day);
+}
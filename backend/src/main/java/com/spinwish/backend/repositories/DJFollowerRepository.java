@@ -0,0 +1,26 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.DJFollower;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DJFollowerRepository extends JpaRepository<DJFollower, UUID> {
+
+    boolean existsByFollowerIdAndDjId(UUID followerId, UUID djId);
+
+    // Returns the number of rows removed, 0 when the user was not following
+    @Modifying
+    @Query("DELETE FROM DJFollower f WHERE f.followerId = :followerId AND f.djId = :djId")
+    int deleteByFollowerIdAndDjId(@Param("followerId") UUID followerId, @Param("djId") UUID djId);
+
+    // DJs a user follows
+    @Query("SELECT f.djId FROM DJFollower f WHERE f.followerId = :followerId")
+    List<UUID> findDjIdsByFollowerId(@Param("followerId") UUID followerId);
+}
@@ -0,0 +1,25 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.DJFollowerShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DJFollowerShardRepository extends JpaRepository<DJFollowerShard, DJFollowerShard.Key> {
+
+    // Add to one shard in a single statement; 0 when the DJ has no shards yet
+    @Modifying
+    @Query("UPDATE DJFollowerShard s SET s.delta = s.delta + :delta WHERE s.djId = :djId AND s.shard = :shard")
+    int addToShard(@Param("djId") UUID djId, @Param("shard") int shard, @Param("delta") long delta);
+
+    // (dj id, follower count) for a batch of DJs
+    @Query("SELECT s.djId, SUM(s.delta) FROM DJFollowerShard s WHERE s.djId IN :djIds GROUP BY s.djId")
+    List<Object[]> sumByDjIds(@Param("djIds") Collection<UUID> djIds);
+}
@@ -0,0 +1,20 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.LedgerLock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LedgerLockRepository extends JpaRepository<LedgerLock, String> {
+
+    // Held until the caller's transaction ends, so writers of the named ledger run one at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LedgerLock l WHERE l.name = :name")
+    Optional<LedgerLock> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,55 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.payments.MpesaCallbackInbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MpesaCallbackInboxRepository extends JpaRepository<MpesaCallbackInbox, UUID> {
+
+    // Pending callbacks due for an attempt, oldest first
+    @Query("SELECT i.id FROM MpesaCallbackInbox i " +
+           "WHERE i.status = com.spinwish.backend.entities.payments.MpesaCallbackInbox.Status.PENDING " +
+           "AND i.nextAttemptAt <= :now ORDER BY i.receivedAt")
+    List<UUID> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Take a pending callback for processing; 0 when another worker already has it
+    @Modifying
+    @Query("UPDATE MpesaCallbackInbox i SET i.status = com.spinwish.backend.entities.payments.MpesaCallbackInbox.Status.PROCESSING, " +
+           "i.claimedAt = :now WHERE i.id = :id AND i.status = com.spinwish.backend.entities.payments.MpesaCallbackInbox.Status.PENDING")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    // Return callbacks of workers that died mid-processing to the pending state
+    @Modifying
+    @Query("UPDATE MpesaCallbackInbox i SET i.status = com.spinwish.backend.entities.payments.MpesaCallbackInbox.Status.PENDING " +
+           "WHERE i.status = com.spinwish.backend.entities.payments.MpesaCallbackInbox.Status.PROCESSING AND i.claimedAt < :before")
+    int releaseClaimsBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("UPDATE MpesaCallbackInbox i SET i.status = com.spinwish.backend.entities.payments.MpesaCallbackInbox.Status.DONE, " +
+           "i.attempts = i.attempts + 1, i.processedAt = :now, i.lastError = NULL WHERE i.id = :id")
+    int markDone(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE MpesaCallbackInbox i SET i.status = :status, i.attempts = :attempts, i.nextAttemptAt = :nextAttemptAt, " +
+           "i.lastError = :error WHERE i.id = :id")
+    int reschedule(@Param("id") UUID id,
+                   @Param("status") MpesaCallbackInbox.Status status,
+                   @Param("attempts") int attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+
+    long countByStatus(MpesaCallbackInbox.Status status);
+
+    @Query("SELECT MIN(i.receivedAt) FROM MpesaCallbackInbox i " +
+           "WHERE i.status = com.spinwish.backend.entities.payments.MpesaCallbackInbox.Status.PENDING")
+    LocalDateTime findOldestPendingReceivedAt();
+}
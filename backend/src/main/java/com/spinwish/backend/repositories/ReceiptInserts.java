@@ -0,0 +1,45 @@
+package com.spinwish.backend.repositories;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Payment inserts that skip a receipt already recorded. The insert runs under a savepoint of
+ * the caller's transaction, so when a concurrent writer of the same receipt wins, only the
+ * insert is rolled back and the caller's transaction carries on.
+ */
+final class ReceiptInserts {
+
+    // unique_violation in PostgreSQL, duplicate key in H2
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private ReceiptInserts() {
+    }
+
+    /**
+     * Run an INSERT with the given values in order; false when the receipt is already recorded
+     */
+    static boolean insert(EntityManager entityManager, String sql, Object... values) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < values.length; i++) {
+                    statement.setObject(i + 1, values[i]);
+                }
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                return false;
+            }
+            connection.releaseSavepoint(savepoint);
+            return true;
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.entities.RequestSong;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RequestSongRepository extends JpaRepository<RequestSong, UUID> {
+
+    // Songs of a single request, in request order
+    List<RequestSong> findByRequestIdOrderByPositionAsc(UUID requestId);
+
+    // Songs of a batch of requests, grouped by request and in request order
+    List<RequestSong> findByRequestIdInOrderByRequestIdAscPositionAsc(Collection<UUID> requestIds);
+
+    @Modifying
+    @Query("DELETE FROM RequestSong rs WHERE rs.requestId = :requestId")
+    void deleteByRequestId(@Param("requestId") UUID requestId);
+
+    // Is the song already in a request of this DJ with the given status
+    @Query("SELECT CASE WHEN COUNT(rs) > 0 THEN true ELSE false END FROM RequestSong rs, Request r " +
+           "WHERE rs.requestId = r.id AND r.djId = :djId AND rs.songId = :songId AND r.status = :status")
+    boolean existsForDjAndStatus(@Param("djId") UUID djId,
+                                 @Param("songId") UUID songId,
+                                 @Param("status") Request.RequestStatus status);
+}
@@ -1,7 +1,6 @@
 package com.spinwish.backend.repositories;
 
 import com.spinwish.backend.entities.payments.RequestsPayment;
-import com.spinwish.backend.entities.Request;
 import com.spinwish.backend.entities.Users;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -16,18 +15,55 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface RequestsPaymentRepository extends JpaRepository<RequestsPayment, UUID> {
+public interface RequestsPaymentRepository extends JpaRepository<RequestsPayment, UUID>, RequestsPaymentRepositoryCustom {
     Optional<RequestsPayment> findByReceiptNumber(String receiptNumber);
 
+    boolean existsByReceiptNumber(String receiptNumber);
+
     @Query("SELECT rp FROM RequestsPayment rp WHERE rp.request.dj = :dj AND rp.transactionDate BETWEEN :startDate AND :endDate")
     List<RequestsPayment> findByRequestDjAndTransactionDateBetween(@Param("dj") Users dj, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
-    @Query("SELECT rp FROM RequestsPayment rp WHERE rp.request.dj = :dj AND rp.request.status = :status AND rp.transactionDate BETWEEN :startDate AND :endDate")
-    List<RequestsPayment> findByRequestDjAndStatusAndTransactionDateBetween(@Param("dj") Users dj, @Param("status") Request.RequestStatus status, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-
     @Query("SELECT rp FROM RequestsPayment rp WHERE rp.request.dj = :dj")
     Page<RequestsPayment> findByRequestDj(@Param("dj") Users dj, Pageable pageable);
 
     @Query("SELECT rp FROM RequestsPayment rp WHERE rp.request.djId = :djId ORDER BY rp.transactionDate DESC")
     List<RequestsPayment> findByRequestDjId(@Param("djId") UUID djId);
+
+    // Keyset page, newest first, strictly after the (transactionDate, id) cursor
+    @Query("SELECT rp FROM RequestsPayment rp WHERE rp.transactionDate < :transactionDate " +
+           "OR (rp.transactionDate = :transactionDate AND rp.id < :id) ORDER BY rp.transactionDate DESC, rp.id DESC")
+    List<RequestsPayment> findPage(@Param("transactionDate") LocalDateTime transactionDate, @Param("id") UUID id,
+                                   Pageable pageable);
+
+    // (dj id, total) of request payments since a point in time
+    @Query("SELECT rp.request.djId, SUM(rp.amount) FROM RequestsPayment rp WHERE rp.transactionDate >= :since " +
+           "GROUP BY rp.request.djId")
+    List<Object[]> sumAmountByDjSince(@Param("since") LocalDateTime since);
+
+    // (dj id, total) of request payments in [from, to)
+    @Query("SELECT rp.request.djId, SUM(rp.amount) FROM RequestsPayment rp WHERE rp.transactionDate >= :from " +
+           "AND rp.transactionDate < :to GROUP BY rp.request.djId")
+    List<Object[]> sumAmountByDjBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(rp.amount), 0) FROM RequestsPayment rp " +
+           "WHERE rp.request.djId = :djId AND rp.transactionDate >= :since")
+    double sumAmountByDjIdSince(@Param("djId") UUID djId, @Param("since") LocalDateTime since);
+
+    // (request status, sum, count) of a DJ's request payments in [from, to)
+    @Query("SELECT rp.request.status, SUM(rp.amount), COUNT(rp) FROM RequestsPayment rp " +
+           "WHERE rp.request.djId = :djId AND rp.transactionDate >= :from AND rp.transactionDate < :to " +
+           "GROUP BY rp.request.status")
+    List<Object[]> sumAndCountByDjIdAndStatusBetween(@Param("djId") UUID djId, @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+
+    // (dj id, request status, sum, count) of request payments in [from, to)
+    @Query("SELECT rp.request.djId, rp.request.status, SUM(rp.amount), COUNT(rp) FROM RequestsPayment rp " +
+           "WHERE rp.transactionDate >= :from AND rp.transactionDate < :to GROUP BY rp.request.djId, rp.request.status")
+    List<Object[]> sumAndCountByDjAndStatusBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT rp.transactionDate FROM RequestsPayment rp WHERE rp.request.id = :requestId")
+    List<LocalDateTime> findTransactionDatesByRequestId(@Param("requestId") UUID requestId);
+
+    @Query("SELECT MIN(rp.transactionDate) FROM RequestsPayment rp")
+    LocalDateTime findEarliestTransactionDate();
 }
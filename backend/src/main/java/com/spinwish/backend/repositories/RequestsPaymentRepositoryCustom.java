@@ -0,0 +1,12 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.payments.RequestsPayment;
+
+/**
+ * Receipt-idempotent insert that Spring Data cannot derive
+ */
+public interface RequestsPaymentRepositoryCustom {
+
+    // Insert unless the receipt is recorded, also by a transaction committing concurrently; false when it is
+    boolean insertIfReceiptAbsent(RequestsPayment payment);
+}
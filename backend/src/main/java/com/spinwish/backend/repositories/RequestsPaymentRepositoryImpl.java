@@ -0,0 +1,29 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.payments.RequestsPayment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+public class RequestsPaymentRepositoryImpl implements RequestsPaymentRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO request_payments (id, receipt_number, payer_name, phone_number, " +
+            "amount, transaction_date, user_id, request_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean insertIfReceiptAbsent(RequestsPayment payment) {
+        if (payment.getId() == null) {
+            payment.setId(UUID.randomUUID());
+        }
+        return ReceiptInserts.insert(entityManager, INSERT, payment.getId(), payment.getReceiptNumber(),
+                payment.getPayerName(), payment.getPhoneNumber(), payment.getAmount(), payment.getTransactionDate(),
+                payment.getPayer() != null ? payment.getPayer().getId() : null, payment.getRequest().getId());
+    }
+}
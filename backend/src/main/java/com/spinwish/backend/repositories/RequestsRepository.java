@@ -2,13 +2,19 @@ package com.spinwish.backend.repositories;
 
 import com.spinwish.backend.entities.Request;
 import com.spinwish.backend.entities.Users;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface RequestsRepository extends JpaRepository<Request, UUID> {
+public interface RequestsRepository extends JpaRepository<Request, UUID>, RequestsRepositoryCustom {
 
     // Find requests by client (user who made the request)
     List<Request> findByClientOrderByCreatedAtDesc(Users client);
@@ -45,4 +51,69 @@ public interface RequestsRepository extends JpaRepository<Request, UUID> {
 
     // Find requests by session ID
     List<Request> findBySessionIdOrderByCreatedAtDesc(UUID sessionId);
+
+    // Requests after an id that still only have the legacy comma-joined song column, in id order
+    @Query("SELECT r FROM Request r WHERE r.id > :afterId AND r.songId IS NOT NULL AND NOT EXISTS " +
+           "(SELECT 1 FROM RequestSong rs WHERE rs.requestId = r.id) ORDER BY r.id")
+    List<Request> findWithoutRequestSongsAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+    // Keyset predicates skip NULL timestamps; rows from before created_at was always set get one
+    // Requests played before played_at existed take their last update as the play time
+    @Modifying
+    @Query("UPDATE Request r SET r.playedAt = r.updatedAt " +
+           "WHERE r.status = com.spinwish.backend.entities.Request.RequestStatus.PLAYED AND r.playedAt IS NULL")
+    int backfillPlayedAt();
+
+    @Modifying
+    @Query("UPDATE Request r SET r.createdAt = COALESCE(r.updatedAt, :fallback) WHERE r.createdAt IS NULL")
+    int backfillCreatedAt(@Param("fallback") LocalDateTime fallback);
+
+    // Keyset pages, newest first, strictly after the (createdAt, id) cursor
+    @Query("SELECT r FROM Request r WHERE r.clientId = :clientId AND " +
+           "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Request> findPageByClientId(@Param("clientId") UUID clientId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") UUID id, Pageable pageable);
+
+    @Query("SELECT r FROM Request r WHERE r.djId = :djId AND " +
+           "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Request> findPageByDjId(@Param("djId") UUID djId, @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") UUID id, Pageable pageable);
+
+    @Query("SELECT r FROM Request r WHERE r.sessionId = :sessionId AND " +
+           "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Request> findPageBySessionId(@Param("sessionId") UUID sessionId, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") UUID id, Pageable pageable);
+
+    @Query("SELECT r FROM Request r WHERE " +
+           "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Request> findPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
+    // Per-status count and amount of a session: [status, count, amount]
+    @Query("SELECT r.status, COUNT(r), COALESCE(SUM(r.amount), 0) FROM Request r " +
+           "WHERE r.sessionId = :sessionId GROUP BY r.status")
+    List<Object[]> summarizeBySession(@Param("sessionId") UUID sessionId);
+
+    // Requests of a session created after a point in time, for rebuilding the analytics timeline
+    List<Request> findBySessionIdAndCreatedAtAfter(UUID sessionId, LocalDateTime createdAt);
+
+    // (dj id, count) of requests created since a point in time
+    @Query("SELECT r.djId, COUNT(r) FROM Request r WHERE r.createdAt >= :since GROUP BY r.djId")
+    List<Object[]> countByDjSince(@Param("since") LocalDateTime since);
+
+    // (dj id, count) of requests created in [from, to)
+    @Query("SELECT r.djId, COUNT(r) FROM Request r WHERE r.createdAt >= :from AND r.createdAt < :to GROUP BY r.djId")
+    List<Object[]> countByDjBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // (dj id, count) of requests first marked played in [from, to)
+    @Query("SELECT r.djId, COUNT(r) FROM Request r WHERE r.playedAt >= :from AND r.playedAt < :to GROUP BY r.djId")
+    List<Object[]> countPlayedByDjBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(r) FROM Request r WHERE r.djId = :djId AND r.createdAt >= :since")
+    long countByDjIdSince(@Param("djId") UUID djId, @Param("since") LocalDateTime since);
+
+    @Query("SELECT COUNT(r) FROM Request r WHERE r.djId = :djId AND r.playedAt >= :since")
+    long countPlayedByDjIdSince(@Param("djId") UUID djId, @Param("since") LocalDateTime since);
+
+    @Query("SELECT MIN(r.createdAt) FROM Request r")
+    LocalDateTime findEarliestCreatedAt();
 }
@@ -0,0 +1,18 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.Request;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk queue writes that Spring Data cannot derive
+ */
+public interface RequestsRepositoryCustom {
+
+    // Set queue positions in one UPDATE ... CASE statement, only for requests still in the given status
+    int updateQueuePositions(Map<UUID, Integer> positions, Request.RequestStatus status);
+
+    // Set manual queue ranks in one UPDATE ... CASE statement
+    int updateQueueRanks(Map<UUID, Long> ranks);
+}
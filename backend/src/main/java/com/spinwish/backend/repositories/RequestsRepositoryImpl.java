@@ -0,0 +1,67 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.Request;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class RequestsRepositoryImpl implements RequestsRepositoryCustom {
+
+    // Keeps the bind parameter count of a single statement well below driver limits
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateQueuePositions(Map<UUID, Integer> positions, Request.RequestStatus status) {
+        return updateColumn("queue_position", positions, status);
+    }
+
+    @Override
+    public int updateQueueRanks(Map<UUID, Long> ranks) {
+        return updateColumn("queue_rank", ranks, null);
+    }
+
+    private int updateColumn(String column, Map<UUID, ? extends Number> values, Request.RequestStatus status) {
+        List<Map.Entry<UUID, ? extends Number>> entries = new ArrayList<>(values.entrySet());
+        int updated = 0;
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Map.Entry<UUID, ? extends Number>> chunk =
+                    entries.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, entries.size()));
+            updated += updateChunk(column, chunk, status);
+        }
+        return updated;
+    }
+
+    private int updateChunk(String column, List<Map.Entry<UUID, ? extends Number>> chunk,
+                            Request.RequestStatus status) {
+        StringBuilder sql = new StringBuilder("UPDATE requests SET ").append(column).append(" = CASE id");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(" WHEN :id").append(i).append(" THEN :value").append(i);
+        }
+        sql.append(" ELSE ").append(column).append(" END WHERE id IN (");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? ":id" : ", :id").append(i);
+        }
+        sql.append(')');
+        if (status != null) {
+            sql.append(" AND status = :status");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            query.setParameter("id" + i, chunk.get(i).getKey());
+            query.setParameter("value" + i, chunk.get(i).getValue());
+        }
+        if (status != null) {
+            query.setParameter("status", status.name());
+        }
+        return query.executeUpdate();
+    }
+}
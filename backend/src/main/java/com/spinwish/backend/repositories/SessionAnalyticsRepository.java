@@ -0,0 +1,40 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.SessionAnalytics;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SessionAnalyticsRepository extends JpaRepository<SessionAnalytics, UUID> {
+
+    // Holds off counter deltas of the session until a rebuild commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM SessionAnalytics a WHERE a.sessionId = :sessionId")
+    Optional<SessionAnalytics> findForUpdate(@Param("sessionId") UUID sessionId);
+
+    // Apply counter deltas in one atomic statement
+    @Modifying
+    @Query("UPDATE SessionAnalytics a SET a.totalRequests = a.totalRequests + :total, " +
+           "a.pendingRequests = a.pendingRequests + :pending, " +
+           "a.acceptedRequests = a.acceptedRequests + :accepted, " +
+           "a.rejectedRequests = a.rejectedRequests + :rejected, " +
+           "a.playedRequests = a.playedRequests + :played, " +
+           "a.acceptedAmount = a.acceptedAmount + :acceptedAmount " +
+           "WHERE a.sessionId = :sessionId")
+    int applyDelta(@Param("sessionId") UUID sessionId, @Param("total") int total, @Param("pending") int pending,
+                   @Param("accepted") int accepted, @Param("rejected") int rejected, @Param("played") int played,
+                   @Param("acceptedAmount") double acceptedAmount);
+
+    @Modifying
+    @Query("UPDATE SessionAnalytics a SET a.peakListeners = :listeners " +
+           "WHERE a.sessionId = :sessionId AND a.peakListeners < :listeners")
+    int raisePeakListeners(@Param("sessionId") UUID sessionId, @Param("listeners") int listeners);
+}
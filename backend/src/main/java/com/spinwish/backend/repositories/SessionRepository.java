@@ -1,12 +1,16 @@
 package com.spinwish.backend.repositories;
 
 import com.spinwish.backend.entities.Session;
+import com.spinwish.backend.models.responses.sessions.SessionSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,6 +18,13 @@ import java.util.UUID;
 @Repository
 public interface SessionRepository extends JpaRepository<Session, UUID> {
 
+    // Listing projection; genres are filled in by GenreLoader from findGenreRows
+    String SUMMARY_SELECT = "SELECT new com.spinwish.backend.models.responses.sessions.SessionSummary(" +
+            "s.id, s.djId, s.clubId, s.type, s.status, s.title, s.description, s.startTime, s.endTime, " +
+            "s.listenerCount, s.totalRequests, s.acceptedRequests, s.rejectedRequests, s.totalEarnings, " +
+            "s.totalTips, s.isAcceptingRequests, s.minTipAmount, s.currentSongId, s.shareableLink, s.imageUrl, " +
+            "s.thumbnailUrl, s.createdAt) FROM Session s ";
+
     // Find sessions by DJ
     List<Session> findByDjId(UUID djId);
 
@@ -63,4 +74,83 @@ public interface SessionRepository extends JpaRepository<Session, UUID> {
     // Count active sessions by DJ
     @Query("SELECT COUNT(s) FROM Session s WHERE s.djId = :djId AND s.status IN ('LIVE', 'PREPARING')")
     Long countActiveSessionsByDj(@Param("djId") UUID djId);
+
+    // Keyset predicates skip NULL timestamps; rows from before created_at was always set get one
+    @Modifying
+    @Query("UPDATE Session s SET s.createdAt = COALESCE(s.updatedAt, :fallback) WHERE s.createdAt IS NULL")
+    int backfillCreatedAt(@Param("fallback") LocalDateTime fallback);
+
+    // Keyset page, newest first, strictly after the (createdAt, id) cursor
+    @Query("SELECT s FROM Session s WHERE s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<Session> findPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
+    // Atomic counter updates, so concurrent requests never lose an increment
+    @Modifying
+    @Query("UPDATE Session s SET s.totalRequests = COALESCE(s.totalRequests, 0) + 1 WHERE s.id = :id")
+    int incrementTotalRequests(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE Session s SET s.acceptedRequests = COALESCE(s.acceptedRequests, 0) + 1, " +
+           "s.totalEarnings = COALESCE(s.totalEarnings, 0) + :amount WHERE s.id = :id")
+    int incrementAccepted(@Param("id") UUID id, @Param("amount") Double amount);
+
+    @Modifying
+    @Query("UPDATE Session s SET s.rejectedRequests = COALESCE(s.rejectedRequests, 0) + 1 WHERE s.id = :id")
+    int incrementRejected(@Param("id") UUID id);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Session s SET s.totalEarnings = COALESCE(s.totalEarnings, 0) + :amount WHERE s.id = :id")
+    int addEarnings(@Param("id") UUID id, @Param("amount") Double amount);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Session s SET s.totalTips = COALESCE(s.totalTips, 0) + :amount WHERE s.id = :id")
+    int addTips(@Param("id") UUID id, @Param("amount") Double amount);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Session s SET s.listenerCount = :listenerCount WHERE s.id = :id")
+    int setListenerCount(@Param("id") UUID id, @Param("listenerCount") Integer listenerCount);
+
+    // Summary listings
+    @Query(SUMMARY_SELECT + "WHERE s.djId = :djId")
+    List<SessionSummary> findSummariesByDjId(@Param("djId") UUID djId);
+
+    @Query(SUMMARY_SELECT + "WHERE s.clubId = :clubId")
+    List<SessionSummary> findSummariesByClubId(@Param("clubId") UUID clubId);
+
+    @Query(SUMMARY_SELECT + "WHERE s.status = :status")
+    List<SessionSummary> findSummariesByStatus(@Param("status") Session.SessionStatus status);
+
+    @Query(SUMMARY_SELECT + "WHERE s.type = :type")
+    List<SessionSummary> findSummariesByType(@Param("type") Session.SessionType type);
+
+    @Query(SUMMARY_SELECT + "WHERE :genre MEMBER OF s.genres")
+    List<SessionSummary> findSummariesByGenre(@Param("genre") String genre);
+
+    @Query(SUMMARY_SELECT + "WHERE s.startTime >= :startDate AND s.startTime <= :endDate")
+    List<SessionSummary> findSummariesInDateRange(@Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
+
+    // Sessions that have not ended, newest first; source of the live session directory
+    @Query(SUMMARY_SELECT + "WHERE s.status <> 'ENDED' ORDER BY s.startTime DESC, s.id")
+    List<SessionSummary> findOpenSummaries();
+
+    @Query(SUMMARY_SELECT + "WHERE s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SessionSummary> findSummaryPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                         Pageable pageable);
+
+    // (dj id, count) of sessions created in [from, to)
+    @Query("SELECT s.djId, COUNT(s) FROM Session s WHERE s.createdAt >= :from AND s.createdAt < :to GROUP BY s.djId")
+    List<Object[]> countByDjBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(s) FROM Session s WHERE s.djId = :djId AND s.createdAt >= :since")
+    long countByDjIdSince(@Param("djId") UUID djId, @Param("since") LocalDateTime since);
+
+    @Query("SELECT MIN(s.createdAt) FROM Session s")
+    LocalDateTime findEarliestCreatedAt();
+
+    // (session id, genre) rows for a batch of sessions
+    @Query("SELECT s.id, g FROM Session s JOIN s.genres g WHERE s.id IN :ids")
+    List<Object[]> findGenreRows(@Param("ids") Collection<UUID> ids);
 }
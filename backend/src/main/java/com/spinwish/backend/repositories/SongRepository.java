@@ -2,8 +2,11 @@ package com.spinwish.backend.repositories;
 
 import com.spinwish.backend.entities.Songs;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,4 +20,8 @@ public interface SongRepository extends JpaRepository<Songs, UUID> {
     List<Songs> findByArtistId(UUID artistId);
 
     boolean existsBySpotifyUrl(String spotifyUrl);
+
+    // Load a batch of songs together with their artist in a single query
+    @Query("SELECT s FROM Songs s LEFT JOIN FETCH s.artist WHERE s.id IN :ids")
+    List<Songs> findAllWithArtistByIdIn(@Param("ids") Collection<UUID> ids);
 }
@@ -1,9 +1,15 @@
 package com.spinwish.backend.repositories;
 
 import com.spinwish.backend.entities.payments.StkPushSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,5 +18,69 @@ import java.util.UUID;
 public interface StkPushSessionRepository extends JpaRepository<StkPushSession, UUID> {
     List<StkPushSession> findByStatus(String status);
     Optional<StkPushSession> findByCheckoutRequestId(String checkoutRequestId);
+
+    long countByStatus(String status);
+
+    // Keyset predicates skip NULL timestamps; rows from before created_at was always set get one
+    @Modifying
+    @Query("UPDATE StkPushSession s SET s.createdAt = COALESCE(s.lastUpdated, :fallback) WHERE s.createdAt IS NULL")
+    int backfillCreatedAt(@Param("fallback") LocalDateTime fallback);
+
+    // First page of pending sessions created up to a cutoff, oldest first
+    @Query("SELECT s.id AS id, s.checkoutRequestId AS checkoutRequestId, s.createdAt AS createdAt, " +
+           "s.lastUpdated AS lastUpdated, s.retryCount AS retryCount, s.resultCode AS resultCode FROM StkPushSession s " +
+           "WHERE s.status = 'PENDING' AND s.createdAt <= :cutoff ORDER BY s.createdAt, s.id")
+    List<PendingSession> findPendingPage(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Keyset page of pending sessions, oldest first, strictly after the (createdAt, id) cursor
+    @Query("SELECT s.id AS id, s.checkoutRequestId AS checkoutRequestId, s.createdAt AS createdAt, " +
+           "s.lastUpdated AS lastUpdated, s.retryCount AS retryCount, s.resultCode AS resultCode FROM StkPushSession s " +
+           "WHERE s.status = 'PENDING' AND s.createdAt <= :cutoff " +
+           "AND (s.createdAt > :createdAt OR (s.createdAt = :createdAt AND s.id > :id)) ORDER BY s.createdAt, s.id")
+    List<PendingSession> findPendingPageAfter(@Param("cutoff") LocalDateTime cutoff,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") UUID id,
+                                              Pageable pageable);
+
+    // Count a status query against a pending session, for backoff
+    @Modifying
+    @Query("UPDATE StkPushSession s SET s.retryCount = COALESCE(s.retryCount, 0) + 1, s.lastUpdated = :now " +
+           "WHERE s.id = :id AND s.status = 'PENDING'")
+    int recordQueryAttempt(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    // Note a query reporting the payment as done; the session waits for the callback, which carries the receipt
+    @Modifying
+    @Query("UPDATE StkPushSession s SET s.resultCode = 0, s.resultDescription = :resultDesc, " +
+           "s.retryCount = COALESCE(s.retryCount, 0) + 1, s.lastUpdated = :now WHERE s.id = :id AND s.status = 'PENDING'")
+    int recordQueryConfirmed(@Param("id") UUID id, @Param("resultDesc") String resultDesc, @Param("now") LocalDateTime now);
+
+    // Give up on a session that is still pending
+    @Modifying
+    @Query("UPDATE StkPushSession s SET s.status = 'EXPIRED', s.failureReason = :reason, s.lastUpdated = :now " +
+           "WHERE s.id = :id AND s.status = 'PENDING'")
+    int expire(@Param("id") UUID id, @Param("reason") String reason, @Param("now") LocalDateTime now);
+
+    // Status and settle time of the given sessions
+    @Query("SELECT s.checkoutRequestId AS checkoutRequestId, s.status AS status, s.lastUpdated AS lastUpdated " +
+           "FROM StkPushSession s WHERE s.checkoutRequestId IN :checkoutRequestIds")
+    List<SessionStatus> findStatuses(@Param("checkoutRequestIds") Collection<String> checkoutRequestIds);
+
+    /**
+     * The columns reconciliation needs, without the payer, DJ and request joins
+     */
+    interface PendingSession {
+        UUID getId();
+        String getCheckoutRequestId();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getLastUpdated();
+        Integer getRetryCount();
+        Integer getResultCode();
+    }
+
+    interface SessionStatus {
+        String getCheckoutRequestId();
+        String getStatus();
+        LocalDateTime getLastUpdated();
+    }
 }
 
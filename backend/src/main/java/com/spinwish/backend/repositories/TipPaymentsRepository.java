@@ -5,6 +5,8 @@ import com.spinwish.backend.entities.Users;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -13,10 +15,42 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface TipPaymentsRepository extends JpaRepository<TipPayments, UUID> {
+public interface TipPaymentsRepository extends JpaRepository<TipPayments, UUID>, TipPaymentsRepositoryCustom {
     Optional<TipPayments> findByReceiptNumber(String receiptNumber);
 
-    List<TipPayments> findByDjAndTransactionDateBetween(Users dj, LocalDateTime startDate, LocalDateTime endDate);
+    boolean existsByReceiptNumber(String receiptNumber);
 
     Page<TipPayments> findByDj(Users dj, Pageable pageable);
+
+    // Keyset page, newest first, strictly after the (transactionDate, id) cursor
+    @Query("SELECT tp FROM TipPayments tp WHERE tp.transactionDate < :transactionDate " +
+           "OR (tp.transactionDate = :transactionDate AND tp.id < :id) ORDER BY tp.transactionDate DESC, tp.id DESC")
+    List<TipPayments> findPage(@Param("transactionDate") LocalDateTime transactionDate, @Param("id") UUID id,
+                               Pageable pageable);
+
+    // (dj id, total) of tips since a point in time
+    @Query("SELECT tp.dj.id, SUM(tp.amount) FROM TipPayments tp WHERE tp.transactionDate >= :since GROUP BY tp.dj.id")
+    List<Object[]> sumAmountByDjSince(@Param("since") LocalDateTime since);
+
+    // (dj id, total) of tips in [from, to)
+    @Query("SELECT tp.dj.id, SUM(tp.amount) FROM TipPayments tp WHERE tp.transactionDate >= :from " +
+           "AND tp.transactionDate < :to GROUP BY tp.dj.id")
+    List<Object[]> sumAmountByDjBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(tp.amount), 0) FROM TipPayments tp WHERE tp.dj.id = :djId AND tp.transactionDate >= :since")
+    double sumAmountByDjIdSince(@Param("djId") UUID djId, @Param("since") LocalDateTime since);
+
+    // [sum, count] of a DJ's tips in [from, to)
+    @Query("SELECT COALESCE(SUM(tp.amount), 0), COUNT(tp) FROM TipPayments tp WHERE tp.dj.id = :djId " +
+           "AND tp.transactionDate >= :from AND tp.transactionDate < :to")
+    List<Object[]> sumAndCountByDjIdBetween(@Param("djId") UUID djId, @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    // (dj id, sum, count) of tips in [from, to)
+    @Query("SELECT tp.dj.id, SUM(tp.amount), COUNT(tp) FROM TipPayments tp WHERE tp.transactionDate >= :from " +
+           "AND tp.transactionDate < :to GROUP BY tp.dj.id")
+    List<Object[]> sumAndCountByDjBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(tp.transactionDate) FROM TipPayments tp")
+    LocalDateTime findEarliestTransactionDate();
 }
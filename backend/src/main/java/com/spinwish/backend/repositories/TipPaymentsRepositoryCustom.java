@@ -0,0 +1,12 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.payments.TipPayments;
+
+/**
+ * Receipt-idempotent insert that Spring Data cannot derive
+ */
+public interface TipPaymentsRepositoryCustom {
+
+    // Insert unless the receipt is recorded, also by a transaction committing concurrently; false when it is
+    boolean insertIfReceiptAbsent(TipPayments tip);
+}
@@ -0,0 +1,29 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.payments.TipPayments;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+public class TipPaymentsRepositoryImpl implements TipPaymentsRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO tip_payments (id, receipt_number, payer_name, phone_number, " +
+            "amount, transaction_date, user_id, dj_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean insertIfReceiptAbsent(TipPayments tip) {
+        if (tip.getId() == null) {
+            tip.setId(UUID.randomUUID());
+        }
+        return ReceiptInserts.insert(entityManager, INSERT, tip.getId(), tip.getReceiptNumber(),
+                tip.getPayerName(), tip.getPhoneNumber(), tip.getAmount(), tip.getTransactionDate(),
+                tip.getPayer() != null ? tip.getPayer().getId() : null, tip.getDj().getId());
+    }
+}
@@ -1,15 +1,53 @@
 package com.spinwish.backend.repositories;
 
 import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.models.responses.users.DJProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UsersRepository extends JpaRepository<Users, UUID> {
+
+    // DJ profile projection, filtered on the role join; genres are filled in by GenreLoader from findGenreRows
+    String DJ_PROFILE_SELECT = "SELECT new com.spinwish.backend.models.responses.users.DJProfile(" +
+            "u.id, u.actualUsername, u.bio, u.profileImage, u.rating, u.instagramHandle, u.isLive, " +
+            "u.followers, u.createdAt) FROM Users u JOIN u.role r WHERE r.roleName = 'DJ' ";
+
     Users findByEmailAddress(String emailAddress);
     Optional<Users> findByActualUsernameIgnoreCase(String actualUsername);
     Users findByPhoneNumber(String phoneNumber);
-}
\ No newline at end of file
+
+    // Load a batch of users together with their role in a single query
+    @Query("SELECT u FROM Users u JOIN FETCH u.role WHERE u.id IN :ids")
+    List<Users> findAllWithRoleByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(DJ_PROFILE_SELECT)
+    List<DJProfile> findDJProfiles();
+
+    @Query(DJ_PROFILE_SELECT + "AND u.id = :id")
+    Optional<DJProfile> findDJProfileById(@Param("id") UUID id);
+
+    // Live DJs, source of the live session directory
+    @Query(DJ_PROFILE_SELECT + "AND u.isLive = true ORDER BY u.id")
+    List<DJProfile> findLiveDJProfiles();
+
+    @Modifying
+    @Query("UPDATE Users u SET u.followers = :followers WHERE u.id = :id")
+    int setFollowers(@Param("id") UUID id, @Param("followers") Integer followers);
+
+    // (id, rating, followers) of every DJ, source of the leaderboard reconciliation
+    @Query("SELECT u.id, u.rating, u.followers FROM Users u JOIN u.role r WHERE r.roleName = 'DJ'")
+    List<Object[]> findDJScores();
+
+    // (user id, genre) rows for a batch of users
+    @Query("SELECT u.id, g FROM Users u JOIN u.genres g WHERE u.id IN :ids")
+    List<Object[]> findGenreRows(@Param("ids") Collection<UUID> ids);
+}
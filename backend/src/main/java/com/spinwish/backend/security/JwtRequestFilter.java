@@ -8,6 +8,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -24,12 +26,24 @@ import java.util.stream.Collectors;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    private static final Profiles DARAJA_SIM = Profiles.of("daraja-sim");
+
     @Autowired
     private UserService userService;
 
     @Autowired
     private JwtTokenUtil jwtUtil;
 
+    @Autowired
+    private Environment environment;
+
+    // The Daraja simulator issues its own opaque Bearer tokens; it only exists under its profile
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getServletPath().startsWith("/sim/daraja/")
+                && environment.acceptsProfiles(DARAJA_SIM);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -0,0 +1,243 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.exceptions.InvalidCursorException;
+import com.spinwish.backend.exceptions.ValidationException;
+import com.spinwish.backend.models.responses.pagination.CursorPage;
+import com.spinwish.backend.models.responses.users.DJProfile;
+import com.spinwish.backend.repositories.UsersRepository;
+import com.spinwish.backend.utils.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory directory of DJ profiles behind the DJ listing endpoints.
+ *
+ * Profiles are loaded once with a role-filtered query, then kept current from DJ change
+ * events, each of which reloads a single row after commit. A periodic reload reconciles
+ * writes that bypass the services. Sorted views are rebuilt lazily after a change, and
+ * pages are cut from them with a keyset cursor of (sort key, id).
+ */
+@Service
+@Slf4j
+public class DJDirectory {
+
+    private final UsersRepository usersRepository;
+    private final GenreLoader genreLoader;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Map<UUID, DJProfile> profiles = new ConcurrentHashMap<>();
+    private final Map<Sort, View> views = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public DJDirectory(UsersRepository usersRepository, GenreLoader genreLoader,
+                       PlatformTransactionManager transactionManager) {
+        this.usersRepository = usersRepository;
+        this.genreLoader = genreLoader;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public Optional<DJProfile> get(UUID djId) {
+        return Optional.ofNullable(profiles.get(djId));
+    }
+
+    /**
+     * One page of the DJs matching filter, in the given order, after cursor
+     */
+    public CursorPage<DJProfile> page(Sort sort, Predicate<DJProfile> filter, String cursor, int limit) {
+        List<DJProfile> sorted = sorted(sort);
+        int start = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            int found = Collections.binarySearch(sorted, sort.decode(cursor), sort.order);
+            start = found >= 0 ? found + 1 : -found - 1;
+        }
+
+        List<DJProfile> items = new ArrayList<>(limit);
+        boolean hasNext = false;
+        for (int i = start; i < sorted.size(); i++) {
+            DJProfile profile = sorted.get(i);
+            if (!filter.test(profile)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                hasNext = true;
+                break;
+            }
+            items.add(profile);
+        }
+        String nextCursor = hasNext ? sort.encode(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasNext);
+    }
+
+    /**
+     * Reload one DJ once the surrounding transaction commits
+     */
+    public void onDJChanged(UUID djId) {
+        AfterCommit.run(() -> {
+            try {
+                Optional<DJProfile> profile = transactionTemplate.execute(status ->
+                        usersRepository.findDJProfileById(djId)
+                                .map(p -> genreLoader.forDJs(new ArrayList<>(List.of(p))).get(0)));
+                if (profile != null && profile.isPresent()) {
+                    profiles.put(djId, profile.get());
+                } else {
+                    profiles.remove(djId);
+                }
+                version.incrementAndGet();
+            } catch (Exception e) {
+                log.error("Failed to refresh DJ {} in directory: {}", djId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Apply a new follower count without reloading the DJ
+     */
+    public void onFollowersChanged(UUID djId, int followers) {
+        DJProfile updated = profiles.computeIfPresent(djId, (id, current) -> {
+            DJProfile copy = new DJProfile(current.getId(), current.getUsername(), current.getBio(),
+                    current.getProfileImage(), current.getRating(), current.getInstagramHandle(),
+                    current.getIsLive(), followers, current.getCreatedAt());
+            copy.setGenres(current.getGenres());
+            return copy;
+        });
+        if (updated != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${spinwish.djs.directory-reconcile-ms:300000}")
+    public void reload() {
+        try {
+            List<DJProfile> loaded = transactionTemplate.execute(status ->
+                    genreLoader.forDJs(usersRepository.findDJProfiles()));
+            Map<UUID, DJProfile> byId = new ConcurrentHashMap<>();
+            for (DJProfile profile : loaded) {
+                byId.put(profile.getId(), profile);
+            }
+            profiles = byId;
+            version.incrementAndGet();
+            log.debug("DJ directory loaded with {} DJs", byId.size());
+        } catch (Exception e) {
+            log.error("Failed to load DJ directory: {}", e.getMessage());
+        }
+    }
+
+    private List<DJProfile> sorted(Sort sort) {
+        // Read the version first, so a change that lands while sorting triggers another sort
+        long current = version.get();
+        View view = views.get(sort);
+        if (view != null && view.version == current) {
+            return view.items;
+        }
+        List<DJProfile> items = new ArrayList<>(profiles.values());
+        items.sort(sort.order);
+        items = List.copyOf(items);
+        views.put(sort, new View(current, items));
+        return items;
+    }
+
+    private record View(long version, List<DJProfile> items) {
+    }
+
+    /**
+     * Listing orders. Every order ends on id, so cursors are unambiguous.
+     */
+    public enum Sort {
+        NAME(Comparator.comparing(Sort::nameKey),
+                Sort::nameKey, DJProfile::setUsername),
+        RATING(Comparator.comparing(Sort::ratingKey, Comparator.reverseOrder()),
+                p -> Double.toString(ratingKey(p)), (p, key) -> p.setRating(Double.parseDouble(key))),
+        FOLLOWERS(Comparator.comparing(Sort::followersKey, Comparator.reverseOrder()),
+                p -> Integer.toString(followersKey(p)), (p, key) -> p.setFollowers(Integer.parseInt(key))),
+        NEWEST(Comparator.comparing(DJProfile::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())),
+                p -> p.getCreatedAt() != null ? p.getCreatedAt().toString() : "",
+                (p, key) -> p.setCreatedAt(key.isEmpty() ? null : LocalDateTime.parse(key)));
+
+        final Comparator<DJProfile> order;
+        private final Function<DJProfile, String> key;
+        private final BiConsumer<DJProfile, String> restore;
+
+        Sort(Comparator<DJProfile> order, Function<DJProfile, String> key, BiConsumer<DJProfile, String> restore) {
+            this.order = order.thenComparing(DJProfile::getId);
+            this.key = key;
+            this.restore = restore;
+        }
+
+        public static Sort parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NAME;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Unknown sort: " + value);
+            }
+        }
+
+        String encode(DJProfile last) {
+            String raw = key.apply(last) + "|" + last.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * A probe profile that sorts exactly where the cursor's last item did
+         */
+        DJProfile decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                if (separator < 0) {
+                    throw new InvalidCursorException();
+                }
+                DJProfile probe = new DJProfile();
+                probe.setId(UUID.fromString(raw.substring(separator + 1)));
+                restore.accept(probe, raw.substring(0, separator));
+                return probe;
+            } catch (InvalidCursorException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException();
+            }
+        }
+
+        private static String nameKey(DJProfile p) {
+            return p.getUsername() != null ? p.getUsername().toLowerCase(Locale.ROOT) : "";
+        }
+
+        private static double ratingKey(DJProfile p) {
+            return p.getRating() != null ? p.getRating() : 0.0;
+        }
+
+        private static int followersKey(DJProfile p) {
+            return p.getFollowers() != null ? p.getFollowers() : 0;
+        }
+    }
+}
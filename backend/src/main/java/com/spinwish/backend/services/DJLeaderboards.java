@@ -0,0 +1,322 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.models.responses.users.DJProfile;
+import com.spinwish.backend.models.responses.users.LeaderboardEntry;
+import com.spinwish.backend.repositories.RequestsPaymentRepository;
+import com.spinwish.backend.repositories.RequestsRepository;
+import com.spinwish.backend.repositories.TipPaymentsRepository;
+import com.spinwish.backend.repositories.UsersRepository;
+import com.spinwish.backend.utils.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * DJ leaderboards held as concurrent sorted indexes, so a top N read walks N entries and
+ * never touches the database.
+ *
+ * Rating and follower boards take the new value on every change. Weekly earnings (from
+ * Monday 00:00) and nightly requests (from NIGHT_STARTS_AT) take increments from payment
+ * and request events, and start empty when their window rolls over. All boards are
+ * periodically rebuilt from the source tables, which also corrects any missed event.
+ */
+@Service
+@Slf4j
+public class DJLeaderboards {
+
+    // A night runs from noon to noon, so requests after midnight count toward the same night
+    static final LocalTime NIGHT_STARTS_AT = LocalTime.NOON;
+
+    private final UsersRepository usersRepository;
+    private final RequestsRepository requestsRepository;
+    private final TipPaymentsRepository tipPaymentsRepository;
+    private final RequestsPaymentRepository requestsPaymentRepository;
+    private final DJDirectory djDirectory;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Board, Ranking> rankings = new ConcurrentHashMap<>();
+
+    public DJLeaderboards(UsersRepository usersRepository,
+                          RequestsRepository requestsRepository,
+                          TipPaymentsRepository tipPaymentsRepository,
+                          RequestsPaymentRepository requestsPaymentRepository,
+                          DJDirectory djDirectory,
+                          PlatformTransactionManager transactionManager) {
+        this.usersRepository = usersRepository;
+        this.requestsRepository = requestsRepository;
+        this.tipPaymentsRepository = tipPaymentsRepository;
+        this.requestsPaymentRepository = requestsPaymentRepository;
+        this.djDirectory = djDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        for (Board board : Board.values()) {
+            rankings.put(board, new Ranking(board.windowStart(LocalDateTime.now())));
+        }
+    }
+
+    /**
+     * The first limit standings of a board, with their DJ profiles
+     */
+    public List<LeaderboardEntry> top(Board board, int limit) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.max(0, limit));
+        Iterator<Standing> standings = ranking(board).ordered.iterator();
+        while (entries.size() < limit && standings.hasNext()) {
+            Standing standing = standings.next();
+            Optional<DJProfile> dj = djDirectory.get(standing.djId);
+            dj.ifPresent(profile -> entries.add(new LeaderboardEntry(entries.size() + 1, standing.score, profile)));
+        }
+        return entries;
+    }
+
+    /**
+     * The DJ profiles of the first limit standings of a board
+     */
+    public List<DJProfile> topDJs(Board board, int limit) {
+        return top(board, limit).stream().map(LeaderboardEntry::getDj).toList();
+    }
+
+    public void onRatingChanged(UUID djId, Double rating) {
+        AfterCommit.run(() -> ranking(Board.RATING).apply(ranking -> {
+            if (rating != null) {
+                ranking.set(djId, rating);
+            } else {
+                ranking.remove(djId);
+            }
+        }));
+    }
+
+    public void onFollowersChanged(UUID djId, Integer followers) {
+        AfterCommit.run(() -> ranking(Board.FOLLOWERS).apply(ranking -> ranking.set(djId, followers != null ? followers : 0)));
+    }
+
+    public void onPayment(UUID djId, double amount, LocalDateTime at) {
+        AfterCommit.run(() -> ranking(Board.WEEKLY_EARNINGS).apply(ranking -> ranking.add(djId, amount, at)));
+    }
+
+    public void onRequestCreated(UUID djId, LocalDateTime at) {
+        AfterCommit.run(() -> ranking(Board.NIGHTLY_REQUESTS).apply(ranking -> ranking.add(djId, 1, at)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reconcile();
+    }
+
+    /**
+     * Rebuild every board from the users, payment and request tables.
+     *
+     * Changes arriving while a board loads are recorded on the live ranking and replayed onto
+     * the rebuilt one before it is swapped in; changes after the swap are forwarded to it. Only
+     * a change committed between the start of recording and the load's snapshot is counted
+     * twice, until the next reconcile.
+     */
+    @Scheduled(fixedDelayString = "${spinwish.djs.leaderboard-reconcile-ms:600000}")
+    public synchronized void reconcile() {
+        for (Board board : Board.values()) {
+            Ranking current = ranking(board);
+            current.startRecording();
+            try {
+                Ranking rebuilt = transactionTemplate.execute(status -> load(board, current.windowStart));
+                current.handOver(rebuilt);
+                // Fails only if the window rolled over meanwhile; the fresh ranking stays
+                rankings.replace(board, current, rebuilt);
+            } catch (Exception e) {
+                current.stopRecording();
+                log.error("Failed to reconcile {} leaderboard: {}", board, e.getMessage());
+            }
+        }
+    }
+
+    private Ranking load(Board board, LocalDateTime since) {
+        Ranking ranking = new Ranking(since);
+        switch (board) {
+            case RATING -> {
+                for (Object[] row : usersRepository.findDJScores()) {
+                    if (row[1] != null) {
+                        ranking.set((UUID) row[0], ((Number) row[1]).doubleValue());
+                    }
+                }
+            }
+            case FOLLOWERS -> {
+                for (Object[] row : usersRepository.findDJScores()) {
+                    ranking.set((UUID) row[0], row[2] != null ? ((Number) row[2]).doubleValue() : 0);
+                }
+            }
+            case WEEKLY_EARNINGS -> {
+                for (Object[] row : tipPaymentsRepository.sumAmountByDjSince(since)) {
+                    ranking.add((UUID) row[0], ((Number) row[1]).doubleValue(), since);
+                }
+                for (Object[] row : requestsPaymentRepository.sumAmountByDjSince(since)) {
+                    ranking.add((UUID) row[0], ((Number) row[1]).doubleValue(), since);
+                }
+            }
+            case NIGHTLY_REQUESTS -> {
+                for (Object[] row : requestsRepository.countByDjSince(since)) {
+                    ranking.add((UUID) row[0], ((Number) row[1]).doubleValue(), since);
+                }
+            }
+        }
+        return ranking;
+    }
+
+    /**
+     * The board's ranking, replaced by an empty one once its window has rolled over
+     */
+    private Ranking ranking(Board board) {
+        LocalDateTime windowStart = board.windowStart(LocalDateTime.now());
+        return rankings.compute(board, (b, current) ->
+                current == null || !windowStart.equals(current.windowStart) ? new Ranking(windowStart) : current);
+    }
+
+    public enum Board {
+        RATING,
+        FOLLOWERS,
+        WEEKLY_EARNINGS,
+        NIGHTLY_REQUESTS;
+
+        public static Board parse(String value) {
+            try {
+                return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown leaderboard: " + value);
+            }
+        }
+
+        /**
+         * Start of the window the board counts at the given time; all-time boards use a fixed start
+         */
+        LocalDateTime windowStart(LocalDateTime now) {
+            return switch (this) {
+                case RATING, FOLLOWERS -> LocalDateTime.MIN;
+                case WEEKLY_EARNINGS -> now.toLocalDate()
+                        .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+                case NIGHTLY_REQUESTS -> {
+                    LocalDate night = now.toLocalTime().isBefore(NIGHT_STARTS_AT)
+                            ? now.toLocalDate().minusDays(1) : now.toLocalDate();
+                    yield night.atTime(NIGHT_STARTS_AT);
+                }
+            };
+        }
+    }
+
+    private record Standing(UUID djId, double score) {
+        // Highest score first, ties broken by id so entries of different DJs never collide
+        static final Comparator<Standing> ORDER = Comparator.comparingDouble(Standing::score).reversed()
+                .thenComparing(Standing::djId);
+    }
+
+    /**
+     * Scores by DJ plus the same scores as a sorted set. Updates of one DJ are serialized
+     * through the score map, so the set always holds exactly one standing per DJ.
+     */
+    private static final class Ranking {
+        final LocalDateTime windowStart;
+        final Map<UUID, Double> scores = new ConcurrentHashMap<>();
+        final ConcurrentSkipListSet<Standing> ordered = new ConcurrentSkipListSet<>(Standing.ORDER);
+
+        // Guards recorded and successor
+        private final Object handOverLock = new Object();
+        // Changes applied while a rebuild loads, or null when none is running
+        private List<Consumer<Ranking>> recorded;
+        // The rebuilt ranking that replaced this one
+        private Ranking successor;
+
+        Ranking(LocalDateTime windowStart) {
+            this.windowStart = windowStart;
+        }
+
+        /**
+         * Apply an event's change here, or to the successor once this ranking was replaced
+         */
+        void apply(Consumer<Ranking> change) {
+            Ranking target = this;
+            synchronized (handOverLock) {
+                if (successor != null) {
+                    target = successor;
+                } else if (recorded != null) {
+                    recorded.add(change);
+                }
+            }
+            if (target != this) {
+                target.apply(change);
+            } else {
+                change.accept(this);
+            }
+        }
+
+        void startRecording() {
+            synchronized (handOverLock) {
+                recorded = new ArrayList<>();
+            }
+        }
+
+        void stopRecording() {
+            synchronized (handOverLock) {
+                recorded = null;
+            }
+        }
+
+        /**
+         * Replay the recorded changes onto the rebuilt ranking and forward later ones to it
+         */
+        void handOver(Ranking rebuilt) {
+            synchronized (handOverLock) {
+                recorded.forEach(change -> change.accept(rebuilt));
+                recorded = null;
+                successor = rebuilt;
+            }
+        }
+
+        void set(UUID djId, double score) {
+            scores.compute(djId, (id, previous) -> {
+                if (previous != null) {
+                    ordered.remove(new Standing(id, previous));
+                }
+                ordered.add(new Standing(id, score));
+                return score;
+            });
+        }
+
+        void add(UUID djId, double delta, LocalDateTime at) {
+            if (at != null && at.isBefore(windowStart)) {
+                return;
+            }
+            scores.compute(djId, (id, previous) -> {
+                double score = (previous != null ? previous : 0) + delta;
+                if (previous != null) {
+                    ordered.remove(new Standing(id, previous));
+                }
+                ordered.add(new Standing(id, score));
+                return score;
+            });
+        }
+
+        void remove(UUID djId) {
+            scores.computeIfPresent(djId, (id, previous) -> {
+                ordered.remove(new Standing(id, previous));
+                return null;
+            });
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.spinwish.backend.services;
 
 import com.spinwish.backend.entities.Users;
-import com.spinwish.backend.entities.Roles;
+import com.spinwish.backend.models.responses.pagination.CursorPage;
+import com.spinwish.backend.models.responses.users.DJProfile;
+import com.spinwish.backend.models.responses.users.LeaderboardEntry;
 import com.spinwish.backend.repositories.UsersRepository;
-import com.spinwish.backend.repositories.RoleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -12,7 +13,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -22,62 +22,58 @@ public class DJService {
     private UsersRepository usersRepository;
 
     @Autowired
-    private RoleRepository roleRepository;
+    private DJDirectory djDirectory;
 
-    // Get all DJs
-    public List<Users> getAllDJs() {
-        Roles djRole = roleRepository.findByRoleName("DJ");
-        if (djRole == null) {
-            throw new RuntimeException("DJ role not found");
-        }
-        return usersRepository.findAll().stream()
-                .filter(user -> user.getRole() != null && "DJ".equals(user.getRole().getRoleName()))
-                .collect(Collectors.toList());
+    @Autowired
+    private DJLeaderboards leaderboards;
+
+    @Autowired
+    private FollowerService followerService;
+
+    @Autowired
+    private LiveSessionDirectory liveSessionDirectory;
+
+    @Autowired
+    private DJStatsService djStatsService;
+
+    // Get all DJs, one page in the given order
+    public CursorPage<DJProfile> getAllDJs(DJDirectory.Sort sort, String cursor, int limit) {
+        return djDirectory.page(sort, dj -> true, cursor, limit);
     }
 
     // Get DJ by ID
-    public Optional<Users> getDJById(UUID djId) {
-        Optional<Users> user = usersRepository.findById(djId);
-        if (user.isPresent() && isDJ(user.get())) {
-            return user;
-        }
-        return Optional.empty();
+    public Optional<DJProfile> getDJById(UUID djId) {
+        return djDirectory.get(djId);
     }
 
     // Get live DJs
-    public List<Users> getLiveDJs() {
-        return getAllDJs().stream()
-                .filter(dj -> dj.getIsLive() != null && dj.getIsLive())
-                .collect(Collectors.toList());
+    public LiveSessionDirectory.Listing<DJProfile> getLiveDJs() {
+        return liveSessionDirectory.liveDjs();
     }
 
     // Get DJs by genre
-    public List<Users> getDJsByGenre(String genre) {
-        return getAllDJs().stream()
-                .filter(dj -> dj.getGenres() != null && dj.getGenres().contains(genre))
-                .collect(Collectors.toList());
+    public CursorPage<DJProfile> getDJsByGenre(String genre, DJDirectory.Sort sort, String cursor, int limit) {
+        return djDirectory.page(sort, dj -> dj.getGenres() != null && dj.getGenres().contains(genre), cursor, limit);
     }
 
     // Get top rated DJs
-    public List<Users> getTopRatedDJs(int limit) {
-        return getAllDJs().stream()
-                .filter(dj -> dj.getRating() != null)
-                .sorted((dj1, dj2) -> Double.compare(dj2.getRating(), dj1.getRating()))
-                .limit(limit)
-                .collect(Collectors.toList());
+    public List<DJProfile> getTopRatedDJs(int limit) {
+        return leaderboards.topDJs(DJLeaderboards.Board.RATING, limit);
     }
 
     // Get DJs with most followers
-    public List<Users> getMostFollowedDJs(int limit) {
-        return getAllDJs().stream()
-                .sorted((dj1, dj2) -> Integer.compare(dj2.getFollowers(), dj1.getFollowers()))
-                .limit(limit)
-                .collect(Collectors.toList());
+    public List<DJProfile> getMostFollowedDJs(int limit) {
+        return leaderboards.topDJs(DJLeaderboards.Board.FOLLOWERS, limit);
+    }
+
+    // Get a leaderboard
+    public List<LeaderboardEntry> getLeaderboard(DJLeaderboards.Board board, int limit) {
+        return leaderboards.top(board, limit);
     }
 
     // Update DJ profile
-    public Users updateDJProfile(UUID djId, Users updatedDJ) {
-        Optional<Users> djOpt = getDJById(djId);
+    public DJProfile updateDJProfile(UUID djId, Users updatedDJ) {
+        Optional<Users> djOpt = findDJ(djId);
         if (djOpt.isEmpty()) {
             throw new RuntimeException("DJ not found with id: " + djId);
         }
@@ -101,24 +97,26 @@ public class DJService {
             dj.setActualUsername(updatedDJ.getActualUsername());
         }
 
-        return usersRepository.save(dj);
+        liveSessionDirectory.invalidate();
+        return saveDJ(dj);
     }
 
     // Set DJ live status
-    public Users setDJLiveStatus(UUID djId, boolean isLive) {
-        Optional<Users> djOpt = getDJById(djId);
+    public DJProfile setDJLiveStatus(UUID djId, boolean isLive) {
+        Optional<Users> djOpt = findDJ(djId);
         if (djOpt.isEmpty()) {
             throw new RuntimeException("DJ not found with id: " + djId);
         }
 
         Users dj = djOpt.get();
         dj.setIsLive(isLive);
-        return usersRepository.save(dj);
+        liveSessionDirectory.invalidate();
+        return saveDJ(dj);
     }
 
     // Update DJ rating
-    public Users updateDJRating(UUID djId, double newRating) {
-        Optional<Users> djOpt = getDJById(djId);
+    public DJProfile updateDJRating(UUID djId, double newRating) {
+        Optional<Users> djOpt = findDJ(djId);
         if (djOpt.isEmpty()) {
             throw new RuntimeException("DJ not found with id: " + djId);
         }
@@ -132,69 +130,68 @@ public class DJService {
             throw new RuntimeException("Rating must be between 0.0 and 5.0");
         }
 
-        return usersRepository.save(dj);
+        leaderboards.onRatingChanged(djId, dj.getRating());
+        return saveDJ(dj);
     }
 
-    // Add follower to DJ
-    public Users addFollower(UUID djId) {
-        Optional<Users> djOpt = getDJById(djId);
-        if (djOpt.isEmpty()) {
+    // Current user follows a DJ; following again is a no-op
+    public DJProfile addFollower(UUID djId) {
+        if (findDJ(djId).isEmpty()) {
             throw new RuntimeException("DJ not found with id: " + djId);
         }
-
-        Users dj = djOpt.get();
-        int currentFollowers = dj.getFollowers() != null ? dj.getFollowers() : 0;
-        dj.setFollowers(currentFollowers + 1);
-        return usersRepository.save(dj);
+        Users follower = getCurrentUser();
+        if (follower.getId().equals(djId)) {
+            throw new RuntimeException("You cannot follow yourself");
+        }
+        followerService.follow(follower.getId(), djId);
+        return djDirectory.get(djId).orElseThrow(() -> new RuntimeException("DJ not found with id: " + djId));
     }
 
-    // Remove follower from DJ
-    public Users removeFollower(UUID djId) {
-        Optional<Users> djOpt = getDJById(djId);
-        if (djOpt.isEmpty()) {
+    // Current user unfollows a DJ; unfollowing again is a no-op
+    public DJProfile removeFollower(UUID djId) {
+        if (findDJ(djId).isEmpty()) {
             throw new RuntimeException("DJ not found with id: " + djId);
         }
+        followerService.unfollow(getCurrentUser().getId(), djId);
+        return djDirectory.get(djId).orElseThrow(() -> new RuntimeException("DJ not found with id: " + djId));
+    }
 
-        Users dj = djOpt.get();
-        int currentFollowers = dj.getFollowers() != null ? dj.getFollowers() : 0;
-        if (currentFollowers > 0) {
-            dj.setFollowers(currentFollowers - 1);
-        }
-        return usersRepository.save(dj);
+    // Live DJs the current user follows
+    public LiveSessionDirectory.Listing<DJProfile> getFollowedLiveDJs() {
+        return followerService.getLiveDJsFollowedBy(getCurrentUser().getId());
+    }
+
+    private DJProfile saveDJ(Users dj) {
+        Users saved = usersRepository.save(dj);
+        djDirectory.onDJChanged(saved.getId());
+        return DJProfile.from(saved);
     }
 
     // Search DJs by name
-    public List<Users> searchDJsByName(String name) {
-        return getAllDJs().stream()
-                .filter(dj -> dj.getActualUsername().toLowerCase().contains(name.toLowerCase()))
-                .collect(Collectors.toList());
+    public CursorPage<DJProfile> searchDJsByName(String name, DJDirectory.Sort sort, String cursor, int limit) {
+        String needle = name.toLowerCase();
+        return djDirectory.page(sort,
+                dj -> dj.getUsername() != null && dj.getUsername().toLowerCase().contains(needle), cursor, limit);
     }
 
     // Get DJs by rating range
-    public List<Users> getDJsByRatingRange(double minRating, double maxRating) {
-        return getAllDJs().stream()
-                .filter(dj -> dj.getRating() != null && 
-                             dj.getRating() >= minRating && 
-                             dj.getRating() <= maxRating)
-                .collect(Collectors.toList());
+    public CursorPage<DJProfile> getDJsByRatingRange(double minRating, double maxRating, String cursor, int limit) {
+        return djDirectory.page(DJDirectory.Sort.RATING,
+                dj -> dj.getRating() != null && dj.getRating() >= minRating && dj.getRating() <= maxRating,
+                cursor, limit);
     }
 
     // Get DJs by follower count range
-    public List<Users> getDJsByFollowerRange(int minFollowers, int maxFollowers) {
-        return getAllDJs().stream()
-                .filter(dj -> dj.getFollowers() >= minFollowers && 
-                             dj.getFollowers() <= maxFollowers)
-                .collect(Collectors.toList());
+    public CursorPage<DJProfile> getDJsByFollowerRange(int minFollowers, int maxFollowers, String cursor, int limit) {
+        return djDirectory.page(DJDirectory.Sort.FOLLOWERS, dj -> {
+            int followers = dj.getFollowers() != null ? dj.getFollowers() : 0;
+            return followers >= minFollowers && followers <= maxFollowers;
+        }, cursor, limit);
     }
 
     // Get current authenticated user's DJ profile
     public Users getCurrentDJProfile() {
-        String emailAddress = SecurityContextHolder.getContext().getAuthentication().getName();
-        Users user = usersRepository.findByEmailAddress(emailAddress);
-
-        if (user == null) {
-            throw new RuntimeException("User not found");
-        }
+        Users user = getCurrentUser();
 
         if (!isDJ(user)) {
             throw new RuntimeException("Current user is not a DJ");
@@ -203,6 +200,20 @@ public class DJService {
         return user;
     }
 
+    private Users getCurrentUser() {
+        String emailAddress = SecurityContextHolder.getContext().getAuthentication().getName();
+        Users user = usersRepository.findByEmailAddress(emailAddress);
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        return user;
+    }
+
+    // Load the DJ entity for an update
+    private Optional<Users> findDJ(UUID djId) {
+        return usersRepository.findById(djId).filter(this::isDJ);
+    }
+
     // Check if user is a DJ
     private boolean isDJ(Users user) {
         return user.getRole() != null && "DJ".equals(user.getRole().getRoleName());
@@ -210,17 +221,13 @@ public class DJService {
 
     // Get DJ statistics
     public DJStats getDJStats(UUID djId) {
-        Optional<Users> djOpt = getDJById(djId);
+        Optional<Users> djOpt = findDJ(djId);
         if (djOpt.isEmpty()) {
             throw new RuntimeException("DJ not found with id: " + djId);
         }
 
         Users dj = djOpt.get();
-
-        // TODO: Calculate actual earnings from payments
-        double totalEarnings = 0.0; // Placeholder until earnings service is integrated
-        int totalSessions = 0; // Placeholder until session counting is implemented
-        int totalRequests = 0; // Placeholder until request counting is implemented
+        DJStatsService.Totals totals = djStatsService.getTotals(djId);
 
         return new DJStats(
             dj.getId(),
@@ -229,9 +236,10 @@ public class DJService {
             dj.getRating(),
             dj.getIsLive(),
             dj.getGenres() != null ? dj.getGenres().size() : 0,
-            totalEarnings,
-            totalSessions,
-            totalRequests
+            totals.earnings(),
+            totals.sessions(),
+            totals.requests(),
+            totals.songsPlayed()
         );
     }
 
@@ -246,9 +254,11 @@ public class DJService {
         private Double totalEarnings;
         private Integer totalSessions;
         private Integer totalRequests;
+        private Integer songsPlayed;
 
         public DJStats(UUID djId, String username, Integer followers, Double rating, Boolean isLive,
-                      Integer genreCount, Double totalEarnings, Integer totalSessions, Integer totalRequests) {
+                      Integer genreCount, Double totalEarnings, Integer totalSessions, Integer totalRequests,
+                      Integer songsPlayed) {
             this.djId = djId;
             this.username = username;
             this.followers = followers;
@@ -258,6 +268,7 @@ public class DJService {
             this.totalEarnings = totalEarnings;
             this.totalSessions = totalSessions;
             this.totalRequests = totalRequests;
+            this.songsPlayed = songsPlayed;
         }
 
         // Getters
@@ -271,6 +282,6 @@ public class DJService {
         public Integer getTotalSessions() { return totalSessions; }
         public Integer getTotalRequests() { return totalRequests; }
         public Double getAverageRating() { return rating; } // Alias for compatibility
-        public Integer getSongsPlayed() { return 0; } // Placeholder
+        public Integer getSongsPlayed() { return songsPlayed; }
     }
 }
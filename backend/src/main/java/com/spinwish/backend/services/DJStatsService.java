@@ -0,0 +1,308 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.DJDailyStats;
+import com.spinwish.backend.repositories.DJDailyStatsRepository;
+import com.spinwish.backend.repositories.RequestsPaymentRepository;
+import com.spinwish.backend.repositories.RequestsRepository;
+import com.spinwish.backend.repositories.SessionRepository;
+import com.spinwish.backend.repositories.TipPaymentsRepository;
+import com.spinwish.backend.utils.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Lifetime DJ statistics: earnings, sessions, requests and songs played.
+ *
+ * Finished days are rolled up once into dj_daily_stats, so a DJ's totals are the sum of
+ * their rollup rows plus range aggregates over the days since the last rollup, both of
+ * which read (dj, timestamp) indexes rather than the DJ's whole history. Totals are cached
+ * per DJ and evicted after commit by payment, request and session events.
+ *
+ * Sessions, requests and songs played are counted by creation and play time, which are set
+ * when written and never change. Payments carry the provider's transaction date, so a late
+ * callback can land on a rolled up day: it re-rolls that DJ's earnings for the day after
+ * commit, and the nightly rollup re-runs the last few days (spinwish.djs.stats-reroll-days)
+ * to catch anything that raced with it.
+ */
+@Service
+@Slf4j
+public class DJStatsService {
+
+    // Lower bound for the live aggregates before anything has been rolled up
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final DJDailyStatsRepository dailyStatsRepository;
+    private final RequestsRepository requestsRepository;
+    private final SessionRepository sessionRepository;
+    private final TipPaymentsRepository tipPaymentsRepository;
+    private final RequestsPaymentRepository requestsPaymentRepository;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final long cacheTtlMs;
+    private final int rerollDays;
+
+    // Last day held in dj_daily_stats, null before the first rollup
+    private volatile LocalDate rolledThrough;
+    private final Map<UUID, CachedTotals> cache = new ConcurrentHashMap<>();
+    // Bumped on every eviction, so totals loaded across an eviction are not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DJStatsService(DJDailyStatsRepository dailyStatsRepository,
+                          RequestsRepository requestsRepository,
+                          SessionRepository sessionRepository,
+                          TipPaymentsRepository tipPaymentsRepository,
+                          RequestsPaymentRepository requestsPaymentRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${spinwish.djs.stats-cache-ttl-ms:60000}") long cacheTtlMs,
+                          @Value("${spinwish.djs.stats-reroll-days:2}") int rerollDays) {
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.requestsRepository = requestsRepository;
+        this.sessionRepository = sessionRepository;
+        this.tipPaymentsRepository = tipPaymentsRepository;
+        this.requestsPaymentRepository = requestsPaymentRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cacheTtlMs = cacheTtlMs;
+        this.rerollDays = Math.max(1, rerollDays);
+    }
+
+    /**
+     * Lifetime totals of a DJ, from the cache when fresh
+     */
+    public Totals getTotals(UUID djId) {
+        long now = System.currentTimeMillis();
+        CachedTotals cached = cache.get(djId);
+        if (cached != null && now - cached.loadedAt < cacheTtlMs) {
+            return cached.totals;
+        }
+        long generation = evictions.get();
+        Totals totals = readTransaction.execute(status -> load(djId));
+        if (evictions.get() == generation) {
+            cache.put(djId, new CachedTotals(totals, now));
+        }
+        return totals;
+    }
+
+    /**
+     * Drop a DJ's cached totals once the surrounding transaction commits
+     */
+    public void onActivity(UUID djId) {
+        if (djId != null) {
+            AfterCommit.run(() -> evict(djId));
+        }
+    }
+
+    /**
+     * Re-roll the earnings of the payment's day once the surrounding transaction commits.
+     * Whether the day is rolled up is decided by the re-roll itself, against the database.
+     */
+    public void onPayment(UUID djId, LocalDateTime transactionDate) {
+        if (djId != null && transactionDate != null) {
+            LocalDate day = transactionDate.toLocalDate();
+            AfterCommit.run(() -> {
+                rerollEarnings(djId, day);
+                evict(djId);
+            });
+        }
+    }
+
+    private void evict(UUID djId) {
+        evictions.incrementAndGet();
+        cache.remove(djId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rolledThrough = readTransaction.execute(status -> dailyStatsRepository.findLastDay());
+        } catch (Exception e) {
+            log.error("Failed to read DJ stats rollup watermark: {}", e.getMessage());
+        }
+        rollup();
+    }
+
+    /**
+     * Roll up every finished day after the watermark, and again the last rerollDays days,
+     * one transaction per day. A day is replaced as a whole, so re-running it after a failure
+     * or on another instance is safe. Cached totals stay valid across a rollup: a day only
+     * moves from the live aggregates into the rollup sum.
+     */
+    @Scheduled(cron = "${spinwish.djs.stats-rollup-cron:0 10 0 * * *}")
+    public void rollup() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            LocalDate through = rolledThrough;
+            LocalDate day = through == null ? readTransaction.execute(status -> firstActiveDay())
+                    : min(through.plusDays(1), yesterday.minusDays(rerollDays - 1));
+            while (day != null && !day.isAfter(yesterday)) {
+                LocalDate current = day;
+                int rows = writeTransaction.execute(status -> rollUpDay(current));
+                if (rolledThrough == null || current.isAfter(rolledThrough)) {
+                    rolledThrough = current;
+                }
+                log.debug("Rolled up DJ stats of {} for {} DJs", current, rows);
+                day = day.plusDays(1);
+            }
+        } catch (Exception e) {
+            log.error("Failed to roll up DJ stats after {}: {}", rolledThrough, e.getMessage());
+        }
+    }
+
+    private Totals load(UUID djId) {
+        LocalDate through = rolledThrough;
+        double earnings = 0;
+        long sessions = 0;
+        long requests = 0;
+        long songsPlayed = 0;
+        if (through != null) {
+            Object[] rolled = dailyStatsRepository.sumByDjIdThrough(djId, through).get(0);
+            earnings = ((Number) rolled[0]).doubleValue();
+            sessions = ((Number) rolled[1]).longValue();
+            requests = ((Number) rolled[2]).longValue();
+            songsPlayed = ((Number) rolled[3]).longValue();
+        }
+
+        LocalDateTime since = through != null ? through.plusDays(1).atStartOfDay() : BEGINNING;
+        earnings += tipPaymentsRepository.sumAmountByDjIdSince(djId, since)
+                + requestsPaymentRepository.sumAmountByDjIdSince(djId, since);
+        sessions += sessionRepository.countByDjIdSince(djId, since);
+        requests += requestsRepository.countByDjIdSince(djId, since);
+        songsPlayed += requestsRepository.countPlayedByDjIdSince(djId, since);
+
+        return new Totals(earnings, (int) sessions, (int) requests, (int) songsPlayed);
+    }
+
+    private int rollUpDay(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        Map<UUID, DJDailyStats> byDj = new HashMap<>();
+
+        for (Object[] row : tipPaymentsRepository.sumAmountByDjBetween(from, to)) {
+            accumulate(byDj, day, row, stats -> stats.setEarnings(stats.getEarnings() + ((Number) row[1]).doubleValue()));
+        }
+        for (Object[] row : requestsPaymentRepository.sumAmountByDjBetween(from, to)) {
+            accumulate(byDj, day, row, stats -> stats.setEarnings(stats.getEarnings() + ((Number) row[1]).doubleValue()));
+        }
+        for (Object[] row : sessionRepository.countByDjBetween(from, to)) {
+            accumulate(byDj, day, row, stats -> stats.setSessions(((Number) row[1]).intValue()));
+        }
+        for (Object[] row : requestsRepository.countByDjBetween(from, to)) {
+            accumulate(byDj, day, row, stats -> stats.setRequests(((Number) row[1]).intValue()));
+        }
+        for (Object[] row : requestsRepository.countPlayedByDjBetween(from, to)) {
+            accumulate(byDj, day, row, stats -> stats.setSongsPlayed(((Number) row[1]).intValue()));
+        }
+
+        dailyStatsRepository.deleteByDay(day);
+        dailyStatsRepository.flush();
+        LocalDateTime now = LocalDateTime.now();
+        byDj.values().forEach(stats -> stats.setRolledUpAt(now));
+        dailyStatsRepository.saveAll(byDj.values());
+        return byDj.size();
+    }
+
+    /**
+     * Replace a DJ's rolled up earnings of a day with a fresh sum. The row is locked before
+     * summing, so of two re-rolls the later one sees the other's payment. A day without a row
+     * gets one; if a concurrent rollup or re-roll inserted it first, the second attempt
+     * locks that row instead.
+     */
+    private void rerollEarnings(UUID djId, LocalDate day) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    LocalDate through = dailyStatsRepository.findLastDay();
+                    // Days after the rollup are still counted live
+                    if (through == null || day.isAfter(through)) {
+                        return;
+                    }
+                    Optional<DJDailyStats> existing = dailyStatsRepository.findForUpdate(djId, day);
+                    double earnings = earningsOf(djId, day);
+                    if (existing.isPresent()) {
+                        existing.get().setEarnings(earnings);
+                        existing.get().setRolledUpAt(LocalDateTime.now());
+                    } else if (earnings != 0) {
+                        DJDailyStats stats = new DJDailyStats(djId, day);
+                        stats.setEarnings(earnings);
+                        stats.setRolledUpAt(LocalDateTime.now());
+                        dailyStatsRepository.save(stats);
+                    }
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == 2) {
+                    log.error("Failed to re-roll DJ stats of {} on {}: {}", djId, day, e.getMessage());
+                    return;
+                }
+            } catch (Exception e) {
+                log.error("Failed to re-roll DJ stats of {} on {}: {}", djId, day, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private double earningsOf(UUID djId, LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        double earnings = ((Number) tipPaymentsRepository.sumAndCountByDjIdBetween(djId, from, to).get(0)[0]).doubleValue();
+        List<Object[]> requestPayments = requestsPaymentRepository.sumAndCountByDjIdAndStatusBetween(djId, from, to);
+        for (Object[] row : requestPayments) {
+            earnings += ((Number) row[1]).doubleValue();
+        }
+        return earnings;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private void accumulate(Map<UUID, DJDailyStats> byDj, LocalDate day, Object[] row, Consumer<DJDailyStats> update) {
+        UUID djId = (UUID) row[0];
+        if (djId != null) {
+            update.accept(byDj.computeIfAbsent(djId, id -> new DJDailyStats(id, day)));
+        }
+    }
+
+    /**
+     * Day of the earliest payment, session or request, null when there is none yet
+     */
+    private LocalDate firstActiveDay() {
+        return Stream.of(tipPaymentsRepository.findEarliestTransactionDate(),
+                        requestsPaymentRepository.findEarliestTransactionDate(),
+                        sessionRepository.findEarliestCreatedAt(),
+                        requestsRepository.findEarliestCreatedAt())
+                .filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo)
+                .map(LocalDateTime::toLocalDate)
+                .orElse(null);
+    }
+
+    public record Totals(double earnings, int sessions, int requests, int songsPlayed) {
+    }
+
+    private record CachedTotals(Totals totals, long loadedAt) {
+    }
+}
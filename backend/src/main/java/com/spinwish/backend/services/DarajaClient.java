@@ -0,0 +1,171 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.config.MpesaConfig;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP client for the Safaricom Daraja API.
+ *
+ * One HttpClient keeps connections to Daraja alive between calls, so a token fetch and
+ * the STK push after it share one TLS handshake. Every call has connect and response
+ * timeouts, waits for one of a bounded number of call slots, and is timed per operation
+ * and outcome. Timeouts surface as SocketTimeoutException and non-2xx responses as a
+ * StatusException, both IOExceptions as they were with HttpURLConnection.
+ *
+ * Timers of the known operations and fixed outcomes are registered at startup; an HTTP
+ * status outcome or another operation is registered on first use and cached.
+ */
+@Component
+@Slf4j
+public class DarajaClient {
+
+    private static final String CALL_DURATION = "mpesa.daraja.call.duration";
+
+    // Operations of MpesaTokenProvider and PaymentService
+    static final List<String> OPERATIONS = List.of("oauth_token", "stk_push", "stk_query");
+    static final List<String> OUTCOMES = List.of("success", "timeout", "error");
+
+    private final HttpClient httpClient;
+    private final Semaphore slots;
+    private final Duration requestTimeout;
+    private final long slotWaitMs;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    // Operation to outcome to timer
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    public DarajaClient(MpesaConfig mpesaConfig, MeterRegistry meterRegistry) {
+        MpesaConfig.Http http = mpesaConfig.getHttp();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(http.getConnectTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.slots = new Semaphore(http.getMaxConcurrentCalls(), true);
+        this.requestTimeout = Duration.ofMillis(http.getReadTimeoutMs());
+        this.slotWaitMs = http.getSlotWaitMs();
+        this.meterRegistry = meterRegistry;
+        this.clock = meterRegistry.config().clock();
+        for (String operation : OPERATIONS) {
+            for (String outcome : OUTCOMES) {
+                timer(operation, outcome);
+            }
+        }
+    }
+
+    /**
+     * GET a Daraja endpoint and parse the JSON response
+     */
+    public JSONObject get(String operation, String url, String authorization) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Authorization", authorization)
+                .GET()
+                .build();
+        return new JSONObject(send(operation, request));
+    }
+
+    /**
+     * POST a JSON payload to a Daraja endpoint and return the raw response body
+     */
+    public String post(String operation, String url, String authorization, JSONObject payload) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payload.toString(), StandardCharsets.UTF_8))
+                .build();
+        return send(operation, request);
+    }
+
+    private String send(String operation, HttpRequest request) throws IOException {
+        acquireSlot(operation);
+        long start = clock.monotonicTime();
+        String outcome = "error";
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            int status = response.statusCode();
+            if (status < 200 || status >= 300) {
+                outcome = "http_" + status;
+                throw new StatusException(operation, status, response.body());
+            }
+            outcome = "success";
+            return response.body();
+        } catch (HttpTimeoutException e) {
+            outcome = "timeout";
+            SocketTimeoutException timeout = new SocketTimeoutException("Daraja " + operation + " timed out");
+            timeout.initCause(e);
+            throw timeout;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during Daraja " + operation);
+        } finally {
+            slots.release();
+            timer(operation, outcome).record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String operation, String outcome) {
+        Map<String, Timer> byOutcome = timers.get(operation);
+        if (byOutcome == null) {
+            byOutcome = timers.computeIfAbsent(operation, op -> new ConcurrentHashMap<>());
+        }
+        Timer timer = byOutcome.get(outcome);
+        if (timer == null) {
+            timer = byOutcome.computeIfAbsent(outcome, o -> Timer.builder(CALL_DURATION)
+                    .tag("operation", operation)
+                    .tag("outcome", o)
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+
+    private void acquireSlot(String operation) throws IOException {
+        try {
+            if (!slots.tryAcquire(slotWaitMs, TimeUnit.MILLISECONDS)) {
+                log.warn("No free Daraja call slot for {} after {} ms", operation, slotWaitMs);
+                throw new SocketTimeoutException("Timed out waiting for a Daraja call slot for " + operation);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a Daraja call slot");
+        }
+    }
+
+    /**
+     * A non-2xx response from Daraja
+     */
+    public static class StatusException extends IOException {
+        private final int status;
+
+        public StatusException(String operation, int status, String body) {
+            super("Daraja " + operation + " returned HTTP " + status + ": " + body);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+}
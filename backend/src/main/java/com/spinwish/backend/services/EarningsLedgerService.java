@@ -0,0 +1,393 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.DJDailyEarnings;
+import com.spinwish.backend.entities.DJEarningsTotals;
+import com.spinwish.backend.entities.LedgerLock;
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.repositories.DJDailyEarningsRepository;
+import com.spinwish.backend.repositories.DJEarningsTotalsRepository;
+import com.spinwish.backend.repositories.LedgerLockRepository;
+import com.spinwish.backend.repositories.RequestsPaymentRepository;
+import com.spinwish.backend.repositories.TipPaymentsRepository;
+import com.spinwish.backend.utils.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * DJ earnings over a period: tips, accepted request payments and pending request payments.
+ *
+ * Finished days are rolled up nightly into dj_daily_earnings, and each DJ's rows are summed
+ * into dj_earnings_totals in the same transaction. A period is answered from the totals row
+ * when it starts before the DJ's first rolled up day, otherwise from the daily rows it spans,
+ * plus SUM/COUNT aggregates over its partial first day and the days not rolled up yet. So an
+ * all time summary reads one ledger row and a month at most 31, instead of every payment.
+ *
+ * Request payments count under the request's current status, so a status change or a
+ * payment re-rolls that DJ's day after commit. Rollups and re-rolls on every instance run
+ * one at a time under the dj_earnings ledger lock, so a re-roll decides whether its day
+ * is rolled up from the committed ledger, not from this instance's watermark, which can
+ * lag another instance's rollup or miss one in flight.
+ *
+ * dj_daily_stats keeps one earnings figure per DJ and day for the stats view; this ledger
+ * splits it into tips, accepted and pending payments, which that figure cannot give back.
+ */
+@Service
+@Slf4j
+public class EarningsLedgerService {
+
+    private final DJDailyEarningsRepository dailyEarningsRepository;
+    private final DJEarningsTotalsRepository totalsRepository;
+    private final LedgerLockRepository ledgerLockRepository;
+    private final TipPaymentsRepository tipPaymentsRepository;
+    private final RequestsPaymentRepository requestsPaymentRepository;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+
+    // Last day this instance rolled up or found rolled up, where its next rollup starts
+    private volatile LocalDate rolledThrough;
+
+    public EarningsLedgerService(DJDailyEarningsRepository dailyEarningsRepository,
+                                 DJEarningsTotalsRepository totalsRepository,
+                                 LedgerLockRepository ledgerLockRepository,
+                                 TipPaymentsRepository tipPaymentsRepository,
+                                 RequestsPaymentRepository requestsPaymentRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.dailyEarningsRepository = dailyEarningsRepository;
+        this.totalsRepository = totalsRepository;
+        this.ledgerLockRepository = ledgerLockRepository;
+        this.tipPaymentsRepository = tipPaymentsRepository;
+        this.requestsPaymentRepository = requestsPaymentRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Earnings of a DJ from payments dated in [from, to)
+     */
+    public Earnings getEarnings(UUID djId, LocalDateTime from, LocalDateTime to) {
+        return readTransaction.execute(status -> load(djId, from, to));
+    }
+
+    /**
+     * Re-roll the payment's day once the surrounding transaction commits; a day not rolled
+     * up yet is left alone then
+     */
+    public void onPayment(UUID djId, LocalDateTime transactionDate) {
+        if (djId != null && transactionDate != null) {
+            LocalDate day = transactionDate.toLocalDate();
+            AfterCommit.run(() -> reroll(djId, day));
+        }
+    }
+
+    /**
+     * Re-roll the days holding payments of a request once the surrounding transaction
+     * commits. previousDjId is the DJ the request belonged to before, if any.
+     */
+    public void onRequestChanged(UUID requestId, UUID djId, UUID previousDjId) {
+        if (requestId == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            Set<LocalDate> days = new TreeSet<>();
+            try {
+                List<LocalDateTime> dates = readTransaction.execute(status ->
+                        requestsPaymentRepository.findTransactionDatesByRequestId(requestId));
+                dates.stream().map(LocalDateTime::toLocalDate).forEach(days::add);
+            } catch (Exception e) {
+                log.error("Failed to read payment dates of request {}: {}", requestId, e.getMessage());
+            }
+            for (LocalDate day : days) {
+                if (djId != null) {
+                    reroll(djId, day);
+                }
+                if (previousDjId != null && !previousDjId.equals(djId)) {
+                    reroll(previousDjId, day);
+                }
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rolledThrough = readTransaction.execute(status -> totalsRepository.findLastDay());
+        } catch (Exception e) {
+            log.error("Failed to read earnings rollup watermark: {}", e.getMessage());
+        }
+        rollup();
+    }
+
+    /**
+     * Roll up every finished day after the watermark, one transaction per day. Each DJ's
+     * row for the day is replaced and the difference applied to their totals, so re-running
+     * a day after a failure or on another instance is safe.
+     */
+    @Scheduled(cron = "${spinwish.earnings.rollup-cron:0 20 0 * * *}")
+    public void rollup() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        try {
+            LocalDate day = rolledThrough != null ? rolledThrough.plusDays(1)
+                    : readTransaction.execute(status -> firstPaymentDay());
+            while (day != null && !day.isAfter(yesterday)) {
+                LocalDate current = day;
+                int rows = writeTransaction.execute(status -> rollUpDay(current));
+                rolledThrough = current;
+                log.debug("Rolled up earnings of {} for {} DJs", current, rows);
+                day = day.plusDays(1);
+            }
+        } catch (Exception e) {
+            log.error("Failed to roll up earnings after {}: {}", rolledThrough, e.getMessage());
+        }
+    }
+
+    private Earnings load(UUID djId, LocalDateTime from, LocalDateTime to) {
+        Optional<DJEarningsTotals> found = totalsRepository.findById(djId);
+        if (found.isEmpty()) {
+            return live(djId, from, to);
+        }
+        DJEarningsTotals totals = found.get();
+
+        // Whole days of the period held in the ledger: [firstDay, throughDate]
+        LocalDate firstDay = from.toLocalTime().equals(LocalTime.MIDNIGHT) ? from.toLocalDate()
+                : from.toLocalDate().plusDays(1);
+        LocalDateTime ledgerStart = firstDay.atStartOfDay();
+        LocalDateTime ledgerEnd = totals.getThroughDate().plusDays(1).atStartOfDay();
+        if (!ledgerEnd.isAfter(ledgerStart) || ledgerEnd.isAfter(to)) {
+            return live(djId, from, to);
+        }
+
+        // Bounded by the totals row read above, so a rollup committing meanwhile is not counted twice
+        Earnings earnings = firstDay.isAfter(totals.getFirstDate())
+                ? rolled(djId, firstDay, totals.getThroughDate())
+                : toEarnings(totals);
+        if (from.isBefore(ledgerStart)) {
+            earnings = earnings.plus(live(djId, from, ledgerStart));
+        }
+        return earnings.plus(live(djId, ledgerEnd, to));
+    }
+
+    private int rollUpDay(LocalDate day) {
+        // A re-roll of this day waits for the commit and then sees it rolled up, and one
+        // committed before the lock was taken is in the aggregates below
+        lockLedger();
+        totalsRepository.advanceThrough(day);
+
+        Map<UUID, Earnings> byDj = aggregateByDj(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        dailyEarningsRepository.findDjIdsByDay(day).forEach(djId -> byDj.putIfAbsent(djId, Earnings.NONE));
+
+        for (Map.Entry<UUID, Earnings> entry : byDj.entrySet()) {
+            Optional<DJEarningsTotals> existing = totalsRepository.findById(entry.getKey());
+            if (existing.isPresent()) {
+                replaceDay(existing.get(), day, entry.getValue());
+            } else if (!entry.getValue().isEmpty()) {
+                DJEarningsTotals totals = new DJEarningsTotals(entry.getKey(), day);
+                replaceDay(totals, day, entry.getValue());
+                totalsRepository.save(totals);
+            }
+        }
+        return byDj.size();
+    }
+
+    /**
+     * Replace a DJ's row for a day with a fresh sum if the day is rolled up, deciding under
+     * the ledger lock. A DJ without totals gets them when the rollup of the day missed their
+     * first payment. If another instance created the lock row at the same time, the second
+     * attempt locks it instead.
+     */
+    private void reroll(UUID djId, LocalDate day) {
+        // Only finished days are rolled up, so today's payments need no lock
+        if (!day.isBefore(LocalDate.now())) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    lockLedger();
+                    LocalDate through = totalsRepository.findLastDay();
+                    // Days after the rollup are still counted live
+                    if (through == null || day.isAfter(through)) {
+                        return;
+                    }
+                    Earnings fresh = live(djId, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+                    Optional<DJEarningsTotals> totals = totalsRepository.findById(djId);
+                    if (totals.isPresent()) {
+                        replaceDay(totals.get(), day, fresh);
+                    } else if (!fresh.isEmpty()) {
+                        DJEarningsTotals created = new DJEarningsTotals(djId, day);
+                        created.setThroughDate(through);
+                        replaceDay(created, day, fresh);
+                        totalsRepository.save(created);
+                    }
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == 2) {
+                    log.error("Failed to re-roll earnings of DJ {} on {}: {}", djId, day, e.getMessage());
+                    return;
+                }
+            } catch (Exception e) {
+                log.error("Failed to re-roll earnings of DJ {} on {}: {}", djId, day, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Take the dj_earnings ledger lock for the current transaction, creating its row if the
+     * schema came from Hibernate rather than V19
+     */
+    private void lockLedger() {
+        if (ledgerLockRepository.findForUpdate(LedgerLock.DJ_EARNINGS).isEmpty()) {
+            ledgerLockRepository.saveAndFlush(new LedgerLock(LedgerLock.DJ_EARNINGS));
+        }
+    }
+
+    /**
+     * Replace a DJ's row for a day and move their totals by the difference. The caller holds
+     * the ledger lock.
+     */
+    private void replaceDay(DJEarningsTotals totals, LocalDate day, Earnings fresh) {
+        UUID djId = totals.getDjId();
+        Earnings previous = rolled(djId, day, day);
+        dailyEarningsRepository.deleteByDjIdAndDay(djId, day);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!fresh.isEmpty()) {
+            DJDailyEarnings row = new DJDailyEarnings(djId, day);
+            row.setTipsAmount(fresh.tipsAmount());
+            row.setTipsCount((int) fresh.tipsCount());
+            row.setAcceptedAmount(fresh.acceptedAmount());
+            row.setAcceptedCount((int) fresh.acceptedCount());
+            row.setPendingAmount(fresh.pendingAmount());
+            row.setPendingCount((int) fresh.pendingCount());
+            row.setRolledUpAt(now);
+            dailyEarningsRepository.save(row);
+            if (day.isBefore(totals.getFirstDate())) {
+                totals.setFirstDate(day);
+            }
+        }
+
+        Earnings updated = toEarnings(totals).plus(fresh).minus(previous);
+        totals.setTipsAmount(updated.tipsAmount());
+        totals.setTipsCount(updated.tipsCount());
+        totals.setAcceptedAmount(updated.acceptedAmount());
+        totals.setAcceptedCount(updated.acceptedCount());
+        totals.setPendingAmount(updated.pendingAmount());
+        totals.setPendingCount(updated.pendingCount());
+        totals.setUpdatedAt(now);
+    }
+
+    private Earnings rolled(UUID djId, LocalDate from, LocalDate through) {
+        Object[] row = dailyEarningsRepository.sumByDjIdBetween(djId, from, through).get(0);
+        return new Earnings(((Number) row[0]).doubleValue(), ((Number) row[1]).longValue(),
+                ((Number) row[2]).doubleValue(), ((Number) row[3]).longValue(),
+                ((Number) row[4]).doubleValue(), ((Number) row[5]).longValue());
+    }
+
+    private Earnings live(UUID djId, LocalDateTime from, LocalDateTime to) {
+        Object[] tips = tipPaymentsRepository.sumAndCountByDjIdBetween(djId, from, to).get(0);
+        Earnings earnings = Earnings.ofTips(((Number) tips[0]).doubleValue(), ((Number) tips[1]).longValue());
+        for (Object[] row : requestsPaymentRepository.sumAndCountByDjIdAndStatusBetween(djId, from, to)) {
+            earnings = earnings.plus(Earnings.ofRequests((Request.RequestStatus) row[0],
+                    ((Number) row[1]).doubleValue(), ((Number) row[2]).longValue()));
+        }
+        return earnings;
+    }
+
+    private Map<UUID, Earnings> aggregateByDj(LocalDateTime from, LocalDateTime to) {
+        Map<UUID, Earnings> byDj = new HashMap<>();
+        for (Object[] row : tipPaymentsRepository.sumAndCountByDjBetween(from, to)) {
+            accumulate(byDj, (UUID) row[0],
+                    Earnings.ofTips(((Number) row[1]).doubleValue(), ((Number) row[2]).longValue()));
+        }
+        for (Object[] row : requestsPaymentRepository.sumAndCountByDjAndStatusBetween(from, to)) {
+            accumulate(byDj, (UUID) row[0], Earnings.ofRequests((Request.RequestStatus) row[1],
+                    ((Number) row[2]).doubleValue(), ((Number) row[3]).longValue()));
+        }
+        return byDj;
+    }
+
+    private static void accumulate(Map<UUID, Earnings> byDj, UUID djId, Earnings earnings) {
+        if (djId != null) {
+            byDj.merge(djId, earnings, Earnings::plus);
+        }
+    }
+
+    private static Earnings toEarnings(DJEarningsTotals totals) {
+        return new Earnings(totals.getTipsAmount(), totals.getTipsCount(),
+                totals.getAcceptedAmount(), totals.getAcceptedCount(),
+                totals.getPendingAmount(), totals.getPendingCount());
+    }
+
+    /**
+     * Day of the earliest payment, null when there is none yet
+     */
+    private LocalDate firstPaymentDay() {
+        return Stream.of(tipPaymentsRepository.findEarliestTransactionDate(),
+                        requestsPaymentRepository.findEarliestTransactionDate())
+                .filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo)
+                .map(LocalDateTime::toLocalDate)
+                .orElse(null);
+    }
+
+    public record Earnings(double tipsAmount, long tipsCount,
+                           double acceptedAmount, long acceptedCount,
+                           double pendingAmount, long pendingCount) {
+
+        public static final Earnings NONE = new Earnings(0, 0, 0, 0, 0, 0);
+
+        static Earnings ofTips(double amount, long count) {
+            return new Earnings(amount, count, 0, 0, 0, 0);
+        }
+
+        // Payments of played or rejected requests are not reported
+        static Earnings ofRequests(Request.RequestStatus status, double amount, long count) {
+            if (status == Request.RequestStatus.ACCEPTED) {
+                return new Earnings(0, 0, amount, count, 0, 0);
+            }
+            if (status == Request.RequestStatus.PENDING) {
+                return new Earnings(0, 0, 0, 0, amount, count);
+            }
+            return NONE;
+        }
+
+        Earnings plus(Earnings other) {
+            return new Earnings(tipsAmount + other.tipsAmount, tipsCount + other.tipsCount,
+                    acceptedAmount + other.acceptedAmount, acceptedCount + other.acceptedCount,
+                    pendingAmount + other.pendingAmount, pendingCount + other.pendingCount);
+        }
+
+        Earnings minus(Earnings other) {
+            return new Earnings(tipsAmount - other.tipsAmount, tipsCount - other.tipsCount,
+                    acceptedAmount - other.acceptedAmount, acceptedCount - other.acceptedCount,
+                    pendingAmount - other.pendingAmount, pendingCount - other.pendingCount);
+        }
+
+        boolean isEmpty() {
+            return tipsCount == 0 && acceptedCount == 0 && pendingCount == 0;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.spinwish.backend.services;
 
-import com.spinwish.backend.entities.Request;
 import com.spinwish.backend.entities.Users;
 import com.spinwish.backend.entities.payments.TipPayments;
 import com.spinwish.backend.entities.payments.RequestsPayment;
@@ -17,7 +16,6 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -32,6 +30,9 @@ public class EarningsService {
     @Autowired
     private RequestsPaymentRepository requestsPaymentRepository;
 
+    @Autowired
+    private EarningsLedgerService earningsLedgerService;
+
     public EarningsSummary getDJEarningsSummary(UUID djId, String period) {
         Users dj = usersRepository.findById(djId)
                 .orElseThrow(() -> new RuntimeException("DJ not found with id: " + djId));
@@ -43,35 +44,19 @@ public class EarningsService {
         LocalDateTime startDate = getStartDateForPeriod(period);
         LocalDateTime endDate = LocalDateTime.now();
 
-        // Get tip earnings (all tips are immediately available)
-        List<TipPayments> tips = tipPaymentsRepository.findByDjAndTransactionDateBetween(
-                dj, startDate, endDate);
-        double totalTips = tips.stream().mapToDouble(TipPayments::getAmount).sum();
-
-        // Get ACCEPTED request earnings only (not pending or rejected)
-        List<RequestsPayment> acceptedRequests = requestsPaymentRepository
-                .findByRequestDjAndStatusAndTransactionDateBetween(
-                        dj, Request.RequestStatus.ACCEPTED, startDate, endDate);
-        double totalAcceptedRequests = acceptedRequests.stream()
-                .mapToDouble(RequestsPayment::getAmount).sum();
-
-        // Get PENDING request payments (not yet approved)
-        List<RequestsPayment> pendingRequests = requestsPaymentRepository
-                .findByRequestDjAndStatusAndTransactionDateBetween(
-                        dj, Request.RequestStatus.PENDING, startDate, endDate);
-        double totalPendingRequests = pendingRequests.stream()
-                .mapToDouble(RequestsPayment::getAmount).sum();
+        // Tips and accepted request payments are earned; payments of pending requests are not yet
+        EarningsLedgerService.Earnings earnings = earningsLedgerService.getEarnings(djId, startDate, endDate);
 
         // Total earnings = tips + accepted requests only
-        double totalEarnings = totalTips + totalAcceptedRequests;
+        double totalEarnings = earnings.tipsAmount() + earnings.acceptedAmount();
 
         return new EarningsSummary(
                 totalEarnings,
-                totalTips,
-                totalAcceptedRequests,
-                totalPendingRequests, // Pending amount from unapproved requests
+                earnings.tipsAmount(),
+                earnings.acceptedAmount(),
+                earnings.pendingAmount(), // Pending amount from unapproved requests
                 totalEarnings, // Available for payout (all accepted earnings)
-                tips.size() + acceptedRequests.size(),
+                (int) (earnings.tipsCount() + earnings.acceptedCount()),
                 startDate,
                 endDate
         );
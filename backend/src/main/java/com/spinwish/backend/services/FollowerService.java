@@ -0,0 +1,179 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.DJFollower;
+import com.spinwish.backend.entities.DJFollowerShard;
+import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.models.responses.users.DJProfile;
+import com.spinwish.backend.repositories.DJFollowerRepository;
+import com.spinwish.backend.repositories.DJFollowerShardRepository;
+import com.spinwish.backend.repositories.UsersRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Follower graph and follower counts.
+ *
+ * dj_followers holds one row per (follower, DJ), so follow and unfollow are idempotent.
+ * Each change adds +1 or -1 to a random one of SHARDS counter rows of the DJ, so concurrent
+ * follows spread over several rows instead of queueing on the users row. A scheduled flush
+ * sums the shards of DJs that changed into users.followers, the DJ directory and the
+ * follower leaderboard.
+ */
+@Service
+@Slf4j
+public class FollowerService {
+
+    static final int SHARDS = 8;
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final DJFollowerRepository followerRepository;
+    private final DJFollowerShardRepository shardRepository;
+    private final UsersRepository usersRepository;
+    private final DJDirectory djDirectory;
+    private final DJLeaderboards leaderboards;
+    private final LiveSessionDirectory liveSessionDirectory;
+    private final TransactionTemplate writeTransaction;
+
+    // DJs whose shards changed since the last flush
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    public FollowerService(DJFollowerRepository followerRepository,
+                           DJFollowerShardRepository shardRepository,
+                           UsersRepository usersRepository,
+                           DJDirectory djDirectory,
+                           DJLeaderboards leaderboards,
+                           LiveSessionDirectory liveSessionDirectory,
+                           PlatformTransactionManager transactionManager) {
+        this.followerRepository = followerRepository;
+        this.shardRepository = shardRepository;
+        this.usersRepository = usersRepository;
+        this.djDirectory = djDirectory;
+        this.leaderboards = leaderboards;
+        this.liveSessionDirectory = liveSessionDirectory;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Follow a DJ; false when the user already follows them
+     */
+    public boolean follow(UUID followerId, UUID djId) {
+        if (followerRepository.existsByFollowerIdAndDjId(followerId, djId)) {
+            return false;
+        }
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                followerRepository.saveAndFlush(new DJFollower(followerId, djId));
+                addToCount(djId, 1);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request recorded the same follow first
+            return false;
+        }
+        dirty.add(djId);
+        return true;
+    }
+
+    /**
+     * Unfollow a DJ; false when the user was not following them
+     */
+    public boolean unfollow(UUID followerId, UUID djId) {
+        Boolean removed = writeTransaction.execute(status -> {
+            if (followerRepository.deleteByFollowerIdAndDjId(followerId, djId) == 0) {
+                return false;
+            }
+            addToCount(djId, -1);
+            return true;
+        });
+        if (Boolean.TRUE.equals(removed)) {
+            dirty.add(djId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Live DJs the user follows, from the live session directory
+     */
+    public LiveSessionDirectory.Listing<DJProfile> getLiveDJsFollowedBy(UUID followerId) {
+        Set<UUID> followed = new HashSet<>(followerRepository.findDjIdsByFollowerId(followerId));
+        return liveSessionDirectory.liveDjsAmong(followed);
+    }
+
+    /**
+     * Write the summed shards of changed DJs to their follower counts
+     */
+    @Scheduled(fixedDelayString = "${spinwish.djs.follower-flush-ms:5000}")
+    public void flushCounts() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<UUID> djIds = new ArrayList<>(dirty);
+        dirty.removeAll(djIds);
+
+        for (int from = 0; from < djIds.size(); from += FLUSH_BATCH_SIZE) {
+            List<UUID> chunk = djIds.subList(from, Math.min(from + FLUSH_BATCH_SIZE, djIds.size()));
+            try {
+                List<Object[]> counts = writeTransaction.execute(status -> {
+                    List<Object[]> rows = shardRepository.sumByDjIds(chunk);
+                    for (Object[] row : rows) {
+                        usersRepository.setFollowers((UUID) row[0], ((Number) row[1]).intValue());
+                    }
+                    return rows;
+                });
+                for (Object[] row : counts) {
+                    UUID djId = (UUID) row[0];
+                    int followers = ((Number) row[1]).intValue();
+                    djDirectory.onFollowersChanged(djId, followers);
+                    leaderboards.onFollowersChanged(djId, followers);
+                }
+            } catch (Exception e) {
+                log.error("Failed to flush follower counts of {} DJs: {}", chunk.size(), e.getMessage());
+                dirty.addAll(chunk);
+            }
+        }
+    }
+
+    private void addToCount(UUID djId, long delta) {
+        int shard = ThreadLocalRandom.current().nextInt(SHARDS);
+        if (shardRepository.addToShard(djId, shard, delta) == 0) {
+            createShards(djId);
+            shardRepository.addToShard(djId, shard, delta);
+        }
+    }
+
+    /**
+     * Start the shards of a DJ, carrying over the count from before the follower graph
+     */
+    private void createShards(UUID djId) {
+        try {
+            writeTransaction.executeWithoutResult(status -> {
+                Users dj = usersRepository.findById(djId)
+                        .orElseThrow(() -> new RuntimeException("DJ not found with id: " + djId));
+                Integer current = dj.getFollowers();
+                List<DJFollowerShard> shards = new ArrayList<>(SHARDS);
+                for (int shard = 0; shard < SHARDS; shard++) {
+                    long baseline = shard == 0 && current != null ? current : 0L;
+                    shards.add(new DJFollowerShard(djId, shard, baseline));
+                }
+                shardRepository.saveAllAndFlush(shards);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another follow created them first
+            log.debug("Follower shards of DJ {} already exist", djId);
+        }
+    }
+}
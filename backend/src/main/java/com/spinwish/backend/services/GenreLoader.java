@@ -0,0 +1,56 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.models.responses.sessions.SessionSummary;
+import com.spinwish.backend.models.responses.users.DJProfile;
+import com.spinwish.backend.repositories.SessionRepository;
+import com.spinwish.backend.repositories.UsersRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Fills in the genres of listing projections, which are loaded without their element
+ * collections, with one query per BATCH_SIZE rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class GenreLoader {
+
+    static final int BATCH_SIZE = 500;
+
+    private final SessionRepository sessionRepository;
+    private final UsersRepository usersRepository;
+
+    public List<SessionSummary> forSessions(List<SessionSummary> summaries) {
+        return fill(summaries, SessionSummary::getId, SessionSummary::setGenres, sessionRepository::findGenreRows);
+    }
+
+    public List<DJProfile> forDJs(List<DJProfile> profiles) {
+        return fill(profiles, DJProfile::getId, DJProfile::setGenres, usersRepository::findGenreRows);
+    }
+
+    /**
+     * Rows are (owner id, genre) pairs; owners without any get an empty list
+     */
+    private static <T> List<T> fill(List<T> items, Function<T, UUID> idOf, BiConsumer<T, List<String>> setGenres,
+                                    Function<Collection<UUID>, List<Object[]>> genreRows) {
+        Map<UUID, List<String>> genres = new HashMap<>();
+        List<UUID> ids = items.stream().map(idOf).toList();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            for (Object[] row : genreRows.apply(chunk)) {
+                genres.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+        }
+        items.forEach(item -> setGenres.accept(item, genres.getOrDefault(idOf.apply(item), new ArrayList<>())));
+        return items;
+    }
+}
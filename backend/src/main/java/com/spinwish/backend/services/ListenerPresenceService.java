@@ -0,0 +1,202 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.models.responses.sessions.ListenerCountEvent;
+import com.spinwish.backend.repositories.SessionRepository;
+import com.spinwish.backend.utils.HyperLogLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts live listeners of a session from STOMP subscriptions to /topic/sessions/{id}/...
+ *
+ * A WebSocket connection counts once per session however many of its topics it subscribes to.
+ * Counts change lock-free on every event; changed sessions are written to the database and
+ * published on /topic/sessions/{id}/listeners by a periodic flush, so a burst of joins costs
+ * one write per interval.
+ */
+@Service
+@Slf4j
+public class ListenerPresenceService {
+
+    private static final Pattern SESSION_TOPIC = Pattern.compile("^/topic/sessions/([0-9a-fA-F-]{36})(/.*)?$");
+    private static final long IDLE_STATE_MILLIS = 60 * 60_000L;
+
+    private final SessionRepository sessionRepository;
+    private final SessionAnalyticsService sessionAnalyticsService;
+    private final WebSocketOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, Presence> presences = new ConcurrentHashMap<>();
+    // WebSocket session -> subscription id -> DJ session
+    private final Map<String, Map<String, UUID>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    public ListenerPresenceService(SessionRepository sessionRepository,
+                                   SessionAnalyticsService sessionAnalyticsService,
+                                   WebSocketOutbox outbox,
+                                   PlatformTransactionManager transactionManager) {
+        this.sessionRepository = sessionRepository;
+        this.sessionAnalyticsService = sessionAnalyticsService;
+        this.outbox = outbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        UUID sessionId = sessionIdOf(accessor.getDestination());
+        String connectionId = accessor.getSessionId();
+        if (sessionId == null || connectionId == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        Map<String, UUID> connectionSubscriptions = subscriptions.computeIfAbsent(connectionId, id -> new ConcurrentHashMap<>());
+        boolean firstForSession = !connectionSubscriptions.containsValue(sessionId);
+        connectionSubscriptions.put(accessor.getSubscriptionId(), sessionId);
+        if (firstForSession) {
+            Principal user = event.getUser();
+            presence(sessionId).join(user != null ? user.getName() : connectionId);
+            dirty.add(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, UUID> connectionSubscriptions = subscriptions.get(accessor.getSessionId());
+        if (connectionSubscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        UUID sessionId = connectionSubscriptions.remove(accessor.getSubscriptionId());
+        if (sessionId != null && !connectionSubscriptions.containsValue(sessionId)) {
+            leave(sessionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, UUID> connectionSubscriptions = subscriptions.remove(event.getSessionId());
+        if (connectionSubscriptions == null) {
+            return;
+        }
+        new HashSet<>(connectionSubscriptions.values()).forEach(this::leave);
+    }
+
+    private void leave(UUID sessionId) {
+        Presence presence = presences.get(sessionId);
+        if (presence != null) {
+            presence.leave();
+            dirty.add(sessionId);
+        }
+    }
+
+    private Presence presence(UUID sessionId) {
+        return presences.computeIfAbsent(sessionId, id -> new Presence());
+    }
+
+    static UUID sessionIdOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        Matcher matcher = SESSION_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(matcher.group(1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Live numbers of a session, or null when nobody has connected to it through this instance
+     */
+    public ListenerCountEvent getListenerCounts(UUID sessionId) {
+        Presence presence = presences.get(sessionId);
+        return presence != null ? presence.toEvent(sessionId) : null;
+    }
+
+    /**
+     * Write and publish the sessions whose counts changed since the last flush
+     */
+    @Scheduled(fixedDelayString = "${spinwish.presence.publish-interval-ms:1000}")
+    public void publishChangedCounts() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<UUID> changed = new ArrayList<>(dirty);
+        dirty.removeAll(changed);
+
+        List<ListenerCountEvent> events = new ArrayList<>(changed.size());
+        for (UUID sessionId : changed) {
+            Presence presence = presences.get(sessionId);
+            if (presence != null) {
+                events.add(presence.toEvent(sessionId));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> events.forEach(event -> {
+                sessionRepository.setListenerCount(event.getSessionId(), event.getListeners());
+                sessionAnalyticsService.onListenerCount(event.getSessionId(), event.getPeakListeners());
+            }));
+        } catch (Exception e) {
+            dirty.addAll(changed);
+            log.error("Failed to persist listener counts: {}", e.getMessage());
+            return;
+        }
+
+        events.forEach(event -> outbox.publish(
+                "/topic/sessions/" + event.getSessionId() + "/listeners", event.getSessionId(), event));
+    }
+
+    /**
+     * Forget sessions that have had no listeners for a while
+     */
+    @Scheduled(fixedDelayString = "${spinwish.presence.eviction-interval-ms:600000}")
+    public void evictIdleSessions() {
+        long cutoff = System.currentTimeMillis() - IDLE_STATE_MILLIS;
+        presences.entrySet().removeIf(e -> e.getValue().live.get() == 0
+                && e.getValue().lastChange < cutoff
+                && !dirty.contains(e.getKey()));
+    }
+
+    private static final class Presence {
+        final AtomicInteger live = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final HyperLogLog unique = new HyperLogLog();
+        volatile long lastChange = System.currentTimeMillis();
+
+        void join(String listenerKey) {
+            int now = live.incrementAndGet();
+            peak.accumulateAndGet(now, Math::max);
+            unique.add(listenerKey);
+            lastChange = System.currentTimeMillis();
+        }
+
+        void leave() {
+            live.updateAndGet(current -> Math.max(0, current - 1));
+            lastChange = System.currentTimeMillis();
+        }
+
+        ListenerCountEvent toEvent(UUID sessionId) {
+            return new ListenerCountEvent(sessionId, live.get(), peak.get(), unique.estimate());
+        }
+    }
+}
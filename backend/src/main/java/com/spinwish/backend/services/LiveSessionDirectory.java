@@ -0,0 +1,219 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Session;
+import com.spinwish.backend.models.responses.sessions.SessionSummary;
+import com.spinwish.backend.models.responses.users.DJProfile;
+import com.spinwish.backend.repositories.SessionRepository;
+import com.spinwish.backend.repositories.UsersRepository;
+import com.spinwish.backend.utils.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * In-memory directory of open sessions and live DJs behind the discovery endpoints.
+ *
+ * Reads are served from an immutable snapshot. Session and DJ changes invalidate it after
+ * commit and the next read rebuilds it once; a periodic refresh picks up counter updates
+ * that do not go through the services. The snapshot version only moves when the content
+ * changed, so it doubles as the ETag of every list.
+ */
+@Service
+@Slf4j
+public class LiveSessionDirectory {
+
+    private final SessionRepository sessionRepository;
+    private final UsersRepository usersRepository;
+    private final GenreLoader genreLoader;
+    private final TransactionTemplate transactionTemplate;
+
+    // Distinguishes ETags of this instance from those handed out before a restart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong requestedGeneration = new AtomicLong(1);
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public LiveSessionDirectory(SessionRepository sessionRepository,
+                                UsersRepository usersRepository,
+                                GenreLoader genreLoader,
+                                PlatformTransactionManager transactionManager) {
+        this.sessionRepository = sessionRepository;
+        this.usersRepository = usersRepository;
+        this.genreLoader = genreLoader;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public Listing<SessionSummary> live() {
+        Snapshot current = current();
+        return new Listing<>(etag("live", current), current.live);
+    }
+
+    public Listing<SessionSummary> active() {
+        Snapshot current = current();
+        return new Listing<>(etag("active", current), current.active);
+    }
+
+    public Listing<SessionSummary> acceptingRequests() {
+        Snapshot current = current();
+        return new Listing<>(etag("accepting", current), current.accepting);
+    }
+
+    public Listing<SessionSummary> todaysLive() {
+        Snapshot current = current();
+        LocalDate today = LocalDate.now();
+        LocalDateTime startOfDay = today.atStartOfDay();
+        LocalDateTime endOfDay = today.atTime(23, 59, 59);
+        List<SessionSummary> sessions = current.live.stream()
+                .filter(s -> s.getStartTime() != null
+                        && !s.getStartTime().isBefore(startOfDay)
+                        && !s.getStartTime().isAfter(endOfDay))
+                .toList();
+        return new Listing<>(etag("today-" + today, current), sessions);
+    }
+
+    public Listing<DJProfile> liveDjs() {
+        Snapshot current = current();
+        return new Listing<>(etag("djs-live", current), current.liveDjs);
+    }
+
+    /**
+     * Live DJs among the given ones; the ETag covers both the snapshot and the id set
+     */
+    public Listing<DJProfile> liveDjsAmong(Set<UUID> djIds) {
+        Snapshot current = current();
+        List<DJProfile> djs = current.liveDjs.stream()
+                .filter(dj -> djIds.contains(dj.getId()))
+                .toList();
+        return new Listing<>(etag("djs-followed-" + digest(djIds), current), djs);
+    }
+
+    /**
+     * SHA-256 of the sorted ids, so two different follow sets cannot share an ETag the way
+     * colliding hash codes could
+     */
+    private static String digest(Set<UUID> djIds) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        djIds.stream()
+                .sorted()
+                .forEach(id -> sha256.update(id.toString().getBytes(StandardCharsets.US_ASCII)));
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    /**
+     * Mark the directory stale once the surrounding transaction commits
+     */
+    public void invalidate() {
+        AfterCommit.run(requestedGeneration::incrementAndGet);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${spinwish.sessions.directory-refresh-ms:15000}")
+    public void refresh() {
+        requestedGeneration.incrementAndGet();
+        rebuild();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current.generation >= requestedGeneration.get() ? current : rebuild();
+    }
+
+    private synchronized Snapshot rebuild() {
+        // Read before loading, so an invalidation that lands mid-rebuild triggers another one
+        long generation = requestedGeneration.get();
+        Snapshot previous = snapshot;
+        if (previous.generation >= generation) {
+            return previous;
+        }
+
+        Snapshot loaded;
+        try {
+            loaded = transactionTemplate.execute(status -> load(generation, previous));
+        } catch (Exception e) {
+            log.error("Failed to rebuild live session directory: {}", e.getMessage());
+            return previous;
+        }
+        snapshot = loaded;
+        if (loaded.version != previous.version) {
+            log.debug("Live session directory now at version {} with {} open sessions",
+                    loaded.version, loaded.open.size());
+        }
+        return loaded;
+    }
+
+    private Snapshot load(long generation, Snapshot previous) {
+        List<SessionSummary> open = genreLoader.forSessions(sessionRepository.findOpenSummaries());
+        List<DJProfile> liveDjs = genreLoader.forDJs(usersRepository.findLiveDJProfiles());
+
+        // Both lists hold value objects, so equal lists mean an unchanged response
+        List<Object> signature = Stream.concat(open.stream(), liveDjs.stream()).toList();
+        long version = signature.equals(previous.signature) ? previous.version : previous.version + 1;
+        return new Snapshot(generation, version, signature, List.copyOf(open), List.copyOf(liveDjs));
+    }
+
+    private String etag(String list, Snapshot current) {
+        return "\"" + list + "-" + epoch + "-" + current.version + "\"";
+    }
+
+    /**
+     * A list together with the ETag identifying its content
+     */
+    public record Listing<T>(String etag, List<T> items) {
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, 0, List.of(), List.of(), List.of());
+
+        final long generation;
+        final long version;
+        final List<Object> signature;
+        final List<SessionSummary> open;
+        final List<SessionSummary> live;
+        final List<SessionSummary> active;
+        final List<SessionSummary> accepting;
+        final List<DJProfile> liveDjs;
+
+        Snapshot(long generation, long version, List<Object> signature,
+                 List<SessionSummary> open, List<DJProfile> liveDjs) {
+            this.generation = generation;
+            this.version = version;
+            this.signature = signature;
+            this.open = open;
+            this.live = filter(open, s -> s.getStatus() == Session.SessionStatus.LIVE);
+            this.active = filter(open, s -> s.getStatus() == Session.SessionStatus.LIVE
+                    || s.getStatus() == Session.SessionStatus.PREPARING);
+            this.accepting = filter(open, s -> Boolean.TRUE.equals(s.getIsAcceptingRequests()));
+            this.liveDjs = liveDjs;
+        }
+
+        private static List<SessionSummary> filter(List<SessionSummary> sessions, Predicate<SessionSummary> predicate) {
+            return sessions.stream().filter(predicate).toList();
+        }
+    }
+}
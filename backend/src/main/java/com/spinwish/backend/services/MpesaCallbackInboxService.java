@@ -0,0 +1,320 @@
+package com.spinwish.backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spinwish.backend.entities.payments.MpesaCallbackInbox;
+import com.spinwish.backend.models.responses.payments.MpesaCallbackResponse;
+import com.spinwish.backend.monitoring.PaymentMetrics;
+import com.spinwish.backend.repositories.MpesaCallbackInboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable intake of M-Pesa STK callbacks.
+ *
+ * A callback is stored raw in mpesa_callback_inbox and acknowledged straight away; a
+ * bounded worker pool then runs the payment flow for it. Callbacks are keyed by
+ * CheckoutRequestID, so a resent callback is acknowledged but not processed again, and
+ * a callback is marked done in the same transaction that records its payment. Failed
+ * attempts are retried with exponential backoff up to a maximum number of attempts.
+ *
+ * When the inbox table cannot be written, the callback is appended to a local spool
+ * file instead, and moved into the inbox once the database is back.
+ */
+@Service
+@Slf4j
+public class MpesaCallbackInboxService {
+
+    private static final int POLL_BATCH_SIZE = 200;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final MpesaCallbackInboxRepository inboxRepository;
+    private final PaymentService paymentService;
+    private final PaymentMetrics paymentMetrics;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+    private final int maxAttempts;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+    private final long claimTimeoutMs;
+    private final Path spoolPath;
+
+    // Callbacks handed to the pool and not yet picked up, so the poller does not queue them twice
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+
+    public MpesaCallbackInboxService(MpesaCallbackInboxRepository inboxRepository,
+                                     PaymentService paymentService,
+                                     PaymentMetrics paymentMetrics,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${spinwish.mpesa.callback.workers:4}") int workerCount,
+                                     @Value("${spinwish.mpesa.callback.queue-capacity:1000}") int queueCapacity,
+                                     @Value("${spinwish.mpesa.callback.max-attempts:8}") int maxAttempts,
+                                     @Value("${spinwish.mpesa.callback.retry-base-ms:5000}") long retryBaseMs,
+                                     @Value("${spinwish.mpesa.callback.retry-max-ms:600000}") long retryMaxMs,
+                                     @Value("${spinwish.mpesa.callback.claim-timeout-ms:300000}") long claimTimeoutMs,
+                                     @Value("${spinwish.mpesa.callback.spool-path:./data/mpesa-callback-spool.log}") String spoolPath) {
+        this.inboxRepository = inboxRepository;
+        this.paymentService = paymentService;
+        this.paymentMetrics = paymentMetrics;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.spoolPath = Path.of(spoolPath);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "mpesa-callback-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Store a callback for processing. Returns once it is in the inbox or the spool;
+     * throws only when it could be stored in neither.
+     */
+    public void accept(String payload) {
+        try {
+            UUID id = insert(payload);
+            if (id != null) {
+                submit(id);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to store M-Pesa callback in the inbox, spooling it: {}", e.getMessage());
+            spool(List.of(payload));
+        }
+    }
+
+    /**
+     * Queue due callbacks, release claims of dead workers, drain the spool and refresh
+     * the backlog gauges
+     */
+    @Scheduled(fixedDelayString = "${spinwish.mpesa.callback.poll-ms:5000}")
+    public void poll() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Integer released = transactionTemplate.execute(status ->
+                    inboxRepository.releaseClaimsBefore(now.minus(Duration.ofMillis(claimTimeoutMs))));
+            if (released != null && released > 0) {
+                log.warn("Released {} M-Pesa callbacks claimed for over {} ms", released, claimTimeoutMs);
+            }
+
+            List<UUID> due = inboxRepository.findDueIds(now, PageRequest.of(0, POLL_BATCH_SIZE));
+            for (UUID id : due) {
+                submit(id);
+            }
+
+            long pending = inboxRepository.countByStatus(MpesaCallbackInbox.Status.PENDING);
+            LocalDateTime oldest = inboxRepository.findOldestPendingReceivedAt();
+            long oldestAge = oldest != null ? Math.max(0, Duration.between(oldest, now).toSeconds()) : 0;
+            paymentMetrics.recordCallbackInboxBacklog(pending, oldestAge);
+        } catch (Exception e) {
+            log.error("Failed to poll the M-Pesa callback inbox: {}", e.getMessage());
+        }
+        try {
+            drainSpool();
+        } catch (Exception e) {
+            log.error("Failed to drain the M-Pesa callback spool: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Insert a callback; null when its CheckoutRequestID is already in the inbox
+     */
+    private UUID insert(String payload) {
+        String checkoutRequestId = checkoutRequestIdOf(payload);
+        try {
+            MpesaCallbackInbox saved = transactionTemplate.execute(status -> inboxRepository.saveAndFlush(
+                    new MpesaCallbackInbox(checkoutRequestId, payload, LocalDateTime.now())));
+            return saved.getId();
+        } catch (DataIntegrityViolationException e) {
+            log.info("M-Pesa callback for {} is already in the inbox", checkoutRequestId);
+            paymentMetrics.recordCallbackInboxDuplicate();
+            return null;
+        }
+    }
+
+    private void submit(UUID id) {
+        if (!queued.add(id)) {
+            return;
+        }
+        try {
+            workers.execute(() -> process(id));
+        } catch (RejectedExecutionException e) {
+            // Pool is full; the callback stays pending and the poller queues it later
+            queued.remove(id);
+        }
+    }
+
+    private void process(UUID id) {
+        queued.remove(id);
+        Integer claimed = transactionTemplate.execute(status -> inboxRepository.claim(id, LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+        MpesaCallbackInbox entry = inboxRepository.findById(id).orElse(null);
+        if (entry == null) {
+            return;
+        }
+
+        try {
+            MpesaCallbackResponse callback = objectMapper.readValue(entry.getPayload(), MpesaCallbackResponse.class);
+            transactionTemplate.executeWithoutResult(status -> {
+                paymentService.saveMpesaTransaction(callback);
+                inboxRepository.markDone(id, LocalDateTime.now());
+            });
+            paymentMetrics.recordCallbackInboxLag(Duration.between(entry.getReceivedAt(), LocalDateTime.now()), true);
+        } catch (Exception e) {
+            int attempts = entry.getAttempts() + 1;
+            boolean exhausted = attempts >= maxAttempts;
+            MpesaCallbackInbox.Status status = exhausted ? MpesaCallbackInbox.Status.FAILED : MpesaCallbackInbox.Status.PENDING;
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(backoff(attempts)));
+            String error = truncate(e.getMessage());
+            try {
+                transactionTemplate.executeWithoutResult(tx ->
+                        inboxRepository.reschedule(id, status, attempts, nextAttemptAt, error));
+            } catch (Exception rescheduleError) {
+                // The claim times out and the callback is retried
+                log.error("Failed to reschedule M-Pesa callback {}: {}", id, rescheduleError.getMessage());
+            }
+            if (exhausted) {
+                paymentMetrics.recordCallbackInboxLag(Duration.between(entry.getReceivedAt(), LocalDateTime.now()), false);
+                log.error("Giving up on M-Pesa callback {} for {} after {} attempts: {}",
+                        id, entry.getCheckoutRequestId(), attempts, error);
+            } else {
+                log.warn("M-Pesa callback {} for {} failed (attempt {}), retrying at {}: {}",
+                        id, entry.getCheckoutRequestId(), attempts, nextAttemptAt, error);
+            }
+        }
+    }
+
+    private long backoff(int attempts) {
+        long delay = retryBaseMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, retryMaxMs);
+    }
+
+    private String checkoutRequestIdOf(String payload) {
+        try {
+            String id = objectMapper.readTree(payload).path("Body").path("stkCallback").path("CheckoutRequestID").asText(null);
+            return id != null && !id.isBlank() ? id : null;
+        } catch (IOException e) {
+            log.warn("Unparseable M-Pesa callback payload: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Append callbacks to the spool, one base64 line each
+     */
+    private synchronized void spool(List<String> payloads) {
+        StringBuilder lines = new StringBuilder();
+        for (String payload : payloads) {
+            lines.append(Base64.getEncoder().encodeToString(payload.getBytes(StandardCharsets.UTF_8))).append('\n');
+        }
+        try {
+            Path parent = spoolPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(spoolPath, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+            payloads.forEach(payload -> paymentMetrics.recordCallbackSpooled());
+        } catch (IOException e) {
+            log.error("Failed to spool {} M-Pesa callbacks, payloads follow: {}", payloads.size(), payloads);
+            throw new IllegalStateException("M-Pesa callback could not be stored", e);
+        }
+    }
+
+    /**
+     * Move spooled callbacks into the inbox, stopping at the first failure
+     */
+    private void drainSpool() {
+        Path draining = spoolPath.resolveSibling(spoolPath.getFileName() + ".draining");
+        List<String> lines;
+        try {
+            synchronized (this) {
+                if (!Files.exists(draining)) {
+                    if (!Files.exists(spoolPath)) {
+                        return;
+                    }
+                    Files.move(spoolPath, draining, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            lines = Files.readAllLines(draining, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .toList();
+        } catch (IOException e) {
+            log.error("Failed to read the M-Pesa callback spool: {}", e.getMessage());
+            return;
+        }
+
+        int moved = 0;
+        try {
+            for (String line : lines) {
+                String payload = new String(Base64.getDecoder().decode(line), StandardCharsets.UTF_8);
+                UUID id = insert(payload);
+                if (id != null) {
+                    submit(id);
+                }
+                moved++;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Inbox still unavailable, {} spooled M-Pesa callbacks left: {}", lines.size() - moved, e.getMessage());
+            List<String> rest = lines.subList(moved, lines.size()).stream()
+                    .map(line -> new String(Base64.getDecoder().decode(line), StandardCharsets.UTF_8))
+                    .toList();
+            spool(rest);
+        }
+        try {
+            Files.deleteIfExists(draining);
+        } catch (IOException e) {
+            log.error("Failed to remove drained M-Pesa callback spool {}: {}", draining, e.getMessage());
+        }
+        if (moved > 0) {
+            log.info("Moved {} spooled M-Pesa callbacks into the inbox", moved);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
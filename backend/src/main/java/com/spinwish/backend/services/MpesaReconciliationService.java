@@ -1,54 +1,240 @@
 package com.spinwish.backend.services;
 
-import com.spinwish.backend.entities.payments.StkPushSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spinwish.backend.models.responses.payments.MpesaCallbackResponse;
 import com.spinwish.backend.models.responses.payments.MpesaQueryResponse;
+import com.spinwish.backend.monitoring.PaymentMetrics;
 import com.spinwish.backend.repositories.StkPushSessionRepository;
-import lombok.RequiredArgsConstructor;
+import com.spinwish.backend.repositories.StkPushSessionRepository.PendingSession;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Settles STK push sessions whose callback never arrived by querying Safaricom.
+ *
+ * Each run pages through pending sessions by (status, createdAt), skipping sessions still
+ * inside the callback grace window. A session is queried again only after an exponential
+ * backoff on its retryCount and lastUpdated, and expires once it is older than the
+ * deadline. Queries of a page run on a small pool. A failed result is handed to the
+ * callback inbox, so it takes the same idempotent path as a real callback. A query reporting
+ * the payment as done carries no receipt, amount or phone, so it is only noted on the
+ * session: the session stays pending, is not queried again, and is settled by its callback.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class MpesaReconciliationService {
 
+    private static final int PAGE_SIZE = 100;
+
     private final StkPushSessionRepository stkPushSessionRepository;
-    private final PaymentService mpesaCallbackService;
+    private final PaymentService paymentService;
+    private final MpesaCallbackInboxService callbackInbox;
+    private final PaymentMetrics paymentMetrics;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService queries;
+    private final Duration callbackGrace;
+    private final Duration retryBase;
+    private final Duration retryMax;
+    private final Duration deadline;
 
-    @Scheduled(cron = "0 */5 * * * *")
-    public void reconcilePendingTransactions() {
-        List<StkPushSession> pendingSessions = stkPushSessionRepository.findByStatus("PENDING");
+    public MpesaReconciliationService(StkPushSessionRepository stkPushSessionRepository,
+                                      PaymentService paymentService,
+                                      MpesaCallbackInboxService callbackInbox,
+                                      PaymentMetrics paymentMetrics,
+                                      ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${spinwish.mpesa.reconciliation.parallelism:4}") int parallelism,
+                                      @Value("${spinwish.mpesa.reconciliation.callback-grace-ms:120000}") long callbackGraceMs,
+                                      @Value("${spinwish.mpesa.reconciliation.retry-base-ms:300000}") long retryBaseMs,
+                                      @Value("${spinwish.mpesa.reconciliation.retry-max-ms:3600000}") long retryMaxMs,
+                                      @Value("${spinwish.mpesa.reconciliation.deadline-ms:86400000}") long deadlineMs) {
+        this.stkPushSessionRepository = stkPushSessionRepository;
+        this.paymentService = paymentService;
+        this.callbackInbox = callbackInbox;
+        this.paymentMetrics = paymentMetrics;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.callbackGrace = Duration.ofMillis(callbackGraceMs);
+        this.retryBase = Duration.ofMillis(retryBaseMs);
+        this.retryMax = Duration.ofMillis(retryMaxMs);
+        this.deadline = Duration.ofMillis(deadlineMs);
 
-        for (StkPushSession session : pendingSessions) {
-            try {
-                log.info("Reconciling STK push session: {}", session.getCheckoutRequestId());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.queries = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "mpesa-reconcile-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-                MpesaQueryResponse queryResponse = mpesaCallbackService.queryStkPushStatus(session.getCheckoutRequestId());
+    @Scheduled(cron = "${spinwish.mpesa.reconciliation.cron:0 */5 * * * *}")
+    public void reconcilePendingTransactions() {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(callbackGrace);
+        Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+        long backlog = 0;
+
+        try {
+            backlog = stkPushSessionRepository.countByStatus("PENDING");
+            List<PendingSession> page = stkPushSessionRepository.findPendingPage(cutoff, PageRequest.of(0, PAGE_SIZE));
+            while (!page.isEmpty()) {
+                for (Outcome outcome : reconcilePage(page, now)) {
+                    outcomes.merge(outcome, 1, Integer::sum);
+                    paymentMetrics.recordReconciliationOutcome(outcome.name().toLowerCase(Locale.ROOT));
+                }
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                PendingSession last = page.get(page.size() - 1);
+                page = stkPushSessionRepository.findPendingPageAfter(cutoff, last.getCreatedAt(), last.getId(),
+                        PageRequest.of(0, PAGE_SIZE));
+            }
+        } catch (Exception e) {
+            log.error("STK reconciliation run failed: {}", e.getMessage(), e);
+        } finally {
+            Duration took = Duration.ofNanos(System.nanoTime() - started);
+            paymentMetrics.recordReconciliationRun(took, backlog);
+            log.info("STK reconciliation: {} pending, {} in {} ms", backlog, outcomes, took.toMillis());
+        }
+    }
 
-                if (queryResponse.getResultCode() == 0) {
-                    log.info("Payment confirmed for {}", session.getCheckoutRequestId());
+    @PreDestroy
+    public void shutdown() {
+        queries.shutdownNow();
+    }
 
-                    // Simulate a callback
-                    MpesaCallbackResponse simulatedCallback = mpesaCallbackService.buildCallbackFromQuery(queryResponse, session);
+    private List<Outcome> reconcilePage(List<PendingSession> page, LocalDateTime now) throws InterruptedException {
+        List<Outcome> outcomes = new ArrayList<>(page.size());
+        List<Future<Outcome>> running = new ArrayList<>();
+        for (PendingSession session : page) {
+            if (session.getCreatedAt().isBefore(now.minus(deadline))) {
+                outcomes.add(expire(session, now));
+            } else if (isConfirmed(session)) {
+                outcomes.add(Outcome.AWAITING_CALLBACK);
+            } else if (!isDue(session, now)) {
+                outcomes.add(Outcome.BACKING_OFF);
+            } else {
+                running.add(queries.submit(() -> reconcile(session)));
+            }
+        }
+        for (Future<Outcome> future : running) {
+            try {
+                outcomes.add(future.get());
+            } catch (ExecutionException e) {
+                log.error("Failed to reconcile STK session: {}", e.getCause().getMessage());
+                outcomes.add(Outcome.ERROR);
+            }
+        }
+        return outcomes;
+    }
 
-                    // Use existing logic to persist it
-                    mpesaCallbackService.saveMpesaTransaction(simulatedCallback);
+    /**
+     * Whether the backoff since the last query has passed: retryBase doubled per earlier
+     * query, capped at retryMax
+     */
+    private boolean isDue(PendingSession session, LocalDateTime now) {
+        if (session.getLastUpdated() == null) {
+            return true;
+        }
+        int retries = session.getRetryCount() != null ? session.getRetryCount() : 0;
+        Duration backoff = retryBase.multipliedBy(1L << Math.min(Math.max(retries - 1, 0), 20));
+        if (backoff.compareTo(retryMax) > 0) {
+            backoff = retryMax;
+        }
+        return !now.isBefore(session.getLastUpdated().plus(backoff));
+    }
 
-                    // Update session status
-                    session.setStatus("SUCCESS");
-                } else if (queryResponse.getResultCode() != 0 && !queryResponse.getResultDesc().toLowerCase().contains("pending")) {
-                    log.warn("Payment failed or expired for {}", session.getCheckoutRequestId());
-                    session.setStatus("FAILED");
-                }
+    private Outcome reconcile(PendingSession session) {
+        String checkoutRequestId = session.getCheckoutRequestId();
+        Outcome outcome;
+        try {
+            MpesaQueryResponse query = paymentService.queryStkPushStatus(checkoutRequestId);
+            if (query.getResultCode() == 0) {
+                // Without a receipt this cannot record the payment, and fed to the inbox it would
+                // take the callback's key and have the real callback dropped as a duplicate
+                transactionTemplate.executeWithoutResult(status -> stkPushSessionRepository.recordQueryConfirmed(
+                        session.getId(), query.getResultDesc(), LocalDateTime.now()));
+                log.info("STK session {} confirmed by query, waiting for its callback", checkoutRequestId);
+                return Outcome.CONFIRMED;
+            }
+            if (isStillProcessing(query)) {
+                outcome = Outcome.STILL_PENDING;
+            } else {
+                MpesaCallbackResponse callback = paymentService.buildCallbackFromQuery(query);
+                callback.getBody().getStkCallback().setCheckoutRequestID(checkoutRequestId);
+                callbackInbox.accept(objectMapper.writeValueAsString(callback));
+                outcome = Outcome.FAILED;
+                log.info("STK session {} settled by query with result {}", checkoutRequestId, query.getResultCode());
+            }
+        } catch (Exception e) {
+            // Daraja answers queries of transactions still in progress with an error status
+            log.debug("STK query for {} failed: {}", checkoutRequestId, e.getMessage());
+            outcome = Outcome.ERROR;
+        }
+        // Settled sessions stay pending until the inbox processes them; back them off too
+        transactionTemplate.executeWithoutResult(status ->
+                stkPushSessionRepository.recordQueryAttempt(session.getId(), LocalDateTime.now()));
+        return outcome;
+    }
 
-                stkPushSessionRepository.save(session);
-            } catch (Exception e) {
-                log.error("Error reconciling checkout ID {}: {}", session.getCheckoutRequestId(), e.getMessage());
+    /**
+     * Expires a session that is still pending at the deadline. One confirmed by query was paid
+     * but has no payment row, so it keeps its result code and is logged for follow-up; its
+     * callback still records the payment if it arrives later.
+     */
+    private Outcome expire(PendingSession session, LocalDateTime now) {
+        boolean confirmed = isConfirmed(session);
+        String reason = confirmed
+                ? "Confirmed by query, no callback within " + deadline.toHours() + " h"
+                : "No result within " + deadline.toHours() + " h";
+        Integer expired = transactionTemplate.execute(status -> stkPushSessionRepository.expire(session.getId(), reason, now));
+        if (expired != null && expired > 0) {
+            if (confirmed) {
+                log.error("STK session {} was confirmed paid by query but its callback never arrived",
+                        session.getCheckoutRequestId());
+            } else {
+                log.warn("STK session {} expired after {} queries", session.getCheckoutRequestId(), session.getRetryCount());
             }
         }
+        return Outcome.EXPIRED;
+    }
+
+    private static boolean isConfirmed(PendingSession session) {
+        return session.getResultCode() != null && session.getResultCode() == 0;
+    }
+
+    private static boolean isStillProcessing(MpesaQueryResponse query) {
+        return query.getResultDesc() != null && query.getResultDesc().toLowerCase(Locale.ROOT).contains("pending");
+    }
+
+    private enum Outcome {
+        CONFIRMED,
+        AWAITING_CALLBACK,
+        FAILED,
+        STILL_PENDING,
+        BACKING_OFF,
+        EXPIRED,
+        ERROR
     }
 }
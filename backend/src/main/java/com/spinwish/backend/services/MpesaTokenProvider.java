@@ -0,0 +1,143 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.config.MpesaConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cached Daraja OAuth token.
+ *
+ * A token is reused until it expires, per the expires_in of the token response. A
+ * scheduled check fetches the next token once the current one is within the refresh
+ * margin of expiry, so callers normally never wait for one. Callers that do need a new
+ * token (none cached, expired, or rejected with a 401) share a single fetch.
+ */
+@Component
+@Slf4j
+public class MpesaTokenProvider {
+
+    // Daraja tokens live for an hour; used when a response omits expires_in
+    private static final long DEFAULT_EXPIRES_IN_SECONDS = 3599;
+
+    private final MpesaConfig mpesaConfig;
+    private final DarajaClient darajaClient;
+
+    private volatile Token token;
+    private final AtomicReference<CompletableFuture<Token>> inFlight = new AtomicReference<>();
+
+    public MpesaTokenProvider(MpesaConfig mpesaConfig, DarajaClient darajaClient) {
+        this.mpesaConfig = mpesaConfig;
+        this.darajaClient = darajaClient;
+    }
+
+    /**
+     * A valid access token, fetched only when none is cached or it has expired
+     */
+    public String getToken() throws IOException {
+        Token current = token;
+        if (current != null && !current.isExpired(Instant.now())) {
+            return current.value;
+        }
+        return refresh(current).value;
+    }
+
+    /**
+     * A new access token after Daraja rejected the given one. Callers rejected with the
+     * same token share one fetch; a token fetched since is returned as is.
+     */
+    public String refreshAfterRejection(String rejected) throws IOException {
+        Token current = token;
+        if (current != null && !current.value.equals(rejected) && !current.isExpired(Instant.now())) {
+            return current.value;
+        }
+        return refresh(current).value;
+    }
+
+    /**
+     * Fetch the next token ahead of expiry. Nothing is fetched before the first payment
+     * call, so an idle instance does not poll Daraja.
+     */
+    @Scheduled(fixedDelayString = "${mpesa.token.refresh-check-ms:30000}")
+    public void refreshAhead() {
+        Token current = token;
+        Duration margin = Duration.ofMillis(mpesaConfig.getToken().getRefreshMarginMs());
+        if (current == null || Instant.now().plus(margin).isBefore(current.expiresAt)) {
+            return;
+        }
+        try {
+            refresh(current);
+        } catch (IOException e) {
+            log.warn("Failed to refresh M-Pesa access token ahead of expiry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the stale token, or wait for the fetch another caller already started
+     */
+    private Token refresh(Token stale) throws IOException {
+        CompletableFuture<Token> mine = new CompletableFuture<>();
+        CompletableFuture<Token> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Token current = token;
+            Token fetched = current != stale && current != null && !current.isExpired(Instant.now())
+                    ? current
+                    : fetch();
+            token = fetched;
+            mine.complete(fetched);
+            return fetched;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private Token fetch() throws IOException {
+        String credentials = mpesaConfig.getConsumerKey() + ":" + mpesaConfig.getConsumerSecret();
+        String encoded = Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+
+        JSONObject json = darajaClient.get("oauth_token", mpesaConfig.getTokenUrl(), "Basic " + encoded);
+        long expiresIn = json.optLong("expires_in", DEFAULT_EXPIRES_IN_SECONDS);
+        log.debug("Fetched M-Pesa access token valid for {} s", expiresIn);
+        return new Token(json.getString("access_token"), Instant.now().plusSeconds(expiresIn));
+    }
+
+    private Token await(CompletableFuture<Token> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for M-Pesa access token");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Failed to fetch M-Pesa access token", e.getCause());
+        }
+    }
+
+    private record Token(String value, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+}
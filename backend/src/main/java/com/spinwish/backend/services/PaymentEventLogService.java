@@ -2,10 +2,10 @@ package com.spinwish.backend.services;
 
 import com.spinwish.backend.entities.payments.PaymentEventLog;
 import com.spinwish.backend.repositories.PaymentEventLogRepository;
+import com.spinwish.backend.utils.AfterCommit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,18 +22,17 @@ public class PaymentEventLogService {
     
     @Autowired
     private PaymentEventLogRepository eventLogRepository;
+
+    @Autowired
+    private PaymentEventLogWriter eventLogWriter;
     
     /**
-     * Log a payment event.
+     * Log a payment event. Inside a transaction it is queued once that commits, so a rolled
+     * back change leaves no trace; it is then written with the next batch, and queries see it
+     * within about one flush interval.
      */
-    @Transactional
-    public PaymentEventLog logEvent(PaymentEventLog event) {
-        try {
-            return eventLogRepository.save(event);
-        } catch (Exception e) {
-            log.error("Failed to save payment event log: {}", e.getMessage(), e);
-            return null;
-        }
+    public void logEvent(PaymentEventLog event) {
+        AfterCommit.run(() -> eventLogWriter.write(event));
     }
     
     /**
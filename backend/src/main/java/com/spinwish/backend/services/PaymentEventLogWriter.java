@@ -0,0 +1,248 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.payments.PaymentEventLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind buffer for payment event logs.
+ *
+ * Callers enqueue events on a lock-free bounded queue and return. A writer thread inserts
+ * them as JDBC batches once batch-size events are waiting or flush-interval-ms has passed,
+ * so a logged event is queryable within about one flush interval. When the buffer is full
+ * the overflow policy applies: BLOCK waits up to offer-timeout-ms for room, CALLER_RUNS
+ * writes the event on the caller's thread, DROP discards it. The buffer is drained on
+ * shutdown.
+ */
+@Component
+@Slf4j
+public class PaymentEventLogWriter {
+
+    public enum OverflowPolicy {
+        BLOCK,
+        CALLER_RUNS,
+        DROP
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutNanos;
+
+    private final ConcurrentLinkedQueue<PaymentEventLog> buffer = new ConcurrentLinkedQueue<>();
+    // Slots taken in the buffer, reserved before an event is added
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile boolean running = true;
+    private Thread writer;
+
+    private final Timer flushDuration;
+    private final DistributionSummary batchSizes;
+    private final Counter written;
+    private final Counter droppedOverflow;
+    private final Counter droppedWriteFailed;
+    private final Counter callerRuns;
+
+    public PaymentEventLogWriter(PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spinwish.payments.event-log.capacity:10000}") int capacity,
+                                 @Value("${spinwish.payments.event-log.batch-size:100}") int batchSize,
+                                 @Value("${spinwish.payments.event-log.flush-interval-ms:200}") long flushIntervalMs,
+                                 @Value("${spinwish.payments.event-log.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                                 @Value("${spinwish.payments.event-log.offer-timeout-ms:50}") long offerTimeoutMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // CALLER_RUNS writes can come from inside a caller's transaction; never join it
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+
+        this.flushDuration = Timer.builder("payment.event_log.flush.duration")
+                .description("Time to insert one batch of payment event logs")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("payment.event_log.flush.batch_size")
+                .description("Payment event logs inserted per batch")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.written = Counter.builder("payment.event_log.written")
+                .description("Payment event logs inserted")
+                .register(meterRegistry);
+        this.droppedOverflow = droppedCounter(meterRegistry, "overflow");
+        this.droppedWriteFailed = droppedCounter(meterRegistry, "write_failed");
+        this.callerRuns = Counter.builder("payment.event_log.caller_runs")
+                .description("Payment event logs written on the caller's thread because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("payment.event_log.buffered", size, AtomicInteger::get)
+                .description("Payment event logs waiting to be written")
+                .register(meterRegistry);
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("payment.event_log.dropped")
+                .description("Payment event logs never written")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = new Thread(this::run, "payment-event-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (size.get() > 0) {
+            log.warn("{} payment event logs not written at shutdown", size.get());
+        }
+    }
+
+    /**
+     * Queue an event for the next batch, applying the overflow policy when the buffer is full
+     */
+    public void write(PaymentEventLog event) {
+        if (!running) {
+            writeDirect(event);
+            return;
+        }
+        if (tryReserve()) {
+            enqueue(event);
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                long deadline = System.nanoTime() + offerTimeoutNanos;
+                while (!tryReserve()) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        droppedOverflow.increment();
+                        log.warn("Payment event log buffer full, dropped {} event for {}",
+                                event.getEventType(), event.getCheckoutRequestId());
+                        return;
+                    }
+                    LockSupport.unpark(writer);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+                enqueue(event);
+            }
+            case CALLER_RUNS -> {
+                callerRuns.increment();
+                writeDirect(event);
+            }
+            case DROP -> droppedOverflow.increment();
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void enqueue(PaymentEventLog event) {
+        buffer.offer(event);
+        if (size.get() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void run() {
+        while (running || !buffer.isEmpty()) {
+            if (running && size.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flushBuffered();
+        }
+    }
+
+    /**
+     * Write everything buffered, batch by batch
+     */
+    private void flushBuffered() {
+        List<PaymentEventLog> batch = new ArrayList<>(batchSize);
+        PaymentEventLog event;
+        while ((event = buffer.poll()) != null) {
+            batch.add(event);
+            if (batch.size() == batchSize) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<PaymentEventLog> batch) {
+        size.addAndGet(-batch.size());
+        try {
+            writeNow(batch);
+        } catch (Exception e) {
+            // Find the rows that fail on their own rather than losing the whole batch
+            log.warn("Failed to write batch of {} payment event logs, retrying one by one: {}", batch.size(), e.getMessage());
+            for (PaymentEventLog event : batch) {
+                event.setId(null);
+                writeDirect(event);
+            }
+        }
+    }
+
+    // Failures are logged and counted; losing an audit row must not fail a payment
+    private void writeDirect(PaymentEventLog event) {
+        try {
+            writeNow(List.of(event));
+        } catch (Exception e) {
+            droppedWriteFailed.increment();
+            log.error("Failed to save payment event log for {}: {}", event.getCheckoutRequestId(), e.getMessage());
+        }
+    }
+
+    private void writeNow(List<PaymentEventLog> events) {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            events.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        flushDuration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        batchSizes.record(events.size());
+        written.increment(events.size());
+    }
+}
@@ -12,22 +12,20 @@ import com.spinwish.backend.models.requests.payments.MpesaRequest;
 import com.spinwish.backend.models.responses.payments.MpesaCallbackResponse;
 import com.spinwish.backend.models.responses.payments.MpesaQueryResponse;
 import com.spinwish.backend.models.responses.payments.PaymentResponse;
+import com.spinwish.backend.models.responses.pagination.CursorPage;
 import com.spinwish.backend.repositories.*;
+import com.spinwish.backend.utils.KeysetCursor;
 import com.spinwish.backend.utils.MpesaValidationUtils;
 import com.spinwish.backend.monitoring.PaymentMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
-import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -69,6 +67,24 @@ public class PaymentService {
     @Autowired
     private PaymentEventLogService eventLogService;
 
+    @Autowired
+    private DJLeaderboards leaderboards;
+
+    @Autowired
+    private DJStatsService djStatsService;
+
+    @Autowired
+    private EarningsLedgerService earningsLedgerService;
+
+    @Autowired
+    private DarajaClient darajaClient;
+
+    @Autowired
+    private MpesaTokenProvider tokenProvider;
+
+    @Autowired
+    private ProcessedReceipts processedReceipts;
+
     public PaymentService(MpesaConfig mpesaConfig) {
         this.mpesaConfig = mpesaConfig;
     }
@@ -95,8 +111,6 @@ public class PaymentService {
                 throw new MpesaException.ValidationException("User not found");
             }
 
-            String accessToken = getAccessToken();
-
         JSONObject payload = new JSONObject();
         payload.put("BusinessShortCode", mpesaConfig.getShortCode());
         payload.put("Password", generatePassword());
@@ -134,21 +148,9 @@ public class PaymentService {
         payload.put("TransactionDesc", transactionDesc);
 
         // Send request to Safaricom
-        HttpURLConnection conn = (HttpURLConnection) new URL(mpesaConfig.getBaseUrl()).openConnection();
-        conn.setRequestMethod("POST");
-        conn.setDoOutput(true);
-        conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.getOutputStream().write(payload.toString().getBytes());
-
-        BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        StringBuilder response = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            response.append(line);
-        }
+        String response = postAuthorized("stk_push", mpesaConfig.getBaseUrl(), payload);
 
-        JSONObject json = new JSONObject(response.toString());
+        JSONObject json = new JSONObject(response);
         String checkoutRequestId = json.getString("CheckoutRequestID");
 
         // Save STK Push Session
@@ -157,9 +159,11 @@ public class PaymentService {
         session.setAmount(Double.valueOf(mpesaRequest.getAmount()));
         session.setPayer(payer);
         stkPushSessionRepository.save(session);
+        eventLogService.logInitiation(checkoutRequestId, paymentType, session.getAmount(),
+                session.getPhoneNumber(), payer.getId());
 
         paymentMetrics.stopStkPushTimer(timer, true);
-        return response.toString();
+        return response;
 
         } catch (SocketTimeoutException e) {
             paymentMetrics.stopStkPushTimer(timer, false);
@@ -223,21 +227,23 @@ public class PaymentService {
     }
 
     public String getAccessToken() throws IOException {
-        String credentials = mpesaConfig.getConsumerKey() + ":" + mpesaConfig.getConsumerSecret();
-        String encoded = Base64.getEncoder().encodeToString(credentials.getBytes());
-
-        HttpURLConnection conn = (HttpURLConnection) new URL(mpesaConfig.getTokenUrl()).openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Authorization", "Basic " + encoded);
-
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-            StringBuilder result = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                result.append(line);
+        return tokenProvider.getToken();
+    }
+
+    /**
+     * POST to Daraja with the cached token, fetching a new one once if it is rejected
+     */
+    private String postAuthorized(String operation, String url, JSONObject payload) throws IOException {
+        String accessToken = tokenProvider.getToken();
+        try {
+            return darajaClient.post(operation, url, "Bearer " + accessToken, payload);
+        } catch (DarajaClient.StatusException e) {
+            if (e.getStatus() != 401) {
+                throw e;
             }
-            JSONObject json = new JSONObject(result.toString());
-            return json.getString("access_token");
+            log.warn("M-Pesa rejected the access token for {}, fetching a new one", operation);
+            accessToken = tokenProvider.refreshAfterRejection(accessToken);
+            return darajaClient.post(operation, url, "Bearer " + accessToken, payload);
         }
     }
 
@@ -255,17 +261,27 @@ public class PaymentService {
 
             log.info("📲 Received STK Callback: {}", callback);
 
+            // One session lookup serves the status update, the payment type and the payment
+            Optional<StkPushSession> sessionOpt =
+                    stkPushSessionRepository.findByCheckoutRequestId(callback.getCheckoutRequestID());
+            if (sessionOpt.isEmpty()) {
+                // pushStk may not have committed the session yet; failing leaves the callback to be retried
+                throw new MpesaException("No STK session found for checkout ID: " + callback.getCheckoutRequestID());
+            }
+
             // Update session status first
-            updateSessionStatus(callback.getCheckoutRequestID(), callback.getResultCode());
+            updateSessionStatus(sessionOpt, callback.getCheckoutRequestID(), callback.getResultCode());
 
             // Handle failed transactions
             if (callback.getResultCode() != 0) {
-                String paymentType = determinePaymentType(callback.getCheckoutRequestID());
+                String paymentType = determinePaymentType(sessionOpt);
                 if (callback.getResultCode() == 1032) {
                     paymentMetrics.recordPaymentCancelled(paymentType);
                 } else {
                     paymentMetrics.recordPaymentFailed(paymentType, String.valueOf(callback.getResultCode()));
                 }
+                eventLogService.logFailure(callback.getCheckoutRequestID(), paymentType,
+                        callback.getResultCode(), callback.getResultDesc());
                 log.warn("❌ Transaction failed: {}", callback.getResultDesc());
                 paymentMetrics.stopCallbackProcessingTimer(timer, true);
                 return;
@@ -284,9 +300,10 @@ public class PaymentService {
             }
         }
 
+        // Failing keeps an unusable callback in the inbox, retried and then FAILED, instead of marking it done
         if (receipt == null || phone == null || transDate == null || amount == null) {
-            log.error("⚠️ Incomplete STK metadata: receipt={}, phone={}, date={}, amount={}", receipt, phone, transDate, amount);
-            return;
+            throw new MpesaException.CallbackValidationException(String.format(
+                    "Incomplete STK metadata: receipt=%s, phone=%s, date=%s, amount=%s", receipt, phone, transDate, amount));
         }
 
         String checkoutId = callback.getCheckoutRequestID();
@@ -294,13 +311,13 @@ public class PaymentService {
         try {
             date = LocalDateTime.parse(transDate, DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
         } catch (Exception e) {
-            log.error("❌ Failed to parse transaction date: {}", transDate, e);
-            return;
+            throw new MpesaException.CallbackValidationException("Unparseable transaction date: " + transDate);
         }
 
-        Optional<StkPushSession> sessionOpt = stkPushSessionRepository.findByCheckoutRequestId(checkoutId);
-        if (sessionOpt.isEmpty()) {
-            log.error("❌ No STK session found for checkout ID: {}", checkoutId);
+        // A recorded receipt means a redelivered callback; the insert below catches one recorded concurrently
+        if (isReceiptRecorded(receipt)) {
+            log.info("Receipt {} for checkout ID {} already recorded, skipping", receipt, checkoutId);
+            paymentMetrics.stopCallbackProcessingTimer(timer, true);
             return;
         }
 
@@ -317,8 +334,18 @@ public class PaymentService {
             payment.setPayerName(session.getPayer() != null ? session.getPayer().getActualUsername() : "M-Pesa User");
             payment.setRequest(session.getRequest());
 
-            requestsPaymentRepository.save(payment);
+            if (!requestsPaymentRepository.insertIfReceiptAbsent(payment)) {
+                skipRecordedReceipt(receipt, checkoutId, timer);
+                return;
+            }
+            processedReceipts.remember(receipt);
+            leaderboards.onPayment(session.getRequest().getDjId(), amount, date);
+            djStatsService.onActivity(session.getRequest().getDjId());
+            // A late callback can be dated on a day already rolled up
+            djStatsService.onPayment(session.getRequest().getDjId(), date);
+            earningsLedgerService.onPayment(session.getRequest().getDjId(), date);
             paymentMetrics.recordPaymentCompleted("REQUEST", amount);
+            eventLogService.logCompletion(checkoutId, "REQUEST", amount, callback.getResultCode(), callback.getResultDesc());
             log.info("💾 Saved request payment for request ID {}", session.getRequest().getId());
 
         } else if (session.getDj() != null) {
@@ -331,12 +358,22 @@ public class PaymentService {
             tip.setPayerName(session.getPayer() != null ? session.getPayer().getActualUsername() : "M-Pesa User");
             tip.setDj(session.getDj());
 
-            tipPaymentsRepository.save(tip);
+            if (!tipPaymentsRepository.insertIfReceiptAbsent(tip)) {
+                skipRecordedReceipt(receipt, checkoutId, timer);
+                return;
+            }
+            processedReceipts.remember(receipt);
+            leaderboards.onPayment(session.getDj().getId(), amount, date);
+            djStatsService.onActivity(session.getDj().getId());
+            djStatsService.onPayment(session.getDj().getId(), date);
+            earningsLedgerService.onPayment(session.getDj().getId(), date);
             paymentMetrics.recordPaymentCompleted("TIP", amount);
+            eventLogService.logCompletion(checkoutId, "TIP", amount, callback.getResultCode(), callback.getResultDesc());
             log.info("💾 Saved tip payment for DJ ID {}", session.getDj().getId());
 
         } else {
-            log.error("⚠️ STK session found but neither request nor DJ is set. Session ID: {}", session.getId());
+            throw new MpesaException.CallbackValidationException(
+                    "STK session " + session.getId() + " has neither a request nor a DJ");
         }
 
         paymentMetrics.stopCallbackProcessingTimer(timer, true);
@@ -346,8 +383,34 @@ public class PaymentService {
             paymentMetrics.stopCallbackProcessingTimer(timer, false);
             paymentMetrics.recordCallbackProcessed(false);
             log.error("Error processing M-Pesa callback: {}", e.getMessage(), e);
-            throw new MpesaException("Failed to process payment callback", e);
+            throw new MpesaException("Failed to process payment callback: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether a receipt is already recorded, checking recent receipts before the database
+     */
+    private boolean isReceiptRecorded(String receipt) {
+        if (processedReceipts.contains(receipt)) {
+            paymentMetrics.recordDuplicateReceipt("cache");
+            return true;
         }
+        if (requestsPaymentRepository.existsByReceiptNumber(receipt) || tipPaymentsRepository.existsByReceiptNumber(receipt)) {
+            processedReceipts.remember(receipt);
+            paymentMetrics.recordDuplicateReceipt("database");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * A concurrent delivery of the same callback recorded the receipt between the check and the insert
+     */
+    private void skipRecordedReceipt(String receipt, String checkoutId, long timer) {
+        processedReceipts.remember(receipt);
+        paymentMetrics.recordDuplicateReceipt("insert");
+        log.info("Receipt {} for checkout ID {} recorded concurrently, skipping", receipt, checkoutId);
+        paymentMetrics.stopCallbackProcessingTimer(timer, true);
     }
 
     /**
@@ -369,13 +432,11 @@ public class PaymentService {
     /**
      * Update STK push session status
      */
-    private void updateSessionStatus(String checkoutRequestId, int resultCode) {
-        Optional<StkPushSession> sessionOpt = stkPushSessionRepository.findByCheckoutRequestId(checkoutRequestId);
-
+    private void updateSessionStatus(Optional<StkPushSession> sessionOpt, String checkoutRequestId, int resultCode) {
         if (sessionOpt.isPresent()) {
             StkPushSession session = sessionOpt.get();
             String status = resultCode == 0 ? "COMPLETED" : "FAILED";
-            session.setStatus(status);
+            session.updateStatus(status);
             stkPushSessionRepository.save(session);
 
             log.info("Updated session status to {} for checkout ID: {}", status, checkoutRequestId);
@@ -385,10 +446,9 @@ public class PaymentService {
     }
 
     /**
-     * Determine payment type from checkout request ID
+     * Determine payment type from the STK push session
      */
-    private String determinePaymentType(String checkoutRequestId) {
-        Optional<StkPushSession> sessionOpt = stkPushSessionRepository.findByCheckoutRequestId(checkoutRequestId);
+    private String determinePaymentType(Optional<StkPushSession> sessionOpt) {
         if (sessionOpt.isPresent()) {
             StkPushSession session = sessionOpt.get();
             return session.getRequest() != null ? "REQUEST" : "TIP";
@@ -397,34 +457,14 @@ public class PaymentService {
     }
 
     public MpesaQueryResponse queryStkPushStatus(String checkoutRequestId) throws IOException {
-        String accessToken = getAccessToken();
-
-        HttpURLConnection conn = (HttpURLConnection) new URL(mpesaConfig.getStkQueryUrl()).openConnection();
-        conn.setRequestMethod("POST");
-        conn.setDoOutput(true);
-        conn.setRequestProperty("Authorization", "Bearer " + accessToken);
-        conn.setRequestProperty("Content-Type", "application/json");
-
         JSONObject payload = new JSONObject();
         payload.put("BusinessShortCode", mpesaConfig.getShortCode());
         payload.put("Password", generatePassword());
         payload.put("Timestamp", getTimestamp());
         payload.put("CheckoutRequestID", checkoutRequestId);
 
-        try (OutputStream os = conn.getOutputStream()) {
-            os.write(payload.toString().getBytes());
-        }
-
-        StringBuilder response;
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-            response = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) {
-                response.append(line);
-            }
-        }
-
-        return new ObjectMapper().readValue(response.toString(), MpesaQueryResponse.class);
+        String response = postAuthorized("stk_query", mpesaConfig.getStkQueryUrl(), payload);
+        return new ObjectMapper().readValue(response, MpesaQueryResponse.class);
     }
 
     public MpesaCallbackResponse queryStkPush(String checkoutRequestId) throws IOException {
@@ -434,14 +474,12 @@ public class PaymentService {
             throw new RuntimeException("No STK session found for checkout ID: " + checkoutRequestId);
         }
 
-        StkPushSession session = sessionOpt.get();
-
-        MpesaQueryResponse queryResponse = queryStkPushStatus(checkoutRequestId); // You should already have this client built
-        return buildCallbackFromQuery(queryResponse, session); // Reuse the builder method we worked on
+        MpesaQueryResponse queryResponse = queryStkPushStatus(checkoutRequestId);
+        return buildCallbackFromQuery(queryResponse);
     }
 
 
-    public MpesaCallbackResponse buildCallbackFromQuery(MpesaQueryResponse query, StkPushSession session) {
+    public MpesaCallbackResponse buildCallbackFromQuery(MpesaQueryResponse query) {
         MpesaCallbackResponse response = new MpesaCallbackResponse();
 
         // Use the nested Item class
@@ -477,23 +515,43 @@ public class PaymentService {
         return response;
     }
 
-    public List<PaymentResponse> getAllPayments() {
-        List<RequestsPayment> requestPayments = requestsPaymentRepository.findAll();
-        List<TipPayments> tipPayments = tipPaymentsRepository.findAll();
-
-        List<PaymentResponse> requestResponses = requestPayments.stream()
-                .map(this::convertRequestToResponse)
-                .toList();
+    /**
+     * Request and tip payments merged newest first. Both tables are read with the same
+     * (transactionDate, id) cursor, so at most limit + 1 rows come from each.
+     */
+    public CursorPage<PaymentResponse> getAllPayments(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        PageRequest firstRows = PageRequest.of(0, limit + 1);
+        List<RequestsPayment> requestPayments = requestsPaymentRepository.findPage(after.getTimestamp(), after.getId(), firstRows);
+        List<TipPayments> tipPayments = tipPaymentsRepository.findPage(after.getTimestamp(), after.getId(), firstRows);
+
+        List<Object> merged = new ArrayList<>(requestPayments.size() + tipPayments.size());
+        int r = 0;
+        int t = 0;
+        while (merged.size() <= limit && (r < requestPayments.size() || t < tipPayments.size())) {
+            boolean takeRequest;
+            if (t >= tipPayments.size()) {
+                takeRequest = true;
+            } else if (r >= requestPayments.size()) {
+                takeRequest = false;
+            } else {
+                RequestsPayment rp = requestPayments.get(r);
+                TipPayments tp = tipPayments.get(t);
+                takeRequest = KeysetCursor.compareDescending(rp.getTransactionDate(), rp.getId(),
+                        tp.getTransactionDate(), tp.getId()) <= 0;
+            }
+            merged.add(takeRequest ? requestPayments.get(r++) : tipPayments.get(t++));
+        }
 
-        List<PaymentResponse> tipResponses = tipPayments.stream()
-                .map(this::convertTipToResponse)
+        CursorPage<Object> page = KeysetCursor.slice(merged, limit, payment -> payment instanceof RequestsPayment rp
+                ? new KeysetCursor(rp.getTransactionDate(), rp.getId())
+                : new KeysetCursor(((TipPayments) payment).getTransactionDate(), ((TipPayments) payment).getId()));
+        List<PaymentResponse> responses = page.getItems().stream()
+                .map(payment -> payment instanceof RequestsPayment rp
+                        ? convertRequestToResponse(rp)
+                        : convertTipToResponse((TipPayments) payment))
                 .toList();
-
-        List<PaymentResponse> allResponses = new ArrayList<>();
-        allResponses.addAll(requestResponses);
-        allResponses.addAll(tipResponses);
-
-        return allResponses;
+        return page.withItems(responses);
     }
 
 
@@ -622,6 +680,13 @@ public class PaymentService {
             throw new RuntimeException("User not found");
         }
 
+        // A retried confirmation returns the payment already recorded for it
+        Optional<RequestsPayment> recorded = requestsPaymentRepository.findByReceiptNumber(transactionId);
+        if (recorded.isPresent()) {
+            paymentMetrics.recordDuplicateReceipt("database");
+            return recorded.get();
+        }
+
         // Find the request
         Request request = requestRepository.findById(UUID.fromString(requestId))
                 .orElseThrow(() -> new RuntimeException("Request not found: " + requestId));
@@ -637,6 +702,9 @@ public class PaymentService {
         payment.setRequest(request);
 
         RequestsPayment savedPayment = requestsPaymentRepository.save(payment);
+        processedReceipts.remember(transactionId);
+        leaderboards.onPayment(request.getDjId(), amount, savedPayment.getTransactionDate());
+        djStatsService.onActivity(request.getDjId());
         paymentMetrics.recordPaymentCompleted("REQUEST", amount);
         log.info("💾 Saved PayMe request payment for request ID {}", requestId);
 
@@ -655,6 +723,13 @@ public class PaymentService {
             throw new RuntimeException("User not found");
         }
 
+        // A retried confirmation returns the tip already recorded for it
+        Optional<TipPayments> recorded = tipPaymentsRepository.findByReceiptNumber(transactionId);
+        if (recorded.isPresent()) {
+            paymentMetrics.recordDuplicateReceipt("database");
+            return recorded.get();
+        }
+
         // Find the DJ
         Users dj = userRepository.findById(UUID.fromString(djId))
                 .orElseThrow(() -> new RuntimeException("DJ not found: " + djId));
@@ -674,6 +749,9 @@ public class PaymentService {
         tip.setDj(dj);
 
         TipPayments savedTip = tipPaymentsRepository.save(tip);
+        processedReceipts.remember(transactionId);
+        leaderboards.onPayment(dj.getId(), amount, savedTip.getTransactionDate());
+        djStatsService.onActivity(dj.getId());
         paymentMetrics.recordPaymentCompleted("TIP", amount);
         log.info("💾 Saved PayMe tip payment for DJ ID {}", djId);
 
@@ -0,0 +1,56 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.utils.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * M-Pesa receipt numbers recorded recently, so a redelivered callback for the same
+ * payment is dropped without a database round trip. Entries expire after a TTL; the
+ * unique receipt indexes stay the source of truth.
+ */
+@Component
+public class ProcessedReceipts {
+
+    private final long ttlMs;
+    private final int maxSize;
+
+    // Receipt number to the time it stops being remembered
+    private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+
+    public ProcessedReceipts(@Value("${spinwish.payments.receipt-cache-ttl-ms:600000}") long ttlMs,
+                             @Value("${spinwish.payments.receipt-cache-size:10000}") int maxSize) {
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+    }
+
+    public boolean contains(String receiptNumber) {
+        Long expiresAt = expiries.get(receiptNumber);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Remember a receipt once the transaction recording it commits
+     */
+    public void remember(String receiptNumber) {
+        Runnable add = () -> {
+            if (expiries.size() >= maxSize) {
+                evictExpired();
+            }
+            if (expiries.size() < maxSize) {
+                expiries.put(receiptNumber, System.currentTimeMillis() + ttlMs);
+            }
+        };
+        AfterCommit.run(add);
+    }
+
+    @Scheduled(fixedDelayString = "${spinwish.payments.receipt-cache-ttl-ms:600000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        expiries.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+}
@@ -0,0 +1,141 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Request;
+
+import java.util.*;
+
+/**
+ * Gap-based manual queue ranks.
+ *
+ * Ranks are spaced GAP apart so a request can be moved between two neighbours by giving it
+ * a rank in the gap. For a new order only the requests off the longest run of already
+ * increasing ranks get new values, so a single drag-and-drop move rewrites one row. When a
+ * gap is exhausted the whole queue is renumbered.
+ */
+final class QueueRanks {
+
+    static final long GAP = 1024L;
+
+    private QueueRanks() {
+    }
+
+    /**
+     * Rank used for ordering; requests never ranked manually fall back to their queue position
+     */
+    static Long effectiveRank(Request request) {
+        if (request.getQueueRank() != null) {
+            return request.getQueueRank();
+        }
+        return request.getQueuePosition() != null ? request.getQueuePosition() * GAP : null;
+    }
+
+    /**
+     * Ranks to write so that ranks strictly increase along the given order
+     */
+    static Map<UUID, Long> plan(List<Request> ordered) {
+        int n = ordered.size();
+        Long[] current = new Long[n];
+        for (int i = 0; i < n; i++) {
+            current[i] = effectiveRank(ordered.get(i));
+        }
+
+        boolean[] keep = longestIncreasingRun(current);
+        long[] target = new long[n];
+        int i = 0;
+        Long lower = null;
+        while (i < n) {
+            if (keep[i]) {
+                target[i] = current[i];
+                lower = current[i];
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < n && !keep[end]) {
+                end++;
+            }
+            int count = end - i;
+            Long upper = end < n ? current[end] : null;
+            long from;
+            long to;
+            if (lower == null && upper == null) {
+                from = 0;
+                to = GAP * (count + 1);
+            } else if (lower == null) {
+                from = upper - GAP * (count + 1);
+                to = upper;
+            } else if (upper == null) {
+                from = lower;
+                to = lower + GAP * (count + 1);
+            } else {
+                from = lower;
+                to = upper;
+            }
+            if (to - from <= count) {
+                return renumber(ordered, current);
+            }
+            for (int j = 0; j < count; j++) {
+                target[i + j] = from + (to - from) * (j + 1) / (count + 1);
+            }
+            lower = target[end - 1];
+            i = end;
+        }
+
+        Map<UUID, Long> changed = new LinkedHashMap<>();
+        for (int k = 0; k < n; k++) {
+            if (!keep[k]) {
+                changed.put(ordered.get(k).getId(), target[k]);
+            }
+        }
+        return changed;
+    }
+
+    private static Map<UUID, Long> renumber(List<Request> ordered, Long[] current) {
+        Map<UUID, Long> changed = new LinkedHashMap<>();
+        for (int k = 0; k < ordered.size(); k++) {
+            long rank = (k + 1) * GAP;
+            if (current[k] == null || current[k] != rank) {
+                changed.put(ordered.get(k).getId(), rank);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Marks a longest strictly increasing subsequence of the non-null ranks
+     */
+    private static boolean[] longestIncreasingRun(Long[] ranks) {
+        int n = ranks.length;
+        int[] tailIndex = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            if (ranks[i] == null) {
+                continue;
+            }
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ranks[tailIndex[mid]] < ranks[i]) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            previous[i] = lo > 0 ? tailIndex[lo - 1] : -1;
+            tailIndex[lo] = i;
+            if (lo == length) {
+                length++;
+            }
+        }
+
+        boolean[] keep = new boolean[n];
+        int k = length > 0 ? tailIndex[length - 1] : -1;
+        while (k >= 0) {
+            keep[k] = true;
+            k = previous[k];
+        }
+        return keep;
+    }
+}
@@ -1,9 +1,9 @@
 package com.spinwish.backend.services;
 
+import com.spinwish.backend.entities.Songs;
 import com.spinwish.backend.entities.payments.RequestsPayment;
 import com.spinwish.backend.entities.payments.TipPayments;
 import com.spinwish.backend.exceptions.PaymentException;
-import com.spinwish.backend.repositories.ArtistRepository;
 import com.spinwish.backend.repositories.SongRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,8 +12,12 @@ import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for generating payment receipts
@@ -28,7 +32,7 @@ public class ReceiptService {
     private SongRepository songRepository;
 
     @Autowired
-    private ArtistRepository artistRepository;
+    private RequestSongService requestSongService;
 
     /**
      * Generate receipt data for a request payment
@@ -48,26 +52,35 @@ public class ReceiptService {
         receiptData.put("description", "Song Request Payment");
         
         if (payment.getRequest() != null) {
-            // Get song information from songId
-            String songId = payment.getRequest().getSongId();
-            if (songId != null) {
-                try {
-                    UUID songUuid = UUID.fromString(songId);
-                    songRepository.findById(songUuid).ifPresent(song -> {
-                        receiptData.put("songTitle", song.getName());
-                        receiptData.put("songAlbum", song.getAlbum());
-
-                        // Get artist information
-                        if (song.getArtistId() != null) {
-                            artistRepository.findById(song.getArtistId()).ifPresent(artist -> {
-                                receiptData.put("artistName", artist.getName());
-                            });
-                        }
-                    });
-                } catch (IllegalArgumentException e) {
-                    log.warn("Invalid song ID format: {}", songId);
+            // Get song information for every song of the request
+            List<UUID> songIds = requestSongService.getSongIds(payment.getRequest().getId());
+            if (songIds.isEmpty()) {
+                songIds = RequestSongService.parseLegacySongIds(payment.getRequest().getSongId());
+            }
+            if (!songIds.isEmpty()) {
+                Map<UUID, Songs> songsById = songRepository.findAllWithArtistByIdIn(songIds).stream()
+                        .collect(Collectors.toMap(Songs::getId, Function.identity()));
+                List<Songs> songs = songIds.stream()
+                        .map(songsById::get)
+                        .filter(Objects::nonNull)
+                        .toList();
+
+                if (songs.isEmpty()) {
                     receiptData.put("songTitle", "Unknown Song");
                     receiptData.put("artistName", "Unknown Artist");
+                } else {
+                    receiptData.put("songTitle", songs.stream()
+                            .map(Songs::getName)
+                            .collect(Collectors.joining(", ")));
+                    receiptData.put("songAlbum", songs.get(0).getAlbum());
+                    String artistNames = songs.stream()
+                            .filter(song -> song.getArtist() != null)
+                            .map(song -> song.getArtist().getName())
+                            .distinct()
+                            .collect(Collectors.joining(", "));
+                    if (!artistNames.isEmpty()) {
+                        receiptData.put("artistName", artistNames);
+                    }
                 }
             }
 
@@ -0,0 +1,373 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.repositories.RequestsRepository;
+import com.spinwish.backend.utils.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory priority queue of pending requests per DJ.
+ *
+ * The priority score is 0.7 * min(tip, 10) + 0.3 * min(waitMinutes / 6, 10). Until the
+ * 60 minute cap the time part is linear in createdAt, so ordering by
+ * 14 * tip - createdAtMinutes gives the same order at any point in time. Entries past
+ * the cap all share the same time bonus and are ordered by tip, then age. The ordered
+ * queue is a merge of those two sorted sets.
+ *
+ * Queues are loaded from the database on first read and then kept current from request
+ * events. The load runs outside the map; events arriving meanwhile are applied to the
+ * loading queue and win over the rows it read. Queue positions are written back in
+ * batches by a scheduled flush.
+ */
+@Service
+@Slf4j
+public class RequestQueueEngine {
+
+    static final double TIP_WEIGHT = 0.7;
+    static final double TIME_WEIGHT = 0.3;
+    static final double MAX_TIP_SCORE = 10.0;
+    static final double MAX_TIME_BONUS = 10.0;
+    static final long MAX_WAIT_MINUTES = 60;
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MAX_WAIT_MILLIS = MAX_WAIT_MINUTES * MILLIS_PER_MINUTE;
+
+    private final RequestsRepository requestsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, DjQueue> queues = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> djByRequest = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> pendingPositions = new ConcurrentHashMap<>();
+
+    @Value("${spinwish.queue.idle-eviction-minutes:30}")
+    private long idleEvictionMinutes;
+
+    public RequestQueueEngine(RequestsRepository requestsRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.requestsRepository = requestsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Pending request ids for a DJ in priority order. Positions that changed since the
+     * last read are queued for the next flush.
+     */
+    public List<UUID> getOrderedQueue(UUID djId) {
+        DjQueue queue = queue(djId);
+        List<Entry> ordered = queue.ordered(System.currentTimeMillis());
+
+        List<UUID> ids = new ArrayList<>(ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            Entry entry = ordered.get(i);
+            int position = i + 1;
+            if (entry.persistedPosition == null || entry.persistedPosition != position) {
+                entry.persistedPosition = position;
+                pendingPositions.put(entry.id, position);
+            }
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Snapshot of the pending entries of a DJ, unordered
+     */
+    public List<QueuedRequest> getQueuedRequests(UUID djId) {
+        return queue(djId).snapshot();
+    }
+
+    /**
+     * Apply a saved request to the engine once the surrounding transaction commits
+     */
+    public void onRequestSaved(Request request) {
+        UUID requestId = request.getId();
+        UUID djId = request.getDjId();
+        boolean pending = request.getStatus() == Request.RequestStatus.PENDING;
+        Entry entry = pending ? toEntry(request) : null;
+        AfterCommit.run(() -> apply(requestId, djId, entry));
+    }
+
+    /**
+     * Drop a deleted request from the engine once the surrounding transaction commits
+     */
+    public void onRequestRemoved(UUID requestId) {
+        AfterCommit.run(() -> apply(requestId, null, null));
+    }
+
+    private void apply(UUID requestId, UUID djId, Entry entry) {
+        UUID previousDj = djByRequest.get(requestId);
+        if (previousDj != null && !previousDj.equals(djId)) {
+            DjQueue previous = queues.get(previousDj);
+            if (previous != null) {
+                previous.remove(requestId);
+            }
+            djByRequest.remove(requestId);
+        }
+
+        if (djId == null) {
+            return;
+        }
+        // Queues not created yet will read the committed state from the database; one
+        // still loading records the change so the rows it read do not overwrite it
+        DjQueue queue = queues.get(djId);
+        if (queue == null) {
+            return;
+        }
+        if (entry != null) {
+            queue.upsert(entry);
+            djByRequest.put(requestId, djId);
+        } else {
+            queue.remove(requestId);
+            djByRequest.remove(requestId);
+        }
+    }
+
+    /**
+     * Queue of a DJ, loading it on first use. Only one thread loads a queue; the database
+     * is read without holding the map or the queue's lock, so events keep being applied.
+     */
+    private DjQueue queue(UUID djId) {
+        DjQueue queue = queues.computeIfAbsent(djId, id -> new DjQueue());
+        if (!queue.loaded) {
+            synchronized (queue.loadLock) {
+                if (!queue.loaded) {
+                    List<Request> pending = requestsRepository.findByDjIdAndStatus(djId, Request.RequestStatus.PENDING);
+                    List<Entry> rows = new ArrayList<>(pending.size());
+                    for (Request request : pending) {
+                        Entry entry = toEntry(request);
+                        entry.persistedPosition = request.getQueuePosition();
+                        rows.add(entry);
+                    }
+                    for (Entry entry : queue.completeLoad(rows)) {
+                        djByRequest.put(entry.id, djId);
+                    }
+                    log.debug("Loaded {} pending requests into queue for DJ {}", pending.size(), djId);
+                }
+            }
+        }
+        return queue;
+    }
+
+    private Entry toEntry(Request request) {
+        double tipScore = Math.min(request.getAmount() != null ? request.getAmount() : 0.0, MAX_TIP_SCORE);
+        LocalDateTime createdAt = request.getCreatedAt() != null ? request.getCreatedAt() : LocalDateTime.now();
+        long createdAtMillis = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new Entry(request.getId(), request.getAmount(), tipScore, createdAtMillis);
+    }
+
+    /**
+     * Write changed queue positions back in one transaction
+     */
+    @Scheduled(fixedDelayString = "${spinwish.queue.position-flush-interval-ms:2000}")
+    public void flushPositions() {
+        if (pendingPositions.isEmpty()) {
+            return;
+        }
+        Map<UUID, Integer> batch = new HashMap<>();
+        for (UUID requestId : new ArrayList<>(pendingPositions.keySet())) {
+            Integer position = pendingPositions.remove(requestId);
+            if (position != null) {
+                batch.put(requestId, position);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    requestsRepository.updateQueuePositions(batch, Request.RequestStatus.PENDING));
+            log.debug("Flushed {} queue positions", batch.size());
+        } catch (Exception e) {
+            // Put them back unless a newer position was queued in the meantime
+            batch.forEach(pendingPositions::putIfAbsent);
+            log.error("Failed to flush queue positions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop queues nobody has read for a while so memory stays bounded
+     */
+    @Scheduled(fixedDelayString = "${spinwish.queue.eviction-interval-ms:300000}")
+    public void evictIdleQueues() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMinutes * MILLIS_PER_MINUTE;
+        queues.entrySet().removeIf(e -> {
+            if (e.getValue().lastAccess >= cutoff) {
+                return false;
+            }
+            djByRequest.values().removeIf(djId -> djId.equals(e.getKey()));
+            return true;
+        });
+    }
+
+    static double priorityScore(double tipScore, long waitMillis) {
+        double timeBonus = Math.min((double) waitMillis / MAX_WAIT_MILLIS * MAX_TIME_BONUS, MAX_TIME_BONUS);
+        return (tipScore * TIP_WEIGHT) + (timeBonus * TIME_WEIGHT);
+    }
+
+    /**
+     * Read-only view of a queued request
+     */
+    public record QueuedRequest(UUID requestId, Double amount, long createdAtMillis) {
+    }
+
+    private static final class Entry {
+        final UUID id;
+        final Double amount;
+        final double tipScore;
+        final long createdAtMillis;
+        // Time-invariant ordering key while the wait is below the cap
+        final double staticKey;
+        volatile Integer persistedPosition;
+
+        Entry(UUID id, Double amount, double tipScore, long createdAtMillis) {
+            this.id = id;
+            this.amount = amount;
+            this.tipScore = tipScore;
+            this.createdAtMillis = createdAtMillis;
+            this.staticKey = tipScore * TIP_WEIGHT
+                    - (double) createdAtMillis / MAX_WAIT_MILLIS * MAX_TIME_BONUS * TIME_WEIGHT;
+        }
+
+        double scoreAt(long now) {
+            return priorityScore(tipScore, now - createdAtMillis);
+        }
+    }
+
+    private static final Comparator<Entry> BY_AGE = Comparator
+            .comparingLong((Entry e) -> e.createdAtMillis)
+            .thenComparing(e -> e.id);
+
+    private static final Comparator<Entry> BY_STATIC_KEY = Comparator
+            .comparingDouble((Entry e) -> e.staticKey).reversed()
+            .thenComparing(BY_AGE);
+
+    private static final Comparator<Entry> BY_TIP = Comparator
+            .comparingDouble((Entry e) -> e.tipScore).reversed()
+            .thenComparing(BY_AGE);
+
+    private static final class DjQueue {
+        private final Map<UUID, Entry> entries = new HashMap<>();
+        private final TreeSet<Entry> uncappedByKey = new TreeSet<>(BY_STATIC_KEY);
+        private final TreeSet<Entry> uncappedByAge = new TreeSet<>(BY_AGE);
+        private final TreeSet<Entry> cappedByTip = new TreeSet<>(BY_TIP);
+        private volatile long lastAccess = System.currentTimeMillis();
+        private final Object loadLock = new Object();
+        private volatile boolean loaded;
+        // Requests changed by events while loading; the loaded rows do not overwrite them
+        private Set<UUID> changedWhileLoading = new HashSet<>();
+
+        synchronized void upsert(Entry entry) {
+            markChanged(entry.id);
+            insert(entry);
+        }
+
+        synchronized void remove(UUID requestId) {
+            markChanged(requestId);
+            Entry existing = entries.get(requestId);
+            if (existing != null) {
+                removeEntry(existing);
+            }
+        }
+
+        /**
+         * Add the rows read from the database, except those changed since; returns the added ones
+         */
+        synchronized List<Entry> completeLoad(List<Entry> rows) {
+            List<Entry> added = new ArrayList<>(rows.size());
+            for (Entry row : rows) {
+                if (!changedWhileLoading.contains(row.id)) {
+                    insert(row);
+                    added.add(row);
+                }
+            }
+            changedWhileLoading = null;
+            loaded = true;
+            return added;
+        }
+
+        private void markChanged(UUID requestId) {
+            if (!loaded) {
+                changedWhileLoading.add(requestId);
+            }
+        }
+
+        private void insert(Entry entry) {
+            Entry existing = entries.get(entry.id);
+            if (existing != null) {
+                entry.persistedPosition = existing.persistedPosition;
+                removeEntry(existing);
+            }
+            entries.put(entry.id, entry);
+            uncappedByKey.add(entry);
+            uncappedByAge.add(entry);
+        }
+
+        private void removeEntry(Entry entry) {
+            entries.remove(entry.id);
+            uncappedByKey.remove(entry);
+            uncappedByAge.remove(entry);
+            cappedByTip.remove(entry);
+        }
+
+        /**
+         * Move entries whose wait reached the cap into the capped set
+         */
+        private void promoteAged(long now) {
+            while (!uncappedByAge.isEmpty() && now - uncappedByAge.first().createdAtMillis >= MAX_WAIT_MILLIS) {
+                Entry aged = uncappedByAge.pollFirst();
+                uncappedByKey.remove(aged);
+                cappedByTip.add(aged);
+            }
+        }
+
+        synchronized List<Entry> ordered(long now) {
+            lastAccess = now;
+            promoteAged(now);
+
+            List<Entry> result = new ArrayList<>(entries.size());
+            Iterator<Entry> uncapped = uncappedByKey.iterator();
+            Iterator<Entry> capped = cappedByTip.iterator();
+            Entry u = uncapped.hasNext() ? uncapped.next() : null;
+            Entry c = capped.hasNext() ? capped.next() : null;
+            while (u != null || c != null) {
+                boolean takeCapped;
+                if (u == null) {
+                    takeCapped = true;
+                } else if (c == null) {
+                    takeCapped = false;
+                } else {
+                    int cmp = Double.compare(c.scoreAt(now), u.scoreAt(now));
+                    takeCapped = cmp > 0 || (cmp == 0 && BY_AGE.compare(c, u) <= 0);
+                }
+                if (takeCapped) {
+                    result.add(c);
+                    c = capped.hasNext() ? capped.next() : null;
+                } else {
+                    result.add(u);
+                    u = uncapped.hasNext() ? uncapped.next() : null;
+                }
+            }
+            return result;
+        }
+
+        synchronized List<QueuedRequest> snapshot() {
+            lastAccess = System.currentTimeMillis();
+            List<QueuedRequest> result = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) {
+                result.add(new QueuedRequest(entry.id, entry.amount, entry.createdAtMillis));
+            }
+            return result;
+        }
+    }
+}
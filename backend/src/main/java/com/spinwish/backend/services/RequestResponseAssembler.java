@@ -0,0 +1,129 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.entities.Songs;
+import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.models.responses.songs.SongResponse;
+import com.spinwish.backend.models.responses.users.PlaySongResponse;
+import com.spinwish.backend.repositories.SongRepository;
+import com.spinwish.backend.repositories.UsersRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link PlaySongResponse} lists for a page of requests.
+ * Song IDs, DJs, clients, songs and artists are loaded up front with one IN-list query each,
+ * so the number of queries does not grow with the number of requests.
+ */
+@Service
+@RequiredArgsConstructor
+public class RequestResponseAssembler {
+
+    private final UsersRepository usersRepository;
+    private final SongRepository songRepository;
+    private final RequestSongService requestSongService;
+
+    public PlaySongResponse toResponse(Request request) {
+        return toResponses(List.of(request)).get(0);
+    }
+
+    public List<PlaySongResponse> toResponses(List<Request> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, List<UUID>> songIdsByRequest = loadSongIds(requests);
+
+        Set<UUID> userIds = new HashSet<>();
+        Set<UUID> songIds = new HashSet<>();
+        for (Request request : requests) {
+            if (request.getDjId() != null) {
+                userIds.add(request.getDjId());
+            }
+            if (request.getClientId() != null) {
+                userIds.add(request.getClientId());
+            }
+            songIds.addAll(songIdsByRequest.getOrDefault(request.getId(), List.of()));
+        }
+
+        Map<UUID, Users> users = userIds.isEmpty() ? Map.of() :
+                usersRepository.findAllWithRoleByIdIn(userIds).stream()
+                        .collect(Collectors.toMap(Users::getId, Function.identity()));
+        Map<UUID, Songs> songs = songIds.isEmpty() ? Map.of() :
+                songRepository.findAllWithArtistByIdIn(songIds).stream()
+                        .collect(Collectors.toMap(Songs::getId, Function.identity()));
+
+        List<PlaySongResponse> responses = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            responses.add(buildResponse(request, songIdsByRequest.getOrDefault(request.getId(), List.of()), users, songs));
+        }
+        return responses;
+    }
+
+    private PlaySongResponse buildResponse(Request request, List<UUID> songIds,
+                                           Map<UUID, Users> users, Map<UUID, Songs> songs) {
+        PlaySongResponse response = new PlaySongResponse();
+        response.setId(request.getId());
+
+        Users dj = users.get(request.getDjId());
+        Users client = users.get(request.getClientId());
+        response.setDjName(dj != null ? dj.getActualUsername() : null);
+        response.setClientName(client != null ? client.getActualUsername() : null);
+        response.setStatus(request.getStatus() == Request.RequestStatus.ACCEPTED || request.getStatus() == Request.RequestStatus.PLAYED);
+
+        List<SongResponse> songResponses = new ArrayList<>();
+        for (UUID songId : songIds) {
+            Songs song = songs.get(songId);
+            if (song != null) {
+                songResponses.add(toSongResponse(song));
+            }
+        }
+
+        response.setSongResponse(songResponses);
+        response.setCreatedAt(request.getCreatedAt());
+        response.setUpdatedAt(request.getUpdatedAt());
+        response.setAmount(request.getAmount());
+        response.setMessage(request.getMessage());
+        response.setQueuePosition(request.getQueuePosition());
+        response.setSessionId(request.getSessionId());
+
+        return response;
+    }
+
+    private SongResponse toSongResponse(Songs song) {
+        SongResponse sr = new SongResponse();
+        sr.setId(song.getId());
+        sr.setName(song.getName());
+        sr.setAlbum(song.getAlbum());
+        sr.setCreatedAt(song.getCreatedAt());
+        sr.setUpdatedAt(song.getUpdatedAt());
+
+        if (song.getArtist() != null) {
+            sr.setArtistId(song.getArtist().getId());
+            sr.setArtistName(song.getArtist().getName());
+        }
+        return sr;
+    }
+
+    private Map<UUID, List<UUID>> loadSongIds(List<Request> requests) {
+        List<UUID> requestIds = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            if (request.getId() != null) {
+                requestIds.add(request.getId());
+            }
+        }
+        Map<UUID, List<UUID>> songIds = new HashMap<>(requestSongService.getSongIdsByRequest(requestIds));
+
+        // Rows that have not been backfilled yet still carry the legacy column
+        for (Request request : requests) {
+            if (request.getId() != null && !songIds.containsKey(request.getId()) && request.getSongId() != null) {
+                songIds.put(request.getId(), RequestSongService.parseLegacySongIds(request.getSongId()));
+            }
+        }
+        return songIds;
+    }
+}
@@ -0,0 +1,129 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.entities.RequestSong;
+import com.spinwish.backend.repositories.RequestSongRepository;
+import com.spinwish.backend.repositories.RequestsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Maintains the request_songs rows of song requests and answers song lookups
+ * with indexed queries instead of scanning the legacy comma-joined column.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RequestSongService {
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private final RequestSongRepository requestSongRepository;
+    private final RequestsRepository requestsRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Replace the songs of a request, keeping the given order.
+     */
+    @Transactional
+    public void replaceSongs(UUID requestId, List<UUID> songIds) {
+        requestSongRepository.deleteByRequestId(requestId);
+        List<RequestSong> rows = new ArrayList<>(songIds.size());
+        for (int i = 0; i < songIds.size(); i++) {
+            rows.add(new RequestSong(requestId, songIds.get(i), i));
+        }
+        requestSongRepository.saveAll(rows);
+    }
+
+    /**
+     * Song IDs of a batch of requests keyed by request ID, each list in request order.
+     */
+    public Map<UUID, List<UUID>> getSongIdsByRequest(Collection<UUID> requestIds) {
+        if (requestIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, List<UUID>> songIds = new HashMap<>();
+        for (RequestSong row : requestSongRepository.findByRequestIdInOrderByRequestIdAscPositionAsc(requestIds)) {
+            songIds.computeIfAbsent(row.getRequestId(), id -> new ArrayList<>()).add(row.getSongId());
+        }
+        return songIds;
+    }
+
+    public List<UUID> getSongIds(UUID requestId) {
+        return requestSongRepository.findByRequestIdOrderByPositionAsc(requestId).stream()
+                .map(RequestSong::getSongId)
+                .toList();
+    }
+
+    public boolean isSongPendingForDj(UUID djId, UUID songId) {
+        return requestSongRepository.existsForDjAndStatus(djId, songId, Request.RequestStatus.PENDING);
+    }
+
+    /**
+     * Parse the legacy comma-joined song ID column, skipping malformed entries.
+     */
+    public static List<UUID> parseLegacySongIds(String joinedSongIds) {
+        if (joinedSongIds == null || joinedSongIds.isBlank()) {
+            return List.of();
+        }
+        List<UUID> ids = new ArrayList<>();
+        for (String raw : joinedSongIds.split(",")) {
+            try {
+                ids.add(UUID.fromString(raw.trim()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping invalid song ID '{}'", raw);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Create request_songs rows for requests that only have the legacy column.
+     * Mirrors the V5 migration for databases that are not managed by Flyway. Each batch
+     * commits on its own. Rows with nothing parseable in the legacy column are left as
+     * they are and logged, so the original value stays available for a manual fix.
+     */
+    public int backfillLegacyRequests() {
+        TransactionTemplate batchTransaction = new TransactionTemplate(transactionManager);
+        int migrated = 0;
+        int unparseable = 0;
+        UUID afterId = FIRST_ID;
+        List<Request> batch;
+        do {
+            UUID from = afterId;
+            batch = requestsRepository.findWithoutRequestSongsAfter(from, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<RequestSong> rows = new ArrayList<>();
+            for (Request request : batch) {
+                List<UUID> songIds = parseLegacySongIds(request.getSongId());
+                if (songIds.isEmpty()) {
+                    unparseable++;
+                    log.warn("Request {} has no valid song ID in its legacy column '{}', leaving it as is",
+                            request.getId(), request.getSongId());
+                    continue;
+                }
+                for (int i = 0; i < songIds.size(); i++) {
+                    rows.add(new RequestSong(request.getId(), songIds.get(i), i));
+                }
+                migrated++;
+            }
+            batchTransaction.executeWithoutResult(status -> requestSongRepository.saveAll(rows));
+            afterId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+
+        if (migrated > 0 || unparseable > 0) {
+            log.info("Backfilled request_songs for {} legacy requests, skipped {} unparseable", migrated, unparseable);
+        }
+        return migrated;
+    }
+}
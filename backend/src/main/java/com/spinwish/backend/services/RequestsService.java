@@ -2,25 +2,25 @@ package com.spinwish.backend.services;
 
 import com.spinwish.backend.controllers.RequestWebSocketBroadcaster;
 import com.spinwish.backend.entities.Request;
-import com.spinwish.backend.entities.Songs;
 import com.spinwish.backend.entities.Users;
 import com.spinwish.backend.exceptions.UserNotExistingException;
 import com.spinwish.backend.models.requests.users.PlaySongRequest;
-import com.spinwish.backend.models.responses.songs.SongResponse;
+import com.spinwish.backend.models.responses.pagination.CursorPage;
 import com.spinwish.backend.models.responses.users.PlaySongResponse;
 import com.spinwish.backend.repositories.RequestsRepository;
-import com.spinwish.backend.repositories.SongRepository;
 import com.spinwish.backend.repositories.UsersRepository;
+import com.spinwish.backend.utils.KeysetCursor;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,9 +33,6 @@ public class RequestsService {
     @Autowired
     private UsersRepository usersRepository;
 
-    @Autowired
-    private SongRepository songRepository;
-
     @Autowired
     private RequestWebSocketBroadcaster broadcaster;
 
@@ -45,6 +42,27 @@ public class RequestsService {
     @Autowired
     private SessionService sessionService;
 
+    @Autowired
+    private RequestResponseAssembler responseAssembler;
+
+    @Autowired
+    private RequestSongService requestSongService;
+
+    @Autowired
+    private RequestQueueEngine queueEngine;
+
+    @Autowired
+    private SessionAnalyticsService sessionAnalyticsService;
+
+    @Autowired
+    private DJLeaderboards leaderboards;
+
+    @Autowired
+    private DJStatsService djStatsService;
+
+    @Autowired
+    private EarningsLedgerService earningsLedgerService;
+
     @Transactional
     public PlaySongResponse createRequest(PlaySongRequest playSongRequest) {
         // Extract email from authenticated user (client)
@@ -109,28 +127,27 @@ public class RequestsService {
         }
 
         // Set the song(s)
-        if (playSongRequest.getSongIds() != null && !playSongRequest.getSongIds().isEmpty()) {
-            String joinedSongIds = String.join(",", playSongRequest.getSongIds());
-            request.setSongId(joinedSongIds);
-        } else if (playSongRequest.getSongId() != null) {
-            request.setSongId(playSongRequest.getSongId());
-        } else {
-            throw new RuntimeException("At least one song ID must be provided.");
-        }
+        List<UUID> songIds = resolveSongIds(playSongRequest);
+        request.setSongId(joinSongIds(songIds));
 
         request.setDj(dj);
         request.setClient(client);
 
         Request savedRequest = requestsRepository.save(request);
+        requestSongService.replaceSongs(savedRequest.getId(), songIds);
+        queueEngine.onRequestSaved(savedRequest);
         log.info("💾 Request saved to database with ID: {}, sessionId: {}", savedRequest.getId(), savedRequest.getSessionId());
 
         // Update session statistics
         if (savedRequest.getSessionId() != null) {
             sessionService.updateSessionOnRequestCreated(savedRequest.getSessionId());
         }
+        sessionAnalyticsService.onRequestCreated(savedRequest);
+        leaderboards.onRequestCreated(savedRequest.getDjId(), savedRequest.getCreatedAt());
+        djStatsService.onActivity(savedRequest.getDjId());
 
-        PlaySongResponse response = convertPlayRequest(savedRequest);
-        broadcaster.broadcastRequestUpdate(response);
+        PlaySongResponse response = responseAssembler.toResponse(savedRequest);
+        broadcaster.broadcastRequestUpdate(savedRequest, response);
         return response;
     }
 
@@ -139,15 +156,16 @@ public class RequestsService {
     public PlaySongResponse getRequestById(UUID id) {
         Optional<Request> request = requestsRepository.findById(id);
         if (request.isPresent()) {
-            return convertPlayRequest(request.get());
+            return responseAssembler.toResponse(request.get());
         } else {
             throw new RuntimeException("Request not found with id: " + id);
         }
     }
 
-    public List<PlaySongResponse> getAllRequests() {
-        List<Request> all = requestsRepository.findAll();
-        return all.stream().map(this::convertPlayRequest).collect(Collectors.toList());
+    public CursorPage<PlaySongResponse> getAllRequests(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Request> fetched = requestsRepository.findPage(after.getTimestamp(), after.getId(), PageRequest.of(0, limit + 1));
+        return toResponsePage(fetched, limit);
     }
 
     @Transactional
@@ -181,23 +199,23 @@ public class RequestsService {
         }
 
         Request request = existingOpt.get();
+        Request.RequestStatus previousStatus = request.getStatus();
+        UUID previousDjId = request.getDjId();
         request.setStatus(Request.RequestStatus.PENDING);
         request.setDjId(dj.getId());
         request.setClientId(client.getId());
         // Set the song(s)
-        if (playSongRequest.getSongIds() != null && !playSongRequest.getSongIds().isEmpty()) {
-            String joinedSongIds = String.join(",", playSongRequest.getSongIds());
-            request.setSongId(joinedSongIds);
-        } else if (playSongRequest.getSongId() != null) {
-            request.setSongId(playSongRequest.getSongId());
-        } else {
-            throw new RuntimeException("At least one song ID must be provided.");
-        }
+        List<UUID> songIds = resolveSongIds(playSongRequest);
+        request.setSongId(joinSongIds(songIds));
         request.setUpdatedAt(LocalDateTime.now());
 
         requestsRepository.save(request);
-        PlaySongResponse response = convertPlayRequest(request);
-        broadcaster.broadcastRequestUpdate(response);
+        requestSongService.replaceSongs(request.getId(), songIds);
+        queueEngine.onRequestSaved(request);
+        sessionAnalyticsService.onStatusChanged(request, previousStatus);
+        earningsLedgerService.onRequestChanged(request.getId(), request.getDjId(), previousDjId);
+        PlaySongResponse response = responseAssembler.toResponse(request);
+        broadcaster.broadcastRequestUpdate(request, response);
         return response;
     }
 
@@ -206,12 +224,20 @@ public class RequestsService {
         Request request = requestsRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Request not found with ID: " + requestId));
 
+        Request.RequestStatus previousStatus = request.getStatus();
         request.setStatus(Request.RequestStatus.PLAYED);
         request.setUpdatedAt(LocalDateTime.now());
+        if (request.getPlayedAt() == null) {
+            request.setPlayedAt(request.getUpdatedAt());
+        }
 
         requestsRepository.save(request);
-        PlaySongResponse response = convertPlayRequest(request);
-        broadcaster.broadcastRequestUpdate(response);
+        queueEngine.onRequestSaved(request);
+        sessionAnalyticsService.onStatusChanged(request, previousStatus);
+        djStatsService.onActivity(request.getDjId());
+        earningsLedgerService.onRequestChanged(request.getId(), request.getDjId(), null);
+        PlaySongResponse response = responseAssembler.toResponse(request);
+        broadcaster.broadcastRequestUpdate(request, response);
 
         return response;
     }
@@ -229,10 +255,14 @@ public class RequestsService {
         }
 
         // Update request status to ACCEPTED
+        Request.RequestStatus previousStatus = request.getStatus();
         request.setStatus(Request.RequestStatus.ACCEPTED);
         request.setUpdatedAt(LocalDateTime.now());
 
         requestsRepository.save(request);
+        queueEngine.onRequestSaved(request);
+        sessionAnalyticsService.onStatusChanged(request, previousStatus);
+        earningsLedgerService.onRequestChanged(request.getId(), request.getDjId(), null);
 
         // Update session statistics
         if (request.getSessionId() != null) {
@@ -245,8 +275,8 @@ public class RequestsService {
         log.info("✅ Request {} accepted by DJ {}. Payment captured for amount: KSH {}",
                  requestId, currentDJ.getActualUsername(), request.getAmount());
 
-        PlaySongResponse response = convertPlayRequest(request);
-        broadcaster.broadcastRequestUpdate(response);
+        PlaySongResponse response = responseAssembler.toResponse(request);
+        broadcaster.broadcastRequestUpdate(request, response);
 
         return response;
     }
@@ -264,10 +294,14 @@ public class RequestsService {
         }
 
         // Update request status to REJECTED
+        Request.RequestStatus previousStatus = request.getStatus();
         request.setStatus(Request.RequestStatus.REJECTED);
         request.setUpdatedAt(LocalDateTime.now());
 
         requestsRepository.save(request);
+        queueEngine.onRequestSaved(request);
+        sessionAnalyticsService.onStatusChanged(request, previousStatus);
+        earningsLedgerService.onRequestChanged(request.getId(), request.getDjId(), null);
 
         // Update session statistics
         if (request.getSessionId() != null) {
@@ -285,83 +319,81 @@ public class RequestsService {
             log.warn("⚠️ Refund processing failed or no payment found for request {}", requestId);
         }
 
-        PlaySongResponse response = convertPlayRequest(request);
-        broadcaster.broadcastRequestUpdate(response);
+        PlaySongResponse response = responseAssembler.toResponse(request);
+        broadcaster.broadcastRequestUpdate(request, response);
 
         return response;
     }
 
 
+    @Transactional
     public void delete(UUID id) {
+        requestsRepository.findById(id).ifPresent(sessionAnalyticsService::onRequestDeleted);
+        requestSongService.replaceSongs(id, List.of());
         requestsRepository.deleteById(id);
+        queueEngine.onRequestRemoved(id);
     }
 
-    private PlaySongResponse convertPlayRequest(Request request) {
-        PlaySongResponse response = new PlaySongResponse();
-        response.setId(request.getId());
-        response.setDjName(request.getDj().getActualUsername());
-        response.setClientName(request.getClient().getActualUsername());
-        response.setStatus(request.getStatus() == Request.RequestStatus.ACCEPTED || request.getStatus() == Request.RequestStatus.PLAYED);
-
-        List<SongResponse> songs = new ArrayList<>();
-
-        if (request.getSongId() != null && !request.getSongId().isEmpty()) {
-            List<UUID> songIds = Arrays.stream(request.getSongId().split(","))
-                    .map(UUID::fromString)
-                    .toList();
-
-            List<Songs> songEntities = songRepository.findAllById(songIds);
-
-            for (Songs song : songEntities) {
-                SongResponse sr = new SongResponse();
-                sr.setId(song.getId());
-                sr.setName(song.getName());
-                sr.setAlbum(song.getAlbum());
-                sr.setCreatedAt(song.getCreatedAt());
-                sr.setUpdatedAt(song.getUpdatedAt());
-
-                if (song.getArtist() != null) {
-                    sr.setArtistId(song.getArtist().getId());
-                    sr.setArtistName(song.getArtist().getName());
-                }
+    /**
+     * Song IDs of an incoming request, in request order
+     */
+    private List<UUID> resolveSongIds(PlaySongRequest playSongRequest) {
+        List<String> rawIds;
+        if (playSongRequest.getSongIds() != null && !playSongRequest.getSongIds().isEmpty()) {
+            rawIds = playSongRequest.getSongIds();
+        } else if (playSongRequest.getSongId() != null) {
+            rawIds = List.of(playSongRequest.getSongId());
+        } else {
+            throw new RuntimeException("At least one song ID must be provided.");
+        }
 
-                songs.add(sr);
+        List<UUID> songIds = new ArrayList<>(rawIds.size());
+        for (String rawId : rawIds) {
+            try {
+                songIds.add(UUID.fromString(rawId.trim()));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new RuntimeException("Invalid song ID: " + rawId);
             }
         }
+        return songIds;
+    }
 
-        response.setSongResponse(songs);
-        response.setCreatedAt(request.getCreatedAt());
-        response.setUpdatedAt(request.getUpdatedAt());
-        response.setAmount(request.getAmount());
-        response.setMessage(request.getMessage());
-        response.setQueuePosition(request.getQueuePosition());
-        response.setSessionId(request.getSessionId());
-
-        return response;
+    private String joinSongIds(List<UUID> songIds) {
+        return songIds.stream().map(UUID::toString).collect(Collectors.joining(","));
     }
 
-    // Get current user's requests
-    public List<PlaySongResponse> getCurrentUserRequests() {
+    // Get current user's requests, newest first
+    public CursorPage<PlaySongResponse> getCurrentUserRequests(String cursor, int limit) {
         String emailAddress = SecurityContextHolder.getContext().getAuthentication().getName();
         Users user = usersRepository.findByEmailAddress(emailAddress);
         if (user == null) {
             throw new UserNotExistingException("User not found from token.");
         }
 
-        List<Request> userRequests = requestsRepository.findByClientOrderByCreatedAtDesc(user);
-        return userRequests.stream().map(this::convertPlayRequest).collect(Collectors.toList());
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Request> fetched = requestsRepository.findPageByClientId(
+                user.getId(), after.getTimestamp(), after.getId(), PageRequest.of(0, limit + 1));
+        return toResponsePage(fetched, limit);
     }
 
-    // Get current DJ's requests
-    public List<PlaySongResponse> getCurrentDJRequests() {
+    // Get current DJ's requests, newest first
+    public CursorPage<PlaySongResponse> getCurrentDJRequests(String cursor, int limit) {
         String emailAddress = SecurityContextHolder.getContext().getAuthentication().getName();
         Users dj = usersRepository.findByEmailAddress(emailAddress);
         if (dj == null) {
             throw new UserNotExistingException("DJ not found from token.");
         }
 
-        List<Request> djRequests = requestsRepository.findByDjOrderByCreatedAtDesc(dj);
-        return djRequests.stream().map(this::convertPlayRequest).collect(Collectors.toList());
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Request> fetched = requestsRepository.findPageByDjId(
+                dj.getId(), after.getTimestamp(), after.getId(), PageRequest.of(0, limit + 1));
+        return toResponsePage(fetched, limit);
+    }
+
+    private CursorPage<PlaySongResponse> toResponsePage(List<Request> fetched, int limit) {
+        CursorPage<Request> page = KeysetCursor.slice(fetched, limit,
+                r -> new KeysetCursor(r.getCreatedAt(), r.getId()));
+        return page.withItems(responseAssembler.toResponses(page.getItems()));
     }
 
     // Get current user's requests by status
@@ -375,7 +407,7 @@ public class RequestsService {
         try {
             Request.RequestStatus requestStatus = Request.RequestStatus.valueOf(status.toUpperCase());
             List<Request> userRequests = requestsRepository.findByClientAndStatusOrderByCreatedAtDesc(user, requestStatus);
-            return userRequests.stream().map(this::convertPlayRequest).collect(Collectors.toList());
+            return responseAssembler.toResponses(userRequests);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid status: " + status);
         }
@@ -388,55 +420,24 @@ public class RequestsService {
      * Priority is calculated based on tip amount and time decay
      */
     public List<PlaySongResponse> getDJRequestQueueWithPriority(UUID djId) {
-        List<Request> pendingRequests = requestsRepository.findByDjIdAndStatus(djId, Request.RequestStatus.PENDING);
-
-        // Sort by priority score (higher score = higher priority)
-        List<Request> prioritizedRequests = pendingRequests.stream()
-            .sorted((r1, r2) -> Double.compare(calculatePriorityScore(r2), calculatePriorityScore(r1)))
-            .collect(Collectors.toList());
-
-        // Update queue positions
-        updateQueuePositions(prioritizedRequests);
+        // Ordering comes from the in-memory queue, positions are persisted by its flush job
+        List<UUID> orderedIds = queueEngine.getOrderedQueue(djId);
+        if (orderedIds.isEmpty()) {
+            return List.of();
+        }
 
-        return prioritizedRequests.stream()
-            .map(this::convertPlayRequest)
+        Map<UUID, Request> byId = requestsRepository.findAllById(orderedIds).stream()
+            .collect(Collectors.toMap(Request::getId, r -> r));
+        List<Request> prioritizedRequests = orderedIds.stream()
+            .map(byId::get)
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
-    }
 
-    /**
-     * Calculate priority score for a request
-     * Formula: (tip_amount * tip_weight) + (time_decay_factor * time_weight)
-     */
-    private double calculatePriorityScore(Request request) {
-        // Configuration constants
-        final double TIP_WEIGHT = 0.7;
-        final double TIME_WEIGHT = 0.3;
-        final double MAX_TIME_BONUS = 10.0; // Maximum bonus for waiting time
-        final long MAX_WAIT_MINUTES = 60; // After 60 minutes, time bonus is maxed
-
-        // Tip amount component (normalized to 0-10 scale)
-        double tipScore = Math.min(request.getAmount() != null ? request.getAmount() : 0.0, 10.0);
-
-        // Time decay component (newer requests get slight bonus, older requests get more bonus)
-        long minutesWaiting = ChronoUnit.MINUTES.between(request.getCreatedAt(), LocalDateTime.now());
-        double timeBonus = Math.min((double) minutesWaiting / MAX_WAIT_MINUTES * MAX_TIME_BONUS, MAX_TIME_BONUS);
-
-        return (tipScore * TIP_WEIGHT) + (timeBonus * TIME_WEIGHT);
-    }
-
-    /**
-     * Update queue positions for a list of requests
-     */
-    @Transactional
-    public void updateQueuePositions(List<Request> requests) {
-        for (int i = 0; i < requests.size(); i++) {
-            Request request = requests.get(i);
-            if (request.getQueuePosition() == null || !request.getQueuePosition().equals(i + 1)) {
-                request.setQueuePosition(i + 1);
-                request.setUpdatedAt(LocalDateTime.now());
-                requestsRepository.save(request);
-            }
+        List<PlaySongResponse> responses = responseAssembler.toResponses(prioritizedRequests);
+        for (int i = 0; i < responses.size(); i++) {
+            responses.get(i).setQueuePosition(i + 1);
         }
+        return responses;
     }
 
     /**
@@ -451,30 +452,36 @@ public class RequestsService {
             throw new RuntimeException("Unauthorized: You can only reorder your own queue");
         }
 
-        List<Request> requests = new ArrayList<>();
-        for (int i = 0; i < requestIds.size(); i++) {
-            UUID requestId = requestIds.get(i);
-            Request request = requestsRepository.findById(requestId)
-                .orElseThrow(() -> new RuntimeException("Request not found: " + requestId));
+        // One bulk load for the ownership checks
+        Map<UUID, Request> byId = requestsRepository.findAllById(requestIds).stream()
+            .collect(Collectors.toMap(Request::getId, r -> r));
+        List<Request> requests = new ArrayList<>(requestIds.size());
+        for (UUID requestId : requestIds) {
+            Request request = byId.get(requestId);
+            if (request == null) {
+                throw new RuntimeException("Request not found: " + requestId);
+            }
 
             // Verify request belongs to this DJ
             if (!request.getDjId().equals(djId)) {
                 throw new RuntimeException("Request does not belong to this DJ: " + requestId);
             }
-
-            request.setQueuePosition(i + 1);
-            request.setUpdatedAt(LocalDateTime.now());
             requests.add(request);
         }
 
-        requestsRepository.saveAll(requests);
+        // Only the moved requests get a new rank, written in a single statement
+        Map<UUID, Long> changedRanks = QueueRanks.plan(requests);
+        if (!changedRanks.isEmpty()) {
+            requestsRepository.updateQueueRanks(changedRanks);
+        }
 
         // Broadcast queue update
-        List<PlaySongResponse> responses = requests.stream()
-            .map(this::convertPlayRequest)
-            .collect(Collectors.toList());
+        List<PlaySongResponse> responses = responseAssembler.toResponses(requests);
+        for (int i = 0; i < responses.size(); i++) {
+            responses.get(i).setQueuePosition(i + 1);
+        }
 
-        responses.forEach(broadcaster::broadcastRequestUpdate);
+        broadcaster.broadcastQueueReorder(djId, requests, responses);
 
         return responses;
     }
@@ -483,16 +490,20 @@ public class RequestsService {
      * Check for duplicate songs in queue
      */
     public boolean isDuplicateSong(UUID djId, String songId) {
-        List<Request> pendingRequests = requestsRepository.findByDjIdAndStatus(djId, Request.RequestStatus.PENDING);
-        return pendingRequests.stream()
-            .anyMatch(request -> songId.equals(request.getSongId()));
+        UUID songUuid;
+        try {
+            songUuid = UUID.fromString(songId.trim());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid song ID: " + songId);
+        }
+        return requestSongService.isSongPendingForDj(djId, songUuid);
     }
 
     /**
      * Get queue statistics for analytics
      */
     public Map<String, Object> getQueueStatistics(UUID djId) {
-        List<Request> pendingRequests = requestsRepository.findByDjIdAndStatus(djId, Request.RequestStatus.PENDING);
+        List<RequestQueueEngine.QueuedRequest> pendingRequests = queueEngine.getQueuedRequests(djId);
 
         if (pendingRequests.isEmpty()) {
             return Map.of(
@@ -504,24 +515,18 @@ public class RequestsService {
             );
         }
 
-        double averageTip = pendingRequests.stream()
-            .mapToDouble(r -> r.getAmount() != null ? r.getAmount() : 0.0)
-            .average()
-            .orElse(0.0);
-
-        double totalValue = pendingRequests.stream()
-            .mapToDouble(r -> r.getAmount() != null ? r.getAmount() : 0.0)
-            .sum();
-
-        long oldestRequestAge = pendingRequests.stream()
-            .mapToLong(r -> ChronoUnit.MINUTES.between(r.getCreatedAt(), LocalDateTime.now()))
-            .max()
-            .orElse(0L);
-
-        double averageWaitTime = pendingRequests.stream()
-            .mapToLong(r -> ChronoUnit.MINUTES.between(r.getCreatedAt(), LocalDateTime.now()))
-            .average()
-            .orElse(0.0);
+        long now = System.currentTimeMillis();
+        double totalValue = 0.0;
+        long totalWaitMinutes = 0L;
+        long oldestRequestAge = 0L;
+        for (RequestQueueEngine.QueuedRequest queued : pendingRequests) {
+            totalValue += queued.amount() != null ? queued.amount() : 0.0;
+            long minutesWaiting = TimeUnit.MILLISECONDS.toMinutes(now - queued.createdAtMillis());
+            totalWaitMinutes += minutesWaiting;
+            oldestRequestAge = Math.max(oldestRequestAge, minutesWaiting);
+        }
+        double averageTip = totalValue / pendingRequests.size();
+        double averageWaitTime = (double) totalWaitMinutes / pendingRequests.size();
 
         return Map.of(
             "queueLength", pendingRequests.size(),
@@ -533,22 +538,22 @@ public class RequestsService {
     }
 
     /**
-     * Get all requests for a specific session
+     * Get requests for a specific session, newest first
      */
-    public List<PlaySongResponse> getRequestsBySessionId(UUID sessionId) {
+    public CursorPage<PlaySongResponse> getRequestsBySessionId(UUID sessionId, String cursor, int limit) {
         log.info("📋 Fetching requests for session: {}", sessionId);
-        List<Request> requests = requestsRepository.findBySessionIdOrderByCreatedAtDesc(sessionId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Request> requests = requestsRepository.findPageBySessionId(
+                sessionId, after.getTimestamp(), after.getId(), PageRequest.of(0, limit + 1));
         log.info("📋 Found {} requests for session {}", requests.size(), sessionId);
 
         // Log details of each request
         for (Request req : requests) {
-            log.info("  - Request ID: {}, SessionId: {}, Status: {}, Amount: {}",
+            log.debug("  - Request ID: {}, SessionId: {}, Status: {}, Amount: {}",
                 req.getId(), req.getSessionId(), req.getStatus(), req.getAmount());
         }
 
-        return requests.stream()
-                .map(this::convertPlayRequest)
-                .collect(Collectors.toList());
+        return toResponsePage(requests, limit);
     }
 
     /**
@@ -565,9 +570,7 @@ public class RequestsService {
 
         log.info("⏳ Found {} pending requests for session {}", pendingRequests.size(), sessionId);
 
-        return pendingRequests.stream()
-                .map(this::convertPlayRequest)
-                .collect(Collectors.toList());
+        return responseAssembler.toResponses(pendingRequests);
     }
 
     /**
@@ -583,19 +586,23 @@ public class RequestsService {
         List<Request> acceptedRequests = allRequests.stream()
                 .filter(r -> r.getStatus() == Request.RequestStatus.ACCEPTED)
                 .sorted((r1, r2) -> {
-                    // Handle null queue positions - put them at the end
-                    if (r1.getQueuePosition() == null && r2.getQueuePosition() == null) {
+                    // Manual rank first, then queue position; unranked requests go at the end
+                    Long rank1 = QueueRanks.effectiveRank(r1);
+                    Long rank2 = QueueRanks.effectiveRank(r2);
+                    if (rank1 == null && rank2 == null) {
                         return r1.getCreatedAt().compareTo(r2.getCreatedAt());
                     }
-                    if (r1.getQueuePosition() == null) return 1;
-                    if (r2.getQueuePosition() == null) return -1;
-                    return r1.getQueuePosition().compareTo(r2.getQueuePosition());
+                    if (rank1 == null) return 1;
+                    if (rank2 == null) return -1;
+                    return rank1.compareTo(rank2);
                 })
                 .collect(Collectors.toList());
 
-        return acceptedRequests.stream()
-                .map(this::convertPlayRequest)
-                .collect(Collectors.toList());
+        List<PlaySongResponse> responses = responseAssembler.toResponses(acceptedRequests);
+        for (int i = 0; i < responses.size(); i++) {
+            responses.get(i).setQueuePosition(i + 1);
+        }
+        return responses;
     }
 
 }
@@ -0,0 +1,320 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.entities.Session;
+import com.spinwish.backend.entities.SessionAnalytics;
+import com.spinwish.backend.models.responses.sessions.SessionAnalyticsBucket;
+import com.spinwish.backend.repositories.RequestsRepository;
+import com.spinwish.backend.repositories.SessionAnalyticsRepository;
+import com.spinwish.backend.repositories.SessionRepository;
+import com.spinwish.backend.utils.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Keeps the session_analytics aggregate current from request and listener events so the
+ * analytics endpoint reads one row instead of every request of the session.
+ *
+ * Counter deltas are applied in the same transaction as the request change. The per-minute
+ * timeline is kept in memory for the last TIMELINE_MINUTES and rebuilt from the requests
+ * table on first use. A missing or drifted aggregate is rebuilt from source.
+ */
+@Service
+@Slf4j
+public class SessionAnalyticsService {
+
+    static final int TIMELINE_MINUTES = 240;
+    private static final long TIMELINE_IDLE_MILLIS = 30 * 60_000L;
+    // Summing amounts in a different order can differ in the last bits
+    private static final double AMOUNT_TOLERANCE = 0.005;
+
+    private final SessionAnalyticsRepository analyticsRepository;
+    private final RequestsRepository requestsRepository;
+    private final SessionRepository sessionRepository;
+    private final TransactionTemplate repairTransaction;
+
+    private final Map<UUID, Timeline> timelines = new ConcurrentHashMap<>();
+
+    public SessionAnalyticsService(SessionAnalyticsRepository analyticsRepository,
+                                   RequestsRepository requestsRepository,
+                                   SessionRepository sessionRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.analyticsRepository = analyticsRepository;
+        this.requestsRepository = requestsRepository;
+        this.sessionRepository = sessionRepository;
+        this.repairTransaction = new TransactionTemplate(transactionManager);
+        this.repairTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void onRequestCreated(Request request) {
+        onStatusChanged(request, null);
+    }
+
+    /**
+     * Move a request from its previous status (null for a new request) to its current one
+     */
+    public void onStatusChanged(Request request, Request.RequestStatus previous) {
+        UUID sessionId = request.getSessionId();
+        Request.RequestStatus current = request.getStatus();
+        if (sessionId == null || previous == current) {
+            return;
+        }
+        double amount = request.getAmount() != null ? request.getAmount() : 0.0;
+        int[] counts = new int[Request.RequestStatus.values().length];
+        double acceptedAmount = 0.0;
+        if (previous != null) {
+            counts[previous.ordinal()]--;
+            if (previous == Request.RequestStatus.ACCEPTED) {
+                acceptedAmount -= amount;
+            }
+        }
+        if (current != null) {
+            counts[current.ordinal()]++;
+            if (current == Request.RequestStatus.ACCEPTED) {
+                acceptedAmount += amount;
+            }
+        }
+        applyDelta(sessionId, previous == null ? 1 : 0, counts, acceptedAmount);
+
+        LocalDateTime createdAt = request.getCreatedAt();
+        boolean newlyAccepted = current == Request.RequestStatus.ACCEPTED;
+        AfterCommit.run(() -> {
+            Timeline timeline = timelines.get(sessionId);
+            if (timeline == null) {
+                return;
+            }
+            if (previous == null && createdAt != null) {
+                timeline.addRequest(createdAt);
+            }
+            if (newlyAccepted) {
+                timeline.addEarnings(LocalDateTime.now(), amount);
+            }
+        });
+    }
+
+    public void onRequestDeleted(Request request) {
+        if (request.getSessionId() == null) {
+            return;
+        }
+        int[] counts = new int[Request.RequestStatus.values().length];
+        double acceptedAmount = 0.0;
+        if (request.getStatus() != null) {
+            counts[request.getStatus().ordinal()]--;
+            if (request.getStatus() == Request.RequestStatus.ACCEPTED) {
+                acceptedAmount -= request.getAmount() != null ? request.getAmount() : 0.0;
+            }
+        }
+        applyDelta(request.getSessionId(), -1, counts, acceptedAmount);
+    }
+
+    /**
+     * Start an empty aggregate for a new session
+     */
+    public void onSessionCreated(UUID sessionId) {
+        analyticsRepository.save(new SessionAnalytics(sessionId));
+    }
+
+    public void onListenerCount(UUID sessionId, int listeners) {
+        if (analyticsRepository.raisePeakListeners(sessionId, listeners) == 0
+                && !analyticsRepository.existsById(sessionId)) {
+            // The rebuild takes the session's current listener count into account
+            AfterCommit.run(() -> rebuildQuietly(sessionId));
+        }
+    }
+
+    private void applyDelta(UUID sessionId, int total, int[] counts, double acceptedAmount) {
+        int updated = analyticsRepository.applyDelta(sessionId, total,
+                counts[Request.RequestStatus.PENDING.ordinal()],
+                counts[Request.RequestStatus.ACCEPTED.ordinal()],
+                counts[Request.RequestStatus.REJECTED.ordinal()],
+                counts[Request.RequestStatus.PLAYED.ordinal()],
+                acceptedAmount);
+        if (updated == 0) {
+            // No aggregate yet; build it from source once this change is committed
+            AfterCommit.run(() -> rebuildQuietly(sessionId));
+        }
+    }
+
+    /**
+     * Current aggregate of a session, built from source if it does not exist yet
+     */
+    public SessionAnalytics getAnalytics(UUID sessionId) {
+        return analyticsRepository.findById(sessionId).orElseGet(() -> rebuild(sessionId));
+    }
+
+    /**
+     * Recompute the aggregate of a session from the requests table
+     */
+    public SessionAnalytics rebuild(UUID sessionId) {
+        try {
+            SessionAnalytics rebuilt = repairTransaction.execute(status -> rebuildInTransaction(sessionId));
+            timelines.remove(sessionId);
+            return rebuilt;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent rebuild created the row first
+            return analyticsRepository.findById(sessionId)
+                    .orElseThrow(() -> new RuntimeException("Failed to rebuild analytics for session: " + sessionId));
+        }
+    }
+
+    /**
+     * The aggregate row is locked before the requests are counted. A delta committed before
+     * the lock is in the count; one applied after it waits for the rebuild and lands on top.
+     * Without a row there is nothing to lock, and a delta that finds none rebuilds again.
+     */
+    private SessionAnalytics rebuildInTransaction(UUID sessionId) {
+        Session session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Session not found with id: " + sessionId));
+        SessionAnalytics analytics = analyticsRepository.findForUpdate(sessionId)
+                .orElseGet(() -> new SessionAnalytics(sessionId));
+
+        int total = 0;
+        int[] counts = new int[Request.RequestStatus.values().length];
+        double acceptedAmount = 0.0;
+        for (Object[] row : requestsRepository.summarizeBySession(sessionId)) {
+            Request.RequestStatus status = (Request.RequestStatus) row[0];
+            int count = ((Number) row[1]).intValue();
+            total += count;
+            if (status != null) {
+                counts[status.ordinal()] = count;
+                if (status == Request.RequestStatus.ACCEPTED) {
+                    acceptedAmount = ((Number) row[2]).doubleValue();
+                }
+            }
+        }
+
+        if (analytics.getRebuiltAt() != null) {
+            logDrift(sessionId, analytics, total, counts, acceptedAmount);
+        }
+        analytics.setTotalRequests(total);
+        analytics.setPendingRequests(counts[Request.RequestStatus.PENDING.ordinal()]);
+        analytics.setAcceptedRequests(counts[Request.RequestStatus.ACCEPTED.ordinal()]);
+        analytics.setRejectedRequests(counts[Request.RequestStatus.REJECTED.ordinal()]);
+        analytics.setPlayedRequests(counts[Request.RequestStatus.PLAYED.ordinal()]);
+        analytics.setAcceptedAmount(acceptedAmount);
+        int listeners = session.getListenerCount() != null ? session.getListenerCount() : 0;
+        analytics.setPeakListeners(Math.max(analytics.getPeakListeners(), listeners));
+        analytics.setRebuiltAt(LocalDateTime.now());
+        return analyticsRepository.save(analytics);
+    }
+
+    private void logDrift(UUID sessionId, SessionAnalytics stored, int total, int[] counts, double acceptedAmount) {
+        List<String> drifted = new ArrayList<>();
+        drift(drifted, "totalRequests", stored.getTotalRequests(), total);
+        drift(drifted, "pendingRequests", stored.getPendingRequests(), counts[Request.RequestStatus.PENDING.ordinal()]);
+        drift(drifted, "acceptedRequests", stored.getAcceptedRequests(), counts[Request.RequestStatus.ACCEPTED.ordinal()]);
+        drift(drifted, "rejectedRequests", stored.getRejectedRequests(), counts[Request.RequestStatus.REJECTED.ordinal()]);
+        drift(drifted, "playedRequests", stored.getPlayedRequests(), counts[Request.RequestStatus.PLAYED.ordinal()]);
+        if (Math.abs(stored.getAcceptedAmount() - acceptedAmount) > AMOUNT_TOLERANCE) {
+            drifted.add("acceptedAmount " + stored.getAcceptedAmount() + " -> " + acceptedAmount);
+        }
+        if (!drifted.isEmpty()) {
+            log.warn("Session {} analytics drifted: {}", sessionId, String.join(", ", drifted));
+        }
+    }
+
+    private static void drift(List<String> drifted, String counter, int stored, int rebuilt) {
+        if (stored != rebuilt) {
+            drifted.add(counter + " " + stored + " -> " + rebuilt);
+        }
+    }
+
+    private void rebuildQuietly(UUID sessionId) {
+        try {
+            rebuild(sessionId);
+        } catch (Exception e) {
+            log.error("Failed to rebuild analytics for session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Repair job: rebuild the aggregates of live sessions from source
+     */
+    @Scheduled(cron = "${spinwish.analytics.rebuild-cron:0 15 * * * *}")
+    public void rebuildLiveSessions() {
+        List<Session> live = sessionRepository.findByStatus(Session.SessionStatus.LIVE);
+        for (Session session : live) {
+            rebuildQuietly(session.getId());
+        }
+        if (!live.isEmpty()) {
+            log.info("Rebuilt analytics for {} live sessions", live.size());
+        }
+    }
+
+    /**
+     * Per-minute requests and earnings over the last TIMELINE_MINUTES, oldest first
+     */
+    public List<SessionAnalyticsBucket> getTimeline(UUID sessionId) {
+        Timeline timeline = timelines.computeIfAbsent(sessionId, this::loadTimeline);
+        return timeline.snapshot(LocalDateTime.now().minusMinutes(TIMELINE_MINUTES));
+    }
+
+    /**
+     * Earnings are placed at updatedAt because the accept time itself is not stored
+     */
+    private Timeline loadTimeline(UUID sessionId) {
+        Timeline timeline = new Timeline();
+        LocalDateTime since = LocalDateTime.now().minusMinutes(TIMELINE_MINUTES);
+        for (Request request : requestsRepository.findBySessionIdAndCreatedAtAfter(sessionId, since)) {
+            timeline.addRequest(request.getCreatedAt());
+            if (request.getStatus() == Request.RequestStatus.ACCEPTED || request.getStatus() == Request.RequestStatus.PLAYED) {
+                LocalDateTime earnedAt = request.getUpdatedAt() != null ? request.getUpdatedAt() : request.getCreatedAt();
+                timeline.addEarnings(earnedAt, request.getAmount() != null ? request.getAmount() : 0.0);
+            }
+        }
+        return timeline;
+    }
+
+    /**
+     * Drop timelines nobody has read recently
+     */
+    @Scheduled(fixedDelayString = "${spinwish.analytics.timeline-eviction-interval-ms:600000}")
+    public void evictIdleTimelines() {
+        long cutoff = System.currentTimeMillis() - TIMELINE_IDLE_MILLIS;
+        timelines.values().removeIf(timeline -> timeline.lastRead < cutoff);
+    }
+
+    private static final class Bucket {
+        final AtomicInteger requests = new AtomicInteger();
+        final DoubleAdder earnings = new DoubleAdder();
+    }
+
+    private static final class Timeline {
+        private final ConcurrentSkipListMap<LocalDateTime, Bucket> buckets = new ConcurrentSkipListMap<>();
+        private volatile long lastRead = System.currentTimeMillis();
+
+        void addRequest(LocalDateTime at) {
+            bucket(at).requests.incrementAndGet();
+        }
+
+        void addEarnings(LocalDateTime at, double amount) {
+            bucket(at).earnings.add(amount);
+        }
+
+        private Bucket bucket(LocalDateTime at) {
+            return buckets.computeIfAbsent(at.truncatedTo(ChronoUnit.MINUTES), minute -> new Bucket());
+        }
+
+        List<SessionAnalyticsBucket> snapshot(LocalDateTime since) {
+            lastRead = System.currentTimeMillis();
+            buckets.headMap(since.truncatedTo(ChronoUnit.MINUTES)).clear();
+            List<SessionAnalyticsBucket> result = new ArrayList<>(buckets.size());
+            buckets.forEach((minute, bucket) ->
+                    result.add(new SessionAnalyticsBucket(minute, bucket.requests.get(), bucket.earnings.sum())));
+            return result;
+        }
+    }
+}
@@ -2,14 +2,20 @@ package com.spinwish.backend.services;
 
 import com.spinwish.backend.entities.Request;
 import com.spinwish.backend.entities.Session;
+import com.spinwish.backend.entities.SessionAnalytics;
 import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.models.responses.pagination.CursorPage;
+import com.spinwish.backend.models.responses.sessions.ListenerCountEvent;
 import com.spinwish.backend.models.responses.sessions.SessionAnalyticsResponse;
+import com.spinwish.backend.models.responses.sessions.SessionSummary;
 import com.spinwish.backend.repositories.RequestsRepository;
 import com.spinwish.backend.repositories.SessionRepository;
 import com.spinwish.backend.repositories.UsersRepository;
+import com.spinwish.backend.utils.KeysetCursor;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,7 +31,6 @@ import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -41,6 +46,24 @@ public class SessionService {
     @Autowired
     private RequestsRepository requestsRepository;
 
+    @Autowired
+    private SessionAnalyticsService sessionAnalyticsService;
+
+    @Autowired
+    private ListenerPresenceService listenerPresenceService;
+
+    @Autowired
+    private LiveSessionDirectory liveSessionDirectory;
+
+    @Autowired
+    private DJDirectory djDirectory;
+
+    @Autowired
+    private DJStatsService djStatsService;
+
+    @Autowired
+    private GenreLoader genreLoader;
+
     private final Path rootLocation = Paths.get("uploads/session-images");
 
     @PostConstruct
@@ -93,6 +116,9 @@ public class SessionService {
 
         // Save session first to generate ID
         Session savedSession = sessionRepository.save(session);
+        sessionAnalyticsService.onSessionCreated(savedSession.getId());
+        djStatsService.onActivity(savedSession.getDjId());
+        liveSessionDirectory.invalidate();
 
         // Generate shareable link after ID is available
         if (savedSession.getShareableLink() == null) {
@@ -144,28 +170,32 @@ public class SessionService {
     }
 
     // Get all sessions
-    public List<Session> getAllSessions() {
-        return sessionRepository.findAll();
+    public CursorPage<SessionSummary> getAllSessions(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<SessionSummary> fetched = sessionRepository.findSummaryPage(after.getTimestamp(), after.getId(), PageRequest.of(0, limit + 1));
+        CursorPage<SessionSummary> page = KeysetCursor.slice(fetched, limit, s -> new KeysetCursor(s.getCreatedAt(), s.getId()));
+        genreLoader.forSessions(page.getItems());
+        return page;
     }
 
     // Get sessions by DJ
-    public List<Session> getSessionsByDj(UUID djId) {
-        return sessionRepository.findByDjId(djId);
+    public List<SessionSummary> getSessionsByDj(UUID djId) {
+        return genreLoader.forSessions(sessionRepository.findSummariesByDjId(djId));
     }
 
     // Get sessions by club
-    public List<Session> getSessionsByClub(UUID clubId) {
-        return sessionRepository.findByClubId(clubId);
+    public List<SessionSummary> getSessionsByClub(UUID clubId) {
+        return genreLoader.forSessions(sessionRepository.findSummariesByClubId(clubId));
     }
 
     // Get active sessions
-    public List<Session> getActiveSessions() {
-        return sessionRepository.findActiveSessions();
+    public LiveSessionDirectory.Listing<SessionSummary> getActiveSessions() {
+        return liveSessionDirectory.active();
     }
 
     // Get live sessions
-    public List<Session> getLiveSessions() {
-        return sessionRepository.findByStatusOrderByStartTimeDesc(Session.SessionStatus.LIVE);
+    public LiveSessionDirectory.Listing<SessionSummary> getLiveSessions() {
+        return liveSessionDirectory.live();
     }
 
     // Get current live session for DJ
@@ -190,8 +220,10 @@ public class SessionService {
             Users dj = djOpt.get();
             dj.setIsLive(true);
             usersRepository.save(dj);
+            djDirectory.onDJChanged(dj.getId());
         }
 
+        liveSessionDirectory.invalidate();
         return sessionRepository.save(session);
     }
 
@@ -212,8 +244,10 @@ public class SessionService {
             Users dj = djOpt.get();
             dj.setIsLive(false);
             usersRepository.save(dj);
+            djDirectory.onDJChanged(dj.getId());
         }
 
+        liveSessionDirectory.invalidate();
         return sessionRepository.save(session);
     }
 
@@ -226,6 +260,7 @@ public class SessionService {
 
         Session session = sessionOpt.get();
         session.setStatus(Session.SessionStatus.PAUSED);
+        liveSessionDirectory.invalidate();
         return sessionRepository.save(session);
     }
 
@@ -258,69 +293,63 @@ public class SessionService {
             session.setCurrentSongId(updatedSession.getCurrentSongId());
         }
 
+        liveSessionDirectory.invalidate();
         return sessionRepository.save(session);
     }
 
     // Update listener count
+    @Transactional
     public Session updateListenerCount(UUID sessionId, Integer listenerCount) {
-        Optional<Session> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isEmpty()) {
+        if (sessionRepository.setListenerCount(sessionId, listenerCount) == 0) {
             throw new RuntimeException("Session not found with id: " + sessionId);
         }
-
-        Session session = sessionOpt.get();
-        session.setListenerCount(listenerCount);
-        return sessionRepository.save(session);
+        if (listenerCount != null) {
+            sessionAnalyticsService.onListenerCount(sessionId, listenerCount);
+        }
+        return sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Session not found with id: " + sessionId));
     }
 
     // Add earnings to session
+    @Transactional
     public Session addEarnings(UUID sessionId, Double amount) {
-        Optional<Session> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isEmpty()) {
+        if (sessionRepository.addEarnings(sessionId, amount) == 0) {
             throw new RuntimeException("Session not found with id: " + sessionId);
         }
-
-        Session session = sessionOpt.get();
-        session.setTotalEarnings(session.getTotalEarnings() + amount);
-        return sessionRepository.save(session);
+        return sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Session not found with id: " + sessionId));
     }
 
     // Add tips to session
+    @Transactional
     public Session addTips(UUID sessionId, Double amount) {
-        Optional<Session> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isEmpty()) {
+        if (sessionRepository.addTips(sessionId, amount) == 0) {
             throw new RuntimeException("Session not found with id: " + sessionId);
         }
-
-        Session session = sessionOpt.get();
-        session.setTotalTips(session.getTotalTips() + amount);
-        return sessionRepository.save(session);
+        return sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Session not found with id: " + sessionId));
     }
 
     // Get sessions by date range
-    public List<Session> getSessionsByDateRange(String startDate, String endDate) {
+    public List<SessionSummary> getSessionsByDateRange(String startDate, String endDate) {
         try {
             LocalDateTime startDateTime = LocalDate.parse(startDate).atStartOfDay();
             LocalDateTime endDateTime = LocalDate.parse(endDate).atTime(23, 59, 59);
-            return sessionRepository.findSessionsInDateRange(startDateTime, endDateTime);
+            return genreLoader.forSessions(sessionRepository.findSummariesInDateRange(startDateTime, endDateTime));
         } catch (Exception e) {
             throw new RuntimeException("Invalid date format. Use yyyy-MM-dd format.");
         }
     }
 
     // Get today's live sessions
-    public List<Session> getTodaysLiveSessions() {
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().atTime(23, 59, 59);
-        List<Session> todaySessions = sessionRepository.findSessionsInDateRange(startOfDay, endOfDay);
-        return todaySessions.stream()
-                .filter(session -> session.getStatus() == Session.SessionStatus.LIVE)
-                .collect(Collectors.toList());
+    public LiveSessionDirectory.Listing<SessionSummary> getTodaysLiveSessions() {
+        return liveSessionDirectory.todaysLive();
     }
 
     // Delete session
     public void deleteSession(UUID sessionId) {
         sessionRepository.deleteById(sessionId);
+        liveSessionDirectory.invalidate();
     }
 
     // Helper method to generate shareable link
@@ -329,23 +358,23 @@ public class SessionService {
     }
 
     // Get sessions by genre
-    public List<Session> getSessionsByGenre(String genre) {
-        return sessionRepository.findByGenre(genre);
+    public List<SessionSummary> getSessionsByGenre(String genre) {
+        return genreLoader.forSessions(sessionRepository.findSummariesByGenre(genre));
     }
 
     // Get sessions accepting requests
-    public List<Session> getSessionsAcceptingRequests() {
-        return sessionRepository.findByIsAcceptingRequestsTrue();
+    public LiveSessionDirectory.Listing<SessionSummary> getSessionsAcceptingRequests() {
+        return liveSessionDirectory.acceptingRequests();
     }
 
     // Get sessions by status
-    public List<Session> getSessionsByStatus(Session.SessionStatus status) {
-        return sessionRepository.findByStatus(status);
+    public List<SessionSummary> getSessionsByStatus(Session.SessionStatus status) {
+        return genreLoader.forSessions(sessionRepository.findSummariesByStatus(status));
     }
 
     // Get sessions by type
-    public List<Session> getSessionsByType(Session.SessionType type) {
-        return sessionRepository.findByType(type);
+    public List<SessionSummary> getSessionsByType(Session.SessionType type) {
+        return genreLoader.forSessions(sessionRepository.findSummariesByType(type));
     }
 
     // Upload session image
@@ -413,6 +442,7 @@ public class SessionService {
         session.setThumbnailUrl(imageUrl); // For now, use same image
 
         Session savedSession = sessionRepository.save(session);
+        liveSessionDirectory.invalidate();
         log.info("Successfully updated session {} with image URL: {}", sessionId, imageUrl);
 
         return savedSession;
@@ -485,6 +515,7 @@ public class SessionService {
         session.setImageUrl(null);
         session.setThumbnailUrl(null);
 
+        liveSessionDirectory.invalidate();
         return sessionRepository.save(session);
     }
 
@@ -497,26 +528,17 @@ public class SessionService {
 
         Session session = sessionOpt.get();
 
-        // Get all requests for this session
-        List<Request> allRequests = requestsRepository.findBySessionIdOrderByCreatedAtDesc(sessionId);
+        // Running totals maintained on request events
+        SessionAnalytics aggregate = sessionAnalyticsService.getAnalytics(sessionId);
 
         // Calculate request metrics
-        int totalRequests = allRequests.size();
-        long pendingRequests = allRequests.stream()
-                .filter(r -> r.getStatus() == Request.RequestStatus.PENDING)
-                .count();
-        long acceptedRequests = allRequests.stream()
-                .filter(r -> r.getStatus() == Request.RequestStatus.ACCEPTED)
-                .count();
-        long rejectedRequests = allRequests.stream()
-                .filter(r -> r.getStatus() == Request.RequestStatus.REJECTED)
-                .count();
+        int totalRequests = aggregate.getTotalRequests();
+        int pendingRequests = aggregate.getPendingRequests();
+        int acceptedRequests = aggregate.getAcceptedRequests();
+        int rejectedRequests = aggregate.getRejectedRequests();
 
         // Calculate earnings metrics
-        double totalRequestPayments = allRequests.stream()
-                .filter(r -> r.getStatus() == Request.RequestStatus.ACCEPTED)
-                .mapToDouble(r -> r.getAmount() != null ? r.getAmount() : 0.0)
-                .sum();
+        double totalRequestPayments = aggregate.getAcceptedAmount();
 
         double totalEarnings = totalRequestPayments + (session.getTotalTips() != null ? session.getTotalTips() : 0.0);
 
@@ -556,12 +578,19 @@ public class SessionService {
         analytics.setEndTime(session.getEndTime());
 
         analytics.setActiveListeners(session.getListenerCount());
-        analytics.setPeakListeners(session.getListenerCount()); // TODO: Track peak separately
+        int currentListeners = session.getListenerCount() != null ? session.getListenerCount() : 0;
+        int peakListeners = Math.max(aggregate.getPeakListeners(), currentListeners);
+        ListenerCountEvent presence = listenerPresenceService.getListenerCounts(sessionId);
+        if (presence != null) {
+            peakListeners = Math.max(peakListeners, presence.getPeakListeners());
+            analytics.setUniqueListeners(presence.getUniqueListeners());
+        }
+        analytics.setPeakListeners(peakListeners);
 
         analytics.setTotalRequests(totalRequests);
-        analytics.setPendingRequests((int) pendingRequests);
-        analytics.setAcceptedRequests((int) acceptedRequests);
-        analytics.setRejectedRequests((int) rejectedRequests);
+        analytics.setPendingRequests(pendingRequests);
+        analytics.setAcceptedRequests(acceptedRequests);
+        analytics.setRejectedRequests(rejectedRequests);
 
         analytics.setTotalEarnings(totalEarnings);
         analytics.setTotalTips(session.getTotalTips());
@@ -573,6 +602,7 @@ public class SessionService {
         analytics.setSessionDurationMinutes(sessionDurationMinutes);
         analytics.setEarningsPerHour(earningsPerHour);
         analytics.setRequestsPerHour(requestsPerHour);
+        analytics.setTimeline(sessionAnalyticsService.getTimeline(sessionId));
 
         return analytics;
     }
@@ -580,64 +610,30 @@ public class SessionService {
     // Update session statistics when a request is accepted
     @Transactional
     public void updateSessionOnRequestAccepted(UUID sessionId, Double amount) {
-        Optional<Session> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isEmpty()) {
+        if (sessionRepository.incrementAccepted(sessionId, amount != null ? amount : 0.0) == 0) {
             log.warn("Session not found with id: {} when updating on request accepted", sessionId);
             return;
         }
-
-        Session session = sessionOpt.get();
-
-        // Update earnings
-        double currentEarnings = session.getTotalEarnings() != null ? session.getTotalEarnings() : 0.0;
-        session.setTotalEarnings(currentEarnings + (amount != null ? amount : 0.0));
-
-        // Update request counts
-        int currentAccepted = session.getAcceptedRequests() != null ? session.getAcceptedRequests() : 0;
-        session.setAcceptedRequests(currentAccepted + 1);
-
-        sessionRepository.save(session);
-        log.info("Updated session {} on request accepted: earnings={}, acceptedRequests={}",
-                sessionId, session.getTotalEarnings(), session.getAcceptedRequests());
+        log.info("Updated session {} on request accepted: earnings+={}", sessionId, amount);
     }
 
     // Update session statistics when a request is rejected
     @Transactional
     public void updateSessionOnRequestRejected(UUID sessionId) {
-        Optional<Session> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isEmpty()) {
+        if (sessionRepository.incrementRejected(sessionId) == 0) {
             log.warn("Session not found with id: {} when updating on request rejected", sessionId);
             return;
         }
-
-        Session session = sessionOpt.get();
-
-        // Update request counts
-        int currentRejected = session.getRejectedRequests() != null ? session.getRejectedRequests() : 0;
-        session.setRejectedRequests(currentRejected + 1);
-
-        sessionRepository.save(session);
-        log.info("Updated session {} on request rejected: rejectedRequests={}",
-                sessionId, session.getRejectedRequests());
+        log.info("Updated session {} on request rejected", sessionId);
     }
 
     // Update session statistics when a request is created
     @Transactional
     public void updateSessionOnRequestCreated(UUID sessionId) {
-        Optional<Session> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isEmpty()) {
+        if (sessionRepository.incrementTotalRequests(sessionId) == 0) {
             log.warn("Session not found with id: {} when updating on request created", sessionId);
             return;
         }
-
-        Session session = sessionOpt.get();
-
-        // Update total request count
-        int currentTotal = session.getTotalRequests() != null ? session.getTotalRequests() : 0;
-        session.setTotalRequests(currentTotal + 1);
-
-        sessionRepository.save(session);
-        log.info("Updated session {} on request created: totalRequests={}",
-                sessionId, session.getTotalRequests());
+        log.info("Updated session {} on request created", sessionId);
     }
 }
@@ -56,6 +56,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private ProfileRepository profileRepository;
 
+    @Autowired
+    private DJDirectory djDirectory;
+
     @Transactional
     public RegisterResponse createUser(RegisterRequest registerRequest){
         // Validate password confirmation
@@ -173,6 +176,7 @@ public class UserService implements UserDetailsService {
         newDJ.setUpdatedAt(LocalDateTime.now());
 
         Users savedDJ = userRepository.save(newDJ);
+        djDirectory.onDJChanged(savedDJ.getId());
 
         // Create profile for DJ
         Profile profile = new Profile();
@@ -353,6 +357,9 @@ public class UserService implements UserDetailsService {
 
         user.setUpdatedAt(LocalDateTime.now());
         Users updatedUser = userRepository.save(user);
+        if ("DJ".equals(updatedUser.getRole().getRoleName())) {
+            djDirectory.onDJChanged(updatedUser.getId());
+        }
 
         return getCurrentUserWithDetails();
     }
@@ -0,0 +1,227 @@
+package com.spinwish.backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * After-commit outbox for WebSocket broadcasts.
+ *
+ * A message published inside a transaction is held with that transaction and handed to
+ * the dispatcher only once it commits; a rollback discards it. The dispatcher thread
+ * collects messages for a short window and sends them as one batch. Messages with the
+ * same destination and key within a window coalesce into the latest one, so a request
+ * updated several times in quick succession goes out once, in its final state.
+ */
+@Component
+@Slf4j
+public class WebSocketOutbox {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long windowMs;
+    private final int capacity;
+
+    private final Object lock = new Object();
+    // Coalescing key, or the envelope itself when it has none, to the message to send
+    private LinkedHashMap<Object, Envelope> pending = new LinkedHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private volatile boolean running = true;
+    private Thread dispatcher;
+
+    private final Counter published;
+    private final Counter coalesced;
+    private final Counter droppedOverflow;
+    private final Counter droppedSendFailed;
+    private final Counter droppedRolledBack;
+    private final Timer publishLag;
+
+    public WebSocketOutbox(SimpMessagingTemplate messagingTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${spinwish.websocket.outbox.window-ms:50}") long windowMs,
+                           @Value("${spinwish.websocket.outbox.capacity:10000}") int capacity) {
+        this.messagingTemplate = messagingTemplate;
+        this.windowMs = windowMs;
+        this.capacity = capacity;
+        this.published = Counter.builder("websocket.outbox.published")
+                .description("WebSocket messages handed to the broker by the outbox")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("websocket.outbox.coalesced")
+                .description("WebSocket messages replaced by a later one with the same key")
+                .register(meterRegistry);
+        this.droppedOverflow = droppedCounter(meterRegistry, "overflow");
+        this.droppedSendFailed = droppedCounter(meterRegistry, "send_failed");
+        this.droppedRolledBack = droppedCounter(meterRegistry, "rolled_back");
+        this.publishLag = Timer.builder("websocket.outbox.publish.lag")
+                .description("Time from commit to handing a WebSocket message to the broker")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("websocket.outbox.pending", pendingCount, AtomicInteger::get)
+                .description("WebSocket messages waiting for the dispatcher")
+                .register(meterRegistry);
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("websocket.outbox.dropped")
+                .description("WebSocket messages never handed to the broker")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher = new Thread(this::dispatch, "websocket-outbox");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Publish a message that never coalesces with another
+     */
+    public void publish(String destination, Object payload) {
+        publish(destination, null, payload);
+    }
+
+    /**
+     * Publish a message after the current transaction commits, or right away outside one.
+     * A later message with the same destination and key replaces it until it is sent.
+     */
+    public void publish(String destination, Object key, Object payload) {
+        Envelope envelope = new Envelope(destination, key, payload);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            offer(List.of(envelope));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Envelope> recorded = (List<Envelope>) TransactionSynchronizationManager.getResource(this);
+        if (recorded == null) {
+            List<Envelope> buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // A nested REQUIRES_NEW transaction records into a buffer of its own
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(WebSocketOutbox.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(WebSocketOutbox.this, buffer);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(WebSocketOutbox.this);
+                    if (status == STATUS_COMMITTED) {
+                        offer(buffer);
+                    } else {
+                        droppedRolledBack.increment(buffer.size());
+                    }
+                }
+            });
+            recorded = buffer;
+        }
+        recorded.add(envelope);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void offer(List<Envelope> envelopes) {
+        long now = System.nanoTime();
+        synchronized (lock) {
+            for (Envelope envelope : envelopes) {
+                envelope.committedAt = now;
+                Object key = envelope.key != null ? new Key(envelope.destination, envelope.key) : envelope;
+                // The replacement moves to the end, after anything queued since the first one
+                Envelope replaced = pending.remove(key);
+                if (replaced != null) {
+                    envelope.committedAt = replaced.committedAt;
+                    coalesced.increment();
+                } else if (pending.size() >= capacity) {
+                    droppedOverflow.increment();
+                    continue;
+                }
+                pending.put(key, envelope);
+            }
+            pendingCount.set(pending.size());
+            lock.notifyAll();
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            LinkedHashMap<Object, Envelope> batch;
+            try {
+                synchronized (lock) {
+                    while (pending.isEmpty() && running) {
+                        lock.wait();
+                    }
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                }
+                if (running && windowMs > 0) {
+                    // Let updates arriving right behind this one coalesce into the batch
+                    Thread.sleep(windowMs);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            synchronized (lock) {
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                pendingCount.set(0);
+            }
+            batch.values().forEach(this::send);
+        }
+    }
+
+    private void send(Envelope envelope) {
+        try {
+            messagingTemplate.convertAndSend(envelope.destination, envelope.payload);
+            published.increment();
+            publishLag.record(System.nanoTime() - envelope.committedAt, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            droppedSendFailed.increment();
+            log.warn("Failed to publish WebSocket message to {}: {}", envelope.destination, e.getMessage());
+        }
+    }
+
+    private record Key(String destination, Object key) {
+    }
+
+    private static final class Envelope {
+        final String destination;
+        final Object key;
+        final Object payload;
+        long committedAt;
+
+        Envelope(String destination, Object key, Object payload) {
+            this.destination = destination;
+            this.key = key;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.spinwish.backend.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the Safaricom Daraja API, for load tests without the sandbox.
+ *
+ * It issues OAuth tokens, accepts STK pushes and answers STK queries with Daraja's
+ * payload shapes, and posts each push's callback to its CallBackURL after a random
+ * delay. Latencies, push failures, cancellations, failed payments and dropped callbacks
+ * are injected per DarajaSimulatorProperties. Like Daraja, a query of an unsettled
+ * transaction is an HTTP 500 and a settled query carries no receipt.
+ */
+@Service
+@Profile("daraja-sim")
+@Slf4j
+public class DarajaSimulator {
+
+    // Settled transactions are forgotten after this long
+    private static final Duration RETENTION = Duration.ofHours(1);
+    private static final DateTimeFormatter CHECKOUT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final DateTimeFormatter TRANSACTION_DATE = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final String RECEIPT_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private final DarajaSimulatorProperties properties;
+    private final ObjectMapper objectMapper;
+    private final HttpClient callbackClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ScheduledExecutorService callbacks;
+
+    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> tokens = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(ThreadLocalRandom.current().nextInt(100000));
+
+    public DarajaSimulator(DarajaSimulatorProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.callbacks = Executors.newScheduledThreadPool(properties.getCallbackThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "daraja-sim-callback-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.warn("Daraja simulator enabled: M-Pesa calls are answered locally, no money moves");
+    }
+
+    public Map<String, Object> token() {
+        pause(properties.getTokenLatencyMs());
+        String token = UUID.randomUUID().toString().replace("-", "");
+        tokens.put(token, Boolean.TRUE);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("access_token", token);
+        response.put("expires_in", "3599");
+        return response;
+    }
+
+    public boolean isValidToken(String authorization) {
+        return authorization != null && authorization.startsWith("Bearer ")
+                && tokens.containsKey(authorization.substring("Bearer ".length()));
+    }
+
+    /**
+     * Accept an STK push and schedule its callback; empty when a push failure is injected
+     */
+    public Optional<Map<String, Object>> push(Map<String, Object> request) {
+        pause(properties.getPushLatencyMs());
+        if (chance(properties.getPushFailureRate())) {
+            return Optional.empty();
+        }
+
+        String checkoutRequestId = "ws_CO_" + LocalDateTime.now().format(CHECKOUT_TIME) + "_" + sequence.incrementAndGet();
+        String merchantRequestId = "sim-" + sequence.get();
+        Transaction transaction = new Transaction(checkoutRequestId, merchantRequestId,
+                Double.parseDouble(String.valueOf(request.get("Amount"))),
+                String.valueOf(request.get("PhoneNumber")),
+                String.valueOf(request.get("CallBackURL")));
+        transactions.put(checkoutRequestId, transaction);
+
+        long delay = ThreadLocalRandom.current().nextLong(properties.getCallbackDelayMinMs(),
+                Math.max(properties.getCallbackDelayMinMs(), properties.getCallbackDelayMaxMs()) + 1);
+        callbacks.schedule(() -> settle(transaction), delay, TimeUnit.MILLISECONDS);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("MerchantRequestID", merchantRequestId);
+        response.put("CheckoutRequestID", checkoutRequestId);
+        response.put("ResponseCode", "0");
+        response.put("ResponseDescription", "Success. Request accepted for processing");
+        response.put("CustomerMessage", "Success. Request accepted for processing");
+        return Optional.of(response);
+    }
+
+    /**
+     * Query a transaction; empty while it is still being processed
+     */
+    public Optional<Map<String, Object>> query(String checkoutRequestId) {
+        pause(properties.getQueryLatencyMs());
+        Transaction transaction = transactions.get(checkoutRequestId);
+        if (transaction == null || transaction.resultCode == null) {
+            return Optional.empty();
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ResponseCode", "0");
+        response.put("ResponseDescription", "The service request has been accepted successsfully");
+        response.put("MerchantRequestID", transaction.merchantRequestId);
+        response.put("CheckoutRequestID", transaction.checkoutRequestId);
+        response.put("ResultCode", String.valueOf(transaction.resultCode));
+        response.put("ResultDesc", transaction.resultDesc);
+        return Optional.of(response);
+    }
+
+    /**
+     * When the callback of a transaction was posted; null if not yet or dropped
+     */
+    public LocalDateTime callbackSentAt(String checkoutRequestId) {
+        Transaction transaction = transactions.get(checkoutRequestId);
+        return transaction != null ? transaction.callbackSentAt : null;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void forgetSettled() {
+        LocalDateTime before = LocalDateTime.now().minus(RETENTION);
+        transactions.values().removeIf(t -> t.settledAt != null && t.settledAt.isBefore(before));
+        if (transactions.isEmpty()) {
+            tokens.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        callbacks.shutdownNow();
+    }
+
+    private void settle(Transaction transaction) {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < properties.getCancelRate()) {
+            transaction.resultCode = 1032;
+            transaction.resultDesc = "Request cancelled by user";
+        } else if (roll < properties.getCancelRate() + properties.getFailureRate()) {
+            transaction.resultCode = 1;
+            transaction.resultDesc = "The balance is insufficient for the transaction";
+        } else {
+            transaction.resultCode = 0;
+            transaction.resultDesc = "The service request is processed successfully.";
+            transaction.receipt = receipt();
+        }
+        transaction.settledAt = LocalDateTime.now();
+
+        if (chance(properties.getCallbackDropRate())) {
+            log.debug("Dropping callback of {}", transaction.checkoutRequestId);
+            return;
+        }
+        try {
+            String body = objectMapper.writeValueAsString(callbackOf(transaction));
+            transaction.callbackSentAt = LocalDateTime.now();
+            HttpResponse<Void> response = callbackClient.send(HttpRequest.newBuilder(URI.create(transaction.callbackUrl))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                log.warn("Callback of {} answered HTTP {}", transaction.checkoutRequestId, response.statusCode());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to post callback of {}: {}", transaction.checkoutRequestId, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> callbackOf(Transaction transaction) {
+        Map<String, Object> stkCallback = new LinkedHashMap<>();
+        stkCallback.put("MerchantRequestID", transaction.merchantRequestId);
+        stkCallback.put("CheckoutRequestID", transaction.checkoutRequestId);
+        stkCallback.put("ResultCode", transaction.resultCode);
+        stkCallback.put("ResultDesc", transaction.resultDesc);
+        if (transaction.resultCode == 0) {
+            List<Map<String, Object>> items = new ArrayList<>();
+            items.add(Map.of("Name", "Amount", "Value", transaction.amount));
+            items.add(Map.of("Name", "MpesaReceiptNumber", "Value", transaction.receipt));
+            items.add(Map.of("Name", "TransactionDate", "Value",
+                    Long.parseLong(transaction.settledAt.format(TRANSACTION_DATE))));
+            items.add(Map.of("Name", "PhoneNumber", "Value", Long.parseLong(transaction.phoneNumber)));
+            stkCallback.put("CallbackMetadata", Map.of("Item", items));
+        }
+        return Map.of("Body", Map.of("stkCallback", stkCallback));
+    }
+
+    private static String receipt() {
+        StringBuilder receipt = new StringBuilder(10);
+        for (int i = 0; i < 10; i++) {
+            receipt.append(RECEIPT_ALPHABET.charAt(ThreadLocalRandom.current().nextInt(RECEIPT_ALPHABET.length())));
+        }
+        return receipt.toString();
+    }
+
+    private static boolean chance(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Transaction {
+        final String checkoutRequestId;
+        final String merchantRequestId;
+        final double amount;
+        final String phoneNumber;
+        final String callbackUrl;
+        volatile Integer resultCode;
+        volatile String resultDesc;
+        volatile String receipt;
+        volatile LocalDateTime settledAt;
+        volatile LocalDateTime callbackSentAt;
+
+        Transaction(String checkoutRequestId, String merchantRequestId, double amount, String phoneNumber, String callbackUrl) {
+            this.checkoutRequestId = checkoutRequestId;
+            this.merchantRequestId = merchantRequestId;
+            this.amount = amount;
+            this.phoneNumber = phoneNumber;
+            this.callbackUrl = callbackUrl;
+        }
+    }
+}
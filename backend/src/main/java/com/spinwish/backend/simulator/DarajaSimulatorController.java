@@ -0,0 +1,86 @@
+package com.spinwish.backend.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Daraja endpoints of the simulator under /sim/daraja, laid out like the real API so
+ * only the host of the mpesa.* URLs changes, plus the payment load harness.
+ */
+@RestController
+@Profile("daraja-sim")
+@RequestMapping(path = "sim")
+@Slf4j
+public class DarajaSimulatorController {
+
+    private final DarajaSimulator simulator;
+    private final PaymentLoadHarness harness;
+    private final DarajaSimulatorProperties properties;
+
+    public DarajaSimulatorController(DarajaSimulator simulator, PaymentLoadHarness harness,
+                                     DarajaSimulatorProperties properties) {
+        this.simulator = simulator;
+        this.harness = harness;
+        this.properties = properties;
+    }
+
+    @GetMapping("/daraja/oauth/v1/generate")
+    public ResponseEntity<Map<String, Object>> generateToken() {
+        return ResponseEntity.ok(simulator.token());
+    }
+
+    @PostMapping("/daraja/mpesa/stkpush/v1/processrequest")
+    public ResponseEntity<Map<String, Object>> processRequest(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                              @RequestBody Map<String, Object> request) {
+        if (!simulator.isValidToken(authorization)) {
+            return error(HttpStatus.UNAUTHORIZED, "404.001.03", "Invalid Access Token");
+        }
+        return simulator.push(request)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> error(HttpStatus.INTERNAL_SERVER_ERROR, "500.001.1001",
+                        "Unable to lock subscriber, a transaction is already in process for the current subscriber"));
+    }
+
+    @PostMapping("/daraja/mpesa/stkpushquery/v1/query")
+    public ResponseEntity<Map<String, Object>> query(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                                     @RequestBody Map<String, Object> request) {
+        if (!simulator.isValidToken(authorization)) {
+            return error(HttpStatus.UNAUTHORIZED, "404.001.03", "Invalid Access Token");
+        }
+        return simulator.query(String.valueOf(request.get("CheckoutRequestID")))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> error(HttpStatus.INTERNAL_SERVER_ERROR, "500.001.1001",
+                        "The transaction is being processed"));
+    }
+
+    /**
+     * Drive tip payments from the caller's account to a DJ through the whole payment path
+     */
+    @PostMapping("/harness/payments")
+    public ResponseEntity<PaymentLoadHarness.Report> runHarness(Authentication authentication,
+                                                                @RequestParam String djName,
+                                                                @RequestParam(defaultValue = "10") int payers,
+                                                                @RequestParam(defaultValue = "10") int pushesPerPayer,
+                                                                @RequestParam(defaultValue = "10") int amount,
+                                                                @RequestParam(defaultValue = "60000") long settleTimeoutMs) {
+        if (payers < 1 || payers > properties.getHarnessMaxPayers()
+                || pushesPerPayer < 1 || pushesPerPayer > properties.getHarnessMaxPushesPerPayer()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(harness.run(authentication, djName, payers, pushesPerPayer, amount, settleTimeoutMs));
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String code, String message) {
+        return ResponseEntity.status(status).body(Map.of(
+                "requestId", UUID.randomUUID().toString(),
+                "errorCode", code,
+                "errorMessage", message));
+    }
+}
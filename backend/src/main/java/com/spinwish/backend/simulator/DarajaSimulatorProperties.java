@@ -0,0 +1,41 @@
+package com.spinwish.backend.simulator;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Behaviour of the local Daraja simulator: latencies, callback timing and injected failures.
+ * Rates are probabilities between 0 and 1.
+ */
+@Component
+@Profile("daraja-sim")
+@ConfigurationProperties(prefix = "spinwish.daraja-sim")
+@Getter
+@Setter
+public class DarajaSimulatorProperties {
+    // Delay before answering a token, push or query call
+    private long tokenLatencyMs = 20;
+    private long pushLatencyMs = 150;
+    private long queryLatencyMs = 80;
+
+    // Delay between accepting a push and posting its callback, uniformly distributed
+    private long callbackDelayMinMs = 2000;
+    private long callbackDelayMaxMs = 8000;
+
+    // Push calls answered with HTTP 500
+    private double pushFailureRate = 0.0;
+    // Settled transactions cancelled by the payer (1032) or failed (1)
+    private double cancelRate = 0.05;
+    private double failureRate = 0.02;
+    // Settled transactions whose callback is never posted; only a query finds them
+    private double callbackDropRate = 0.0;
+
+    private int callbackThreads = 8;
+
+    // Upper bounds of a harness run; every payer is one thread
+    private int harnessMaxPayers = 100;
+    private int harnessMaxPushesPerPayer = 1000;
+}
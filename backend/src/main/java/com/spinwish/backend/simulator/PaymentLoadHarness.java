@@ -0,0 +1,213 @@
+package com.spinwish.backend.simulator;
+
+import com.spinwish.backend.models.requests.payments.MpesaRequest;
+import com.spinwish.backend.repositories.StkPushSessionRepository;
+import com.spinwish.backend.repositories.StkPushSessionRepository.SessionStatus;
+import com.spinwish.backend.services.PaymentService;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load harness for the M-Pesa payment path against the Daraja simulator.
+ *
+ * N payer threads each push tips back to back through PaymentService, as the given user
+ * from distinct phone numbers. The harness then polls the STK sessions until each one
+ * settles or the timeout passes, and reports push latency percentiles, callback lag (from
+ * the simulator posting a callback to the session settling) and completion throughput.
+ */
+@Service
+@Profile("daraja-sim")
+@Slf4j
+public class PaymentLoadHarness {
+
+    private static final int STATUS_CHUNK = 500;
+    private static final long POLL_MS = 250;
+
+    private final PaymentService paymentService;
+    private final StkPushSessionRepository stkPushSessionRepository;
+    private final DarajaSimulator simulator;
+
+    public PaymentLoadHarness(PaymentService paymentService,
+                              StkPushSessionRepository stkPushSessionRepository,
+                              DarajaSimulator simulator) {
+        this.paymentService = paymentService;
+        this.stkPushSessionRepository = stkPushSessionRepository;
+        this.simulator = simulator;
+    }
+
+    public Report run(Authentication payer, String djName, int payers, int pushesPerPayer, int amount, long settleTimeoutMs) {
+        log.info("Payment harness: {} payers x {} pushes of {} to {}", payers, pushesPerPayer, amount, djName);
+        Map<String, LocalDateTime> pushedAt = new ConcurrentHashMap<>();
+        List<Long> pushNanos = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger pushFailures = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(payers);
+        CountDownLatch start = new CountDownLatch(1);
+        LocalDateTime started = LocalDateTime.now();
+        try {
+            for (int p = 0; p < payers; p++) {
+                String phoneNumber = String.format("2547%08d", p + 1);
+                pool.execute(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(payer);
+                    try {
+                        start.await();
+                        for (int i = 0; i < pushesPerPayer; i++) {
+                            push(phoneNumber, djName, amount, pushedAt, pushNanos, pushFailures);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            pool.awaitTermination(settleTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<String, SessionStatus> settled = awaitSettled(pushedAt.keySet(), settleTimeoutMs);
+
+        List<Long> lagNanos = new ArrayList<>();
+        List<Long> endToEndNanos = new ArrayList<>();
+        LocalDateTime lastSettled = started;
+        int completed = 0;
+        for (SessionStatus session : settled.values()) {
+            if ("COMPLETED".equals(session.getStatus())) {
+                completed++;
+            }
+            LocalDateTime settledAt = session.getLastUpdated();
+            if (settledAt == null) {
+                continue;
+            }
+            LocalDateTime callbackSentAt = simulator.callbackSentAt(session.getCheckoutRequestId());
+            if (callbackSentAt != null) {
+                lagNanos.add(Duration.between(callbackSentAt, settledAt).toNanos());
+            }
+            endToEndNanos.add(Duration.between(pushedAt.get(session.getCheckoutRequestId()), settledAt).toNanos());
+            if (settledAt.isAfter(lastSettled)) {
+                lastSettled = settledAt;
+            }
+        }
+
+        double seconds = Math.max(Duration.between(started, lastSettled).toMillis(), 1) / 1000.0;
+        Report report = new Report(payers, payers * pushesPerPayer, pushFailures.get(),
+                completed, settled.size() - completed, pushedAt.size() - settled.size(),
+                Percentiles.of(pushNanos), Percentiles.of(lagNanos), Percentiles.of(endToEndNanos),
+                Math.round(completed / seconds * 100) / 100.0);
+        log.info("Payment harness finished: {}", report);
+        return report;
+    }
+
+    private void push(String phoneNumber, String djName, int amount, Map<String, LocalDateTime> pushedAt,
+                      List<Long> pushNanos, AtomicInteger pushFailures) {
+        MpesaRequest request = new MpesaRequest();
+        request.setPhoneNumber(phoneNumber);
+        request.setAmount(String.valueOf(amount));
+        request.setDjName(djName);
+
+        LocalDateTime at = LocalDateTime.now();
+        long begin = System.nanoTime();
+        try {
+            String response = paymentService.pushStk(request);
+            pushNanos.add(System.nanoTime() - begin);
+            pushedAt.put(new JSONObject(response).getString("CheckoutRequestID"), at);
+        } catch (Exception e) {
+            pushFailures.incrementAndGet();
+            log.debug("Harness push from {} failed: {}", phoneNumber, e.getMessage());
+        }
+    }
+
+    /**
+     * Poll the sessions until none is pending or the timeout passes; returns the settled ones
+     */
+    private Map<String, SessionStatus> awaitSettled(Collection<String> checkoutRequestIds, long timeoutMs) {
+        Map<String, SessionStatus> settled = new ConcurrentHashMap<>();
+        List<String> pending = new ArrayList<>(checkoutRequestIds);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!pending.isEmpty() && System.nanoTime() < deadline) {
+            for (int from = 0; from < pending.size(); from += STATUS_CHUNK) {
+                List<String> chunk = pending.subList(from, Math.min(from + STATUS_CHUNK, pending.size()));
+                for (SessionStatus session : stkPushSessionRepository.findStatuses(chunk)) {
+                    if (!"PENDING".equals(session.getStatus())) {
+                        settled.put(session.getCheckoutRequestId(), session);
+                    }
+                }
+            }
+            pending.removeIf(settled::containsKey);
+            if (!pending.isEmpty()) {
+                try {
+                    Thread.sleep(POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * Outcome of a harness run. Pending sessions had not settled within the timeout.
+     */
+    public record Report(int payers,
+                         int pushes,
+                         int pushFailures,
+                         int completed,
+                         int failed,
+                         int pending,
+                         Percentiles pushLatencyMs,
+                         Percentiles callbackLagMs,
+                         Percentiles endToEndMs,
+                         double completionsPerSecond) {
+    }
+
+    public record Percentiles(int count, double p50, double p95, double p99, double max) {
+
+        static Percentiles of(List<Long> nanos) {
+            long[] sorted;
+            synchronized (nanos) {
+                sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+            }
+            if (sorted.length == 0) {
+                return new Percentiles(0, 0, 0, 0, 0);
+            }
+            Arrays.sort(sorted);
+            return new Percentiles(sorted.length, rank(sorted, 0.50), rank(sorted, 0.95), rank(sorted, 0.99),
+                    toMillis(sorted[sorted.length - 1]));
+        }
+
+        // Nearest-rank percentile
+        private static double rank(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return toMillis(sorted[Math.max(index, 0)]);
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.spinwish.backend.utils;
+
+import com.spinwish.backend.exceptions.InvalidCursorException;
+import com.spinwish.backend.models.responses.pagination.CursorPage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.BiFunction;
+
+/**
+ * Shared controller handling for keyset-paginated list endpoints
+ */
+@Slf4j
+public final class CursorResponses {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TRUNCATED_HEADER = "X-Result-Truncated";
+
+    private CursorResponses() {
+    }
+
+    /**
+     * Without cursor and limit the endpoint keeps returning a plain array, capped at
+     * LEGACY_LIMIT. A capped array carries X-Result-Truncated: true and the continuation in
+     * X-Next-Cursor, and is logged so callers still relying on full lists can be found.
+     * With either parameter the body is a CursorPage. Only an undecodable cursor is a 400;
+     * any other exception propagates to the global handler.
+     */
+    public static <T> ResponseEntity<?> respond(String cursor, Integer limit,
+                                                BiFunction<String, Integer, CursorPage<T>> loader) {
+        try {
+            if (cursor == null && limit == null) {
+                CursorPage<T> page = loader.apply(null, KeysetCursor.LEGACY_LIMIT);
+                ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+                if (page.isHasNext()) {
+                    log.warn("Unpaged list request truncated to {} items", KeysetCursor.LEGACY_LIMIT);
+                    builder.header(TRUNCATED_HEADER, "true");
+                    builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+                return builder.body(page.getItems());
+            }
+            return ResponseEntity.ok(loader.apply(cursor, KeysetCursor.resolveLimit(limit)));
+        } catch (InvalidCursorException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.spinwish.backend.utils;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+
+/**
+ * Conditional GET handling for endpoints served from versioned snapshots
+ */
+public final class ETagResponses {
+
+    private ETagResponses() {
+    }
+
+    /**
+     * 304 when the client already holds the current version, otherwise the body with its ETag.
+     * Responses are marked no-cache so clients revalidate instead of dropping the ETag.
+     */
+    public static <T> ResponseEntity<T> respond(String ifNoneMatch, String etag, T body) {
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+    }
+}
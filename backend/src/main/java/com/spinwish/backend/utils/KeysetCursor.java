@@ -0,0 +1,100 @@
+package com.spinwish.backend.utils;
+
+import com.spinwish.backend.exceptions.InvalidCursorException;
+import com.spinwish.backend.models.responses.pagination.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset cursor over (timestamp DESC, id DESC).
+ *
+ * The first page uses a sentinel later than any row, so repositories need a single
+ * "strictly after the cursor" query per list.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    // Cap for callers that do not send paging parameters yet; longer lists are flagged as truncated
+    public static final int LEGACY_LIMIT = 500;
+
+    public static final KeysetCursor START = new KeysetCursor(
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+            UUID.fromString("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+
+    private final LocalDateTime timestamp;
+    private final UUID id;
+
+    public KeysetCursor(LocalDateTime timestamp, UUID id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a client cursor; a missing cursor means the first page
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new InvalidCursorException();
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // Malformed Base64 and UUIDs surface as IllegalArgumentException
+            throw new InvalidCursorException();
+        }
+    }
+
+    /**
+     * Page size to use for a client supplied limit
+     */
+    public static int resolveLimit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(requested, MAX_LIMIT));
+    }
+
+    /**
+     * Build a page from rows fetched with limit + 1, the extra row only signals another page
+     */
+    public static <E> CursorPage<E> slice(List<E> fetched, int limit, Function<E, KeysetCursor> keyOf) {
+        boolean hasNext = fetched.size() > limit;
+        List<E> items = hasNext ? fetched.subList(0, limit) : fetched;
+        String nextCursor = hasNext ? keyOf.apply(items.get(items.size() - 1)).encode() : null;
+        return new CursorPage<>(items, nextCursor, hasNext);
+    }
+
+    /**
+     * Descending (timestamp, id) order matching the database; UUIDs compare as unsigned bytes
+     */
+    public static int compareDescending(LocalDateTime t1, UUID id1, LocalDateTime t2, UUID id2) {
+        int byTime = t2.compareTo(t1);
+        return byTime != 0 ? byTime : id2.toString().compareTo(id1.toString());
+    }
+}
@@ -0,0 +1,25 @@
+-- Who follows whom
+CREATE TABLE IF NOT EXISTS dj_followers (
+    id UUID PRIMARY KEY,
+    follower_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    dj_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_dj_followers_follower_dj UNIQUE (follower_id, dj_id)
+);
+CREATE INDEX IF NOT EXISTS idx_dj_followers_dj ON dj_followers (dj_id);
+
+-- Sharded follower counters; a DJ's follower count is the sum of its shards
+CREATE TABLE IF NOT EXISTS dj_follower_shards (
+    dj_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    shard INTEGER NOT NULL,
+    delta BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (dj_id, shard)
+);
+
+-- Existing counts predate the follower graph; keep them as the baseline in shard 0
+INSERT INTO dj_follower_shards (dj_id, shard, delta)
+SELECT u.id, s.shard, CASE WHEN s.shard = 0 THEN COALESCE(u.followers, 0) ELSE 0 END
+FROM users u
+JOIN roles r ON r.id = u.role_id AND r.role_name = 'DJ'
+CROSS JOIN generate_series(0, 7) AS s(shard)
+ON CONFLICT (dj_id, shard) DO NOTHING;
@@ -0,0 +1,18 @@
+-- Per-DJ activity of each finished day, written by the nightly rollup
+CREATE TABLE IF NOT EXISTS dj_daily_stats (
+    dj_id UUID NOT NULL,
+    stat_date DATE NOT NULL,
+    earnings DOUBLE PRECISION NOT NULL DEFAULT 0,
+    sessions INTEGER NOT NULL DEFAULT 0,
+    requests INTEGER NOT NULL DEFAULT 0,
+    songs_played INTEGER NOT NULL DEFAULT 0,
+    rolled_up_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (dj_id, stat_date)
+);
+CREATE INDEX IF NOT EXISTS idx_dj_daily_stats_date ON dj_daily_stats (stat_date);
+
+-- Range aggregates behind the rollup and the not yet rolled up part of DJ stats
+CREATE INDEX IF NOT EXISTS idx_sessions_dj_created ON sessions (dj_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_tip_payments_dj_date ON tip_payments (dj_id, transaction_date);
+CREATE INDEX IF NOT EXISTS idx_request_payments_request ON request_payments (request_id);
+CREATE INDEX IF NOT EXISTS idx_requests_status_updated ON requests (status, updated_at);
@@ -0,0 +1,15 @@
+-- Raw M-Pesa STK callbacks, stored on arrival and processed asynchronously
+CREATE TABLE IF NOT EXISTS mpesa_callback_inbox (
+    id UUID PRIMARY KEY,
+    checkout_request_id VARCHAR(255),
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    received_at TIMESTAMP NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    claimed_at TIMESTAMP,
+    processed_at TIMESTAMP,
+    last_error VARCHAR(1000),
+    CONSTRAINT uk_mpesa_callback_inbox_checkout UNIQUE (checkout_request_id)
+);
+CREATE INDEX IF NOT EXISTS idx_mpesa_callback_inbox_due ON mpesa_callback_inbox (status, next_attempt_at);
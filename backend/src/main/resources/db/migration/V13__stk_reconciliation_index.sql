@@ -0,0 +1,2 @@
+-- Pending STK sessions are paged oldest first by reconciliation
+CREATE INDEX IF NOT EXISTS idx_stk_push_sessions_status_created ON stk_push_sessions (status, created_at, id);
@@ -0,0 +1,3 @@
+-- One payment per M-Pesa receipt; duplicates are skipped before insert, these are the backstop
+CREATE UNIQUE INDEX IF NOT EXISTS uk_request_payments_receipt ON request_payments (receipt_number);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_tip_payments_receipt ON tip_payments (receipt_number);
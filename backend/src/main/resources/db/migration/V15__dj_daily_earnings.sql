@@ -0,0 +1,29 @@
+-- Per-DJ earnings of each finished day, written by the nightly rollup and re-rolled when
+-- a request of that day changes status
+CREATE TABLE IF NOT EXISTS dj_daily_earnings (
+    dj_id UUID NOT NULL,
+    earn_date DATE NOT NULL,
+    tips_amount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    tips_count INTEGER NOT NULL DEFAULT 0,
+    accepted_amount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    accepted_count INTEGER NOT NULL DEFAULT 0,
+    pending_amount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    pending_count INTEGER NOT NULL DEFAULT 0,
+    rolled_up_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (dj_id, earn_date)
+);
+CREATE INDEX IF NOT EXISTS idx_dj_daily_earnings_date ON dj_daily_earnings (earn_date);
+
+-- Sum of each DJ's dj_daily_earnings rows, answering all time summaries in one read
+CREATE TABLE IF NOT EXISTS dj_earnings_totals (
+    dj_id UUID PRIMARY KEY,
+    first_date DATE NOT NULL,
+    through_date DATE NOT NULL,
+    tips_amount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    tips_count BIGINT NOT NULL DEFAULT 0,
+    accepted_amount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    accepted_count BIGINT NOT NULL DEFAULT 0,
+    pending_amount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    pending_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,8 @@
+-- Keyset pagination skips rows whose timestamp is NULL; give every row one and keep it set
+UPDATE requests SET created_at = COALESCE(updated_at, TIMESTAMP '1970-01-01 00:00:00') WHERE created_at IS NULL;
+UPDATE sessions SET created_at = COALESCE(updated_at, TIMESTAMP '1970-01-01 00:00:00') WHERE created_at IS NULL;
+UPDATE stk_push_sessions SET created_at = COALESCE(last_updated, TIMESTAMP '1970-01-01 00:00:00') WHERE created_at IS NULL;
+
+ALTER TABLE requests ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE sessions ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE stk_push_sessions ALTER COLUMN created_at SET NOT NULL;
@@ -0,0 +1,9 @@
+-- Songs played are counted by the time a request was first played, which never moves;
+-- updated_at moved on every later save and counted the same request on several days
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS played_at TIMESTAMP;
+UPDATE requests SET played_at = updated_at WHERE status = 'PLAYED' AND played_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_requests_dj_played ON requests (dj_id, played_at);
+CREATE INDEX IF NOT EXISTS idx_requests_played ON requests (played_at);
+
+-- Rolled up days counted songs by updated_at; DJStatsService rolls everything up again on start
+DELETE FROM dj_daily_stats;
@@ -0,0 +1,18 @@
+-- V14 added the named receipt indexes but left the unique constraint Hibernate generated
+-- for the old unique column; drop it so each receipt is checked against one index
+DO $$
+DECLARE
+    receipt_constraint RECORD;
+BEGIN
+    FOR receipt_constraint IN
+        SELECT c.conrelid::regclass AS table_name, c.conname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.contype = 'u'
+          AND c.conrelid IN ('request_payments'::regclass, 'tip_payments'::regclass)
+          AND array_length(c.conkey, 1) = 1
+          AND a.attname = 'receipt_number'
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', receipt_constraint.table_name, receipt_constraint.conname);
+    END LOOP;
+END $$;
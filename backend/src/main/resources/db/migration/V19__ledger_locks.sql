@@ -0,0 +1,5 @@
+-- Rows locked FOR UPDATE to serialize a ledger's rollup and re-rolls across instances
+CREATE TABLE IF NOT EXISTS ledger_locks (
+    name VARCHAR(64) PRIMARY KEY
+);
+INSERT INTO ledger_locks (name) VALUES ('dj_earnings') ON CONFLICT (name) DO NOTHING;
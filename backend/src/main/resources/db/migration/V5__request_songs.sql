@@ -0,0 +1,23 @@
+-- Normalize multi-song requests into request_songs
+-- requests.songs_id (comma-joined UUIDs) is kept for older clients
+
+CREATE TABLE IF NOT EXISTS request_songs (
+    id UUID PRIMARY KEY,
+    request_id UUID NOT NULL REFERENCES requests(id) ON DELETE CASCADE,
+    song_id UUID NOT NULL,
+    position INTEGER NOT NULL,
+    CONSTRAINT uk_request_songs_request_position UNIQUE (request_id, position)
+);
+
+CREATE INDEX IF NOT EXISTS idx_request_songs_song_request ON request_songs (song_id, request_id);
+CREATE INDEX IF NOT EXISTS idx_requests_dj_status ON requests (dj_id, status);
+CREATE INDEX IF NOT EXISTS idx_requests_session_status ON requests (session_id, status);
+
+-- Backfill from the legacy CSV column
+INSERT INTO request_songs (id, request_id, song_id, position)
+SELECT gen_random_uuid(), r.id, CAST(TRIM(s.song_id) AS UUID), (s.ordinality - 1)::INTEGER
+FROM requests r
+CROSS JOIN LATERAL unnest(string_to_array(r.songs_id, ',')) WITH ORDINALITY AS s(song_id, ordinality)
+WHERE r.songs_id IS NOT NULL
+  AND TRIM(s.song_id) ~* '^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$'
+ON CONFLICT (request_id, position) DO NOTHING;
@@ -0,0 +1,2 @@
+-- Sparse manual queue ordering; rows without a rank fall back to queue_position
+ALTER TABLE requests ADD COLUMN IF NOT EXISTS queue_rank BIGINT;
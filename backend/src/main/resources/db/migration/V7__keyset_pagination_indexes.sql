@@ -0,0 +1,8 @@
+-- Indexes backing keyset pagination on (timestamp DESC, id DESC)
+CREATE INDEX IF NOT EXISTS idx_requests_client_created ON requests (client_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_requests_dj_created ON requests (dj_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_requests_session_created ON requests (session_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_requests_created_id ON requests (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_sessions_created_id ON sessions (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_request_payments_date_id ON request_payments (transaction_date, id);
+CREATE INDEX IF NOT EXISTS idx_tip_payments_date_id ON tip_payments (transaction_date, id);
@@ -0,0 +1,28 @@
+-- Running analytics totals per session, maintained on request events
+CREATE TABLE IF NOT EXISTS session_analytics (
+    session_id UUID PRIMARY KEY REFERENCES sessions(id) ON DELETE CASCADE,
+    total_requests INTEGER NOT NULL DEFAULT 0,
+    pending_requests INTEGER NOT NULL DEFAULT 0,
+    accepted_requests INTEGER NOT NULL DEFAULT 0,
+    rejected_requests INTEGER NOT NULL DEFAULT 0,
+    played_requests INTEGER NOT NULL DEFAULT 0,
+    accepted_amount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    peak_listeners INTEGER NOT NULL DEFAULT 0,
+    rebuilt_at TIMESTAMP
+);
+
+INSERT INTO session_analytics (session_id, total_requests, pending_requests, accepted_requests,
+                               rejected_requests, played_requests, accepted_amount, peak_listeners, rebuilt_at)
+SELECT s.id,
+       COUNT(r.id),
+       COUNT(r.id) FILTER (WHERE r.status = 'PENDING'),
+       COUNT(r.id) FILTER (WHERE r.status = 'ACCEPTED'),
+       COUNT(r.id) FILTER (WHERE r.status = 'REJECTED'),
+       COUNT(r.id) FILTER (WHERE r.status = 'PLAYED'),
+       COALESCE(SUM(r.amount) FILTER (WHERE r.status = 'ACCEPTED'), 0),
+       COALESCE(s.listener_count, 0),
+       NOW()
+FROM sessions s
+LEFT JOIN requests r ON r.session_id = s.id
+GROUP BY s.id, s.listener_count
+ON CONFLICT (session_id) DO NOTHING;
@@ -0,0 +1,3 @@
+-- Role-filtered DJ lookups used by the DJ directory and the live DJ listing
+CREATE INDEX IF NOT EXISTS idx_users_role_live ON users (role_id, is_live);
+CREATE INDEX IF NOT EXISTS idx_user_genres_user ON user_genres (user_id);
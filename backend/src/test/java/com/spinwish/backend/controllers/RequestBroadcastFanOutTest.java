@@ -0,0 +1,215 @@
+package com.spinwish.backend.controllers;
+
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.models.responses.users.PlaySongResponse;
+import com.spinwish.backend.services.WebSocketOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Broker outbound messages per request event, before and after the scoped topics.
+ * A simple broker is set up with SESSIONS sessions of LISTENERS listeners and one DJ each.
+ * "Before" has every client on the global topic, as all clients were before the scoped
+ * topics existed; "after" has every client on its own session or DJ topic.
+ */
+class RequestBroadcastFanOutTest {
+
+    private static final int SESSIONS = 20;
+    private static final int LISTENERS = 25;
+    private static final int CLIENTS = SESSIONS * (LISTENERS + 1);
+    private static final int REORDERED = 10;
+
+    private final List<UUID> sessionIds = new ArrayList<>();
+    private final List<UUID> djIds = new ArrayList<>();
+    private final AtomicLong outbound = new AtomicLong();
+
+    private ExecutorSubscribableChannel clientInbound;
+    private ExecutorSubscribableChannel brokerChannel;
+    private SimpleBrokerMessageHandler broker;
+    private SimpMessagingTemplate template;
+    private MeterRegistry meterRegistry;
+    private int subscriptions;
+
+    @BeforeEach
+    void setUp() {
+        clientInbound = new ExecutorSubscribableChannel();
+        brokerChannel = new ExecutorSubscribableChannel();
+        startBroker();
+        template = new SimpMessagingTemplate(brokerChannel);
+        meterRegistry = new SimpleMeterRegistry();
+
+        for (int i = 0; i < SESSIONS; i++) {
+            sessionIds.add(UUID.randomUUID());
+            djIds.add(UUID.randomUUID());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    @Test
+    void updateReachesOnlyTheAffectedSessionAndDj() {
+        subscribeAllToLegacyTopic();
+        long before = outboundFor(broadcaster(true), b -> b.broadcastRequestUpdate(request(0), response()));
+
+        subscribeAllToScopedTopics();
+        long after = outboundFor(broadcaster(false), b -> b.broadcastRequestUpdate(request(0), response()));
+
+        assertThat(before).isEqualTo(CLIENTS);
+        assertThat(after).isEqualTo(LISTENERS + 1);
+        assertThat(published("session") + published("dj")).isEqualTo(2);
+    }
+
+    @Test
+    void reorderIsOneMessagePerSessionAndDj() {
+        subscribeAllToLegacyTopic();
+        long before = outboundFor(broadcaster(true), this::reorder);
+
+        subscribeAllToScopedTopics();
+        long after = outboundFor(broadcaster(false), this::reorder);
+
+        assertThat(before).isEqualTo((long) REORDERED * CLIENTS);
+        assertThat(after).isEqualTo(LISTENERS + 1);
+    }
+
+    @Test
+    void legacyShimDoesNotReachMigratedClients() {
+        subscribeAllToScopedTopics();
+        long during = outboundFor(broadcaster(true), b -> b.broadcastRequestUpdate(request(0), response()));
+
+        assertThat(during).isEqualTo(LISTENERS + 1);
+        assertThat(published("legacy")).isEqualTo(1);
+    }
+
+    private void reorder(RequestWebSocketBroadcaster broadcaster) {
+        List<Request> requests = new ArrayList<>();
+        List<PlaySongResponse> responses = new ArrayList<>();
+        for (int i = 0; i < REORDERED; i++) {
+            Request request = request(0);
+            request.setQueuePosition(i + 1);
+            requests.add(request);
+            responses.add(response());
+        }
+        broadcaster.broadcastQueueReorder(djIds.get(0), requests, responses);
+    }
+
+    private long outboundFor(RequestWebSocketBroadcaster broadcaster,
+                             Consumer<RequestWebSocketBroadcaster> event) {
+        outbound.set(0);
+        event.accept(broadcaster);
+        return outbound.get();
+    }
+
+    private RequestWebSocketBroadcaster broadcaster(boolean legacyTopicEnabled) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new RequestWebSocketBroadcaster(new DirectOutbox(template, meterRegistry), meterRegistry, legacyTopicEnabled);
+    }
+
+    private double published(String scope) {
+        return meterRegistry.counter("websocket.request.messages", "scope", scope).count();
+    }
+
+    private void subscribeAllToLegacyTopic() {
+        for (int i = 0; i < CLIENTS; i++) {
+            subscribe(RequestWebSocketBroadcaster.LEGACY_TOPIC);
+        }
+    }
+
+    private void subscribeAllToScopedTopics() {
+        // Clients that have moved over no longer hold legacy subscriptions
+        broker.stop();
+        startBroker();
+        for (int i = 0; i < SESSIONS; i++) {
+            for (int j = 0; j < LISTENERS; j++) {
+                subscribe(RequestWebSocketBroadcaster.sessionTopic(sessionIds.get(i)));
+            }
+            subscribe(RequestWebSocketBroadcaster.djTopic(djIds.get(i)));
+        }
+    }
+
+    private void startBroker() {
+        // Count only messages delivered to subscribers, not connect acknowledgements
+        MessageChannel clientOutbound = (message, timeout) -> {
+            if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+                outbound.incrementAndGet();
+            }
+            return true;
+        };
+        broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        broker.start();
+    }
+
+    /**
+     * Connect a new client and subscribe it; the broker delivers only to connected sessions
+     */
+    private void subscribe(String destination) {
+        String sessionId = "client-" + subscriptions;
+        SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        connect.setSessionId(sessionId);
+        clientInbound.send(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-" + subscriptions);
+        accessor.setDestination(destination);
+        subscriptions++;
+        clientInbound.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private Request request(int session) {
+        Request request = new Request();
+        request.setId(UUID.randomUUID());
+        request.setSessionId(sessionIds.get(session));
+        request.setDjId(djIds.get(session));
+        request.setStatus(Request.RequestStatus.ACCEPTED);
+        request.setQueuePosition(1);
+        request.setUpdatedAt(LocalDateTime.now());
+        return request;
+    }
+
+    private PlaySongResponse response() {
+        PlaySongResponse response = new PlaySongResponse();
+        response.setQueuePosition(1);
+        return response;
+    }
+
+    /**
+     * Sends straight to the broker, so each event can be measured on its own without the
+     * dispatcher's batching window
+     */
+    private static final class DirectOutbox extends WebSocketOutbox {
+
+        private final SimpMessagingTemplate template;
+
+        DirectOutbox(SimpMessagingTemplate template, MeterRegistry meterRegistry) {
+            super(template, meterRegistry, 0, 1);
+            this.template = template;
+        }
+
+        @Override
+        public void publish(String destination, Object key, Object payload) {
+            template.convertAndSend(destination, payload);
+        }
+    }
+}
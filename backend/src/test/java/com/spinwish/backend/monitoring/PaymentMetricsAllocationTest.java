@@ -0,0 +1,100 @@
+package com.spinwish.backend.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Heap allocated by the PaymentMetrics hot path, measured on the calling thread with
+ * ThreadMXBean.getThreadAllocatedBytes. Once its meters exist, recording an event should
+ * allocate nothing and register nothing. A control that builds its counter per call, as
+ * PaymentMetrics used to, shows the probe sees allocation when there is some.
+ */
+class PaymentMetricsAllocationTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+    private static final Duration LAG = Duration.ofMillis(40);
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private MeterRegistry meterRegistry;
+    private PaymentMetrics paymentMetrics;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Thread allocation counting is not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        paymentMetrics = new PaymentMetrics(meterRegistry);
+    }
+
+    @Test
+    void hotPathAllocatesNothingOnceMetersExist() {
+        run(WARMUP, this::callbackEvents);
+        int meters = meterRegistry.getMeters().size();
+
+        double perIteration = allocatedPerIteration(this::callbackEvents);
+
+        assertThat(perIteration).isLessThan(1.0);
+        assertThat(meterRegistry.getMeters()).hasSize(meters);
+        assertThat(meterRegistry.get("payment.completed").tag("type", "REQUEST").counter().count())
+                .isEqualTo(WARMUP + ITERATIONS);
+    }
+
+    @Test
+    void probeSeesPerCallRegistration() {
+        run(WARMUP, this::builtPerCall);
+
+        assertThat(allocatedPerIteration(this::builtPerCall)).isGreaterThan(16.0);
+    }
+
+    /**
+     * One successful request payment callback, one failed tip and one duplicate receipt
+     */
+    private void callbackEvents() {
+        long push = paymentMetrics.startStkPushTimer();
+        paymentMetrics.recordPaymentInitiated("REQUEST");
+        paymentMetrics.stopStkPushTimer(push, true);
+
+        long callback = paymentMetrics.startCallbackProcessingTimer();
+        paymentMetrics.recordCallbackReceived("0");
+        paymentMetrics.recordPaymentCompleted("REQUEST", 150.0);
+        paymentMetrics.recordCallbackProcessed(true);
+        paymentMetrics.stopCallbackProcessingTimer(callback, true);
+        paymentMetrics.recordCallbackInboxLag(LAG, true);
+
+        paymentMetrics.recordCallbackReceived("1032");
+        paymentMetrics.recordPaymentCancelled("TIP");
+        paymentMetrics.recordPaymentFailed("TIP", "2001");
+        paymentMetrics.recordDuplicateReceipt("cache");
+        paymentMetrics.recordReconciliationOutcome("still_pending");
+    }
+
+    private void builtPerCall() {
+        Counter.builder("payment.completed").tag("type", "REQUEST").register(meterRegistry).increment();
+    }
+
+    private double allocatedPerIteration(Runnable iteration) {
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        run(ITERATIONS, iteration);
+        long after = threads.getThreadAllocatedBytes(thread);
+        return (double) (after - before) / ITERATIONS;
+    }
+
+    private static void run(int times, Runnable iteration) {
+        for (int i = 0; i < times; i++) {
+            iteration.run();
+        }
+    }
+}
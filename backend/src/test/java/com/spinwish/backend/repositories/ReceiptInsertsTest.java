@@ -0,0 +1,71 @@
+package com.spinwish.backend.repositories;
+
+import com.spinwish.backend.entities.Roles;
+import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.entities.payments.TipPayments;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A second insert of a recorded receipt is skipped under its savepoint, and the transaction
+ * it ran in carries on.
+ */
+@DataJpaTest
+class ReceiptInsertsTest {
+
+    @Autowired
+    private TipPaymentsRepository tipPaymentsRepository;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    void recordedReceiptIsSkippedWithoutFailingTheTransaction() {
+        Users dj = dj();
+
+        assertThat(tipPaymentsRepository.insertIfReceiptAbsent(tip(dj, "SFK0000001", 100.0))).isTrue();
+        assertThat(tipPaymentsRepository.insertIfReceiptAbsent(tip(dj, "SFK0000001", 100.0))).isFalse();
+        assertThat(tipPaymentsRepository.insertIfReceiptAbsent(tip(dj, "SFK0000002", 50.0))).isTrue();
+
+        assertThat(tipPaymentsRepository.findAll())
+                .extracting(TipPayments::getReceiptNumber)
+                .containsExactlyInAnyOrder("SFK0000001", "SFK0000002");
+    }
+
+    private Users dj() {
+        Roles role = new Roles();
+        role.setRoleName("DJ");
+        role.setCreatedAt(LocalDateTime.now());
+        role.setUpdatedAt(LocalDateTime.now());
+        roleRepository.save(role);
+
+        Users dj = new Users();
+        dj.setEmailAddress("dj-" + UUID.randomUUID() + "@spinwish.test");
+        dj.setActualUsername("dj");
+        dj.setPassword("secret");
+        dj.setIsActive(true);
+        dj.setRole(role);
+        // The insert goes straight to JDBC, so the DJ row must be written first
+        return usersRepository.saveAndFlush(dj);
+    }
+
+    private TipPayments tip(Users dj, String receipt, double amount) {
+        TipPayments tip = new TipPayments();
+        tip.setReceiptNumber(receipt);
+        tip.setPayerName("M-Pesa User");
+        tip.setPhoneNumber("254700000000");
+        tip.setAmount(amount);
+        tip.setTransactionDate(LocalDateTime.now());
+        tip.setDj(dj);
+        return tip;
+    }
+}
@@ -0,0 +1,189 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.config.MpesaConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * DarajaClient against a local stub of the Daraja endpoints: responses, error statuses,
+ * timeouts, call slots and the timers they are recorded on.
+ */
+class DarajaClientTest {
+
+    private static final long READ_TIMEOUT_MS = 500;
+
+    private HttpServer server;
+    private String baseUrl;
+    private SimpleMeterRegistry meterRegistry;
+    private DarajaClient client;
+    private final List<Recorded> received = new CopyOnWriteArrayList<>();
+    // Holds /slow responses until released, so no stub thread outlives the test
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/oauth", exchange -> respond(exchange, 200, "{\"access_token\":\"token\",\"expires_in\":\"3599\"}"));
+        server.createContext("/stkpush", exchange -> respond(exchange, 200, "{\"ResponseCode\":\"0\"}"));
+        server.createContext("/rejected", exchange -> respond(exchange, 401, "{\"errorCode\":\"404.001.03\"}"));
+        server.createContext("/slow", exchange -> {
+            record(exchange);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            send(exchange, 200, "{}");
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        meterRegistry = new SimpleMeterRegistry();
+        client = new DarajaClient(config(2, 100), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void getParsesTheJsonResponse() throws Exception {
+        JSONObject json = client.get("oauth_token", baseUrl + "/oauth", "Basic abc");
+
+        assertThat(json.getString("access_token")).isEqualTo("token");
+        assertThat(received).singleElement().satisfies(request -> {
+            assertThat(request.method()).isEqualTo("GET");
+            assertThat(request.authorization()).isEqualTo("Basic abc");
+        });
+        assertThat(timer("oauth_token", "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void postSendsTheJsonPayload() throws Exception {
+        String body = client.post("stk_push", baseUrl + "/stkpush", "Bearer token", new JSONObject().put("Amount", 10));
+
+        assertThat(new JSONObject(body).getString("ResponseCode")).isEqualTo("0");
+        assertThat(received).singleElement().satisfies(request -> {
+            assertThat(request.method()).isEqualTo("POST");
+            assertThat(request.contentType()).isEqualTo("application/json");
+            assertThat(new JSONObject(request.body()).getInt("Amount")).isEqualTo(10);
+        });
+        assertThat(timer("stk_push", "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void nonSuccessStatusIsAStatusException() {
+        assertThatThrownBy(() -> client.post("stk_push", baseUrl + "/rejected", "Bearer stale", new JSONObject()))
+                .isInstanceOfSatisfying(DarajaClient.StatusException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(401));
+        assertThat(timer("stk_push", "http_401").count()).isEqualTo(1);
+    }
+
+    @Test
+    void slowResponseIsASocketTimeout() {
+        assertThatThrownBy(() -> client.post("stk_query", baseUrl + "/slow", "Bearer token", new JSONObject()))
+                .isInstanceOf(SocketTimeoutException.class);
+        assertThat(timer("stk_query", "timeout").count()).isEqualTo(1);
+    }
+
+    @Test
+    void callsBeyondTheSlotsWaitAndTimeOut() throws Exception {
+        client = new DarajaClient(config(1, 50), meterRegistry);
+        Thread holder = new Thread(() -> {
+            try {
+                client.post("stk_query", baseUrl + "/slow", "Bearer token", new JSONObject());
+            } catch (IOException ignored) {
+                // Times out once the second call has failed to get the slot
+            }
+        });
+        holder.start();
+        long deadline = System.currentTimeMillis() + READ_TIMEOUT_MS;
+        while (received.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(received).hasSize(1);
+
+        assertThatThrownBy(() -> client.get("oauth_token", baseUrl + "/oauth", "Basic abc"))
+                .isInstanceOf(SocketTimeoutException.class)
+                .hasMessageContaining("call slot");
+        release.countDown();
+        holder.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Test
+    void timersAreRegisteredUpFrontAndReused() throws Exception {
+        int registered = meterRegistry.getMeters().size();
+        assertThat(registered).isEqualTo(DarajaClient.OPERATIONS.size() * DarajaClient.OUTCOMES.size());
+
+        for (int i = 0; i < 5; i++) {
+            client.get("oauth_token", baseUrl + "/oauth", "Basic abc");
+        }
+
+        assertThat(meterRegistry.getMeters()).hasSize(registered);
+        assertThat(timer("oauth_token", "success").count()).isEqualTo(5);
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return meterRegistry.get("mpesa.daraja.call.duration")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    private MpesaConfig config(int slots, long slotWaitMs) {
+        MpesaConfig config = new MpesaConfig();
+        config.getHttp().setConnectTimeoutMs(1000);
+        config.getHttp().setReadTimeoutMs(READ_TIMEOUT_MS);
+        config.getHttp().setMaxConcurrentCalls(slots);
+        config.getHttp().setSlotWaitMs(slotWaitMs);
+        return config;
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        record(exchange);
+        send(exchange, status, body);
+    }
+
+    private void record(HttpExchange exchange) throws IOException {
+        received.add(new Recorded(exchange.getRequestMethod(),
+                exchange.getRequestHeaders().getFirst("Authorization"),
+                exchange.getRequestHeaders().getFirst("Content-Type"),
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private record Recorded(String method, String authorization, String contentType, String body) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Roles;
+import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.entities.payments.TipPayments;
+import com.spinwish.backend.repositories.DJDailyEarningsRepository;
+import com.spinwish.backend.repositories.DJEarningsTotalsRepository;
+import com.spinwish.backend.repositories.LedgerLockRepository;
+import com.spinwish.backend.repositories.RoleRepository;
+import com.spinwish.backend.repositories.TipPaymentsRepository;
+import com.spinwish.backend.repositories.UsersRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payments reaching a day after it was rolled up are re-rolled into the ledger, including
+ * the first payment of a DJ the rollup had no totals for.
+ */
+@DataJpaTest
+@Import(EarningsLedgerService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EarningsLedgerServiceTest {
+
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Autowired
+    private EarningsLedgerService earningsLedgerService;
+
+    @Autowired
+    private TipPaymentsRepository tipPaymentsRepository;
+
+    @Autowired
+    private DJDailyEarningsRepository dailyEarningsRepository;
+
+    @Autowired
+    private DJEarningsTotalsRepository totalsRepository;
+
+    @Autowired
+    private LedgerLockRepository ledgerLockRepository;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @AfterEach
+    void tearDown() {
+        tipPaymentsRepository.deleteAll();
+        dailyEarningsRepository.deleteAll();
+        totalsRepository.deleteAll();
+        ledgerLockRepository.deleteAll();
+        usersRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void latePaymentsAreReRolledIntoRolledUpDays() {
+        Roles role = role();
+        Users dj = dj(role);
+        Users newDj = dj(role);
+        LocalDateTime yesterday = LocalDate.now().minusDays(1).atTime(12, 0);
+        tip(dj, 100.0, yesterday);
+        earningsLedgerService.rollup();
+
+        tip(dj, 50.0, yesterday);
+        earningsLedgerService.onPayment(dj.getId(), yesterday);
+        tip(newDj, 30.0, yesterday);
+        earningsLedgerService.onPayment(newDj.getId(), yesterday);
+
+        EarningsLedgerService.Earnings earnings = earningsLedgerService.getEarnings(dj.getId(), ALL_TIME, LocalDateTime.now());
+        assertThat(earnings.tipsAmount()).isEqualTo(150.0);
+        assertThat(earnings.tipsCount()).isEqualTo(2);
+        assertThat(totalsRepository.findById(dj.getId()).orElseThrow().getTipsAmount()).isEqualTo(150.0);
+
+        assertThat(totalsRepository.findById(newDj.getId())).hasValueSatisfying(totals -> {
+            assertThat(totals.getTipsAmount()).isEqualTo(30.0);
+            assertThat(totals.getThroughDate()).isEqualTo(yesterday.toLocalDate());
+        });
+        assertThat(earningsLedgerService.getEarnings(newDj.getId(), ALL_TIME, LocalDateTime.now()).tipsAmount())
+                .isEqualTo(30.0);
+    }
+
+    private Roles role() {
+        Roles role = new Roles();
+        role.setRoleName("DJ");
+        role.setCreatedAt(LocalDateTime.now());
+        role.setUpdatedAt(LocalDateTime.now());
+        return roleRepository.save(role);
+    }
+
+    private Users dj(Roles role) {
+        String name = "dj-" + UUID.randomUUID();
+        Users dj = new Users();
+        dj.setEmailAddress(name + "@spinwish.test");
+        dj.setActualUsername(name);
+        dj.setPassword("secret");
+        dj.setIsActive(true);
+        dj.setRole(role);
+        return usersRepository.save(dj);
+    }
+
+    private void tip(Users dj, double amount, LocalDateTime date) {
+        TipPayments tip = new TipPayments();
+        tip.setReceiptNumber("SFK" + UUID.randomUUID().toString().substring(0, 8));
+        tip.setPayerName("M-Pesa User");
+        tip.setPhoneNumber("254700000000");
+        tip.setAmount(amount);
+        tip.setTransactionDate(date);
+        tip.setDj(dj);
+        tipPaymentsRepository.save(tip);
+    }
+}
@@ -0,0 +1,202 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Artists;
+import com.spinwish.backend.entities.Request;
+import com.spinwish.backend.entities.Roles;
+import com.spinwish.backend.entities.Session;
+import com.spinwish.backend.entities.Songs;
+import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.models.responses.users.PlaySongResponse;
+import com.spinwish.backend.repositories.RequestsRepository;
+import com.spinwish.backend.utils.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Request list endpoints must run a fixed number of statements however long the list is.
+ * Each list is assembled for a small and a large set of requests and the prepared
+ * statement counts compared.
+ */
+@DataJpaTest
+@Import({RequestResponseAssembler.class, RequestSongService.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RequestResponseAssemblerQueryCountTest {
+
+    private static final int SMALL = 3;
+    private static final int LARGE = 60;
+    // Page query, song ids, users with roles, songs with artists
+    private static final long MAX_STATEMENTS = 4;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RequestsRepository requestsRepository;
+
+    @Autowired
+    private RequestSongService requestSongService;
+
+    @Autowired
+    private RequestResponseAssembler assembler;
+
+    private Roles djRole;
+    private Roles clientRole;
+    private Artists artist;
+
+    @BeforeEach
+    void setUp() {
+        djRole = role("DJ");
+        clientRole = role("CLIENT");
+        artist = new Artists();
+        artist.setName("Artist");
+        entityManager.persist(artist);
+    }
+
+    @Test
+    void djRequestPageRunsFixedStatements() {
+        assertConstant(fixture -> () -> assembler.toResponses(requestsRepository.findPageByDjId(
+                fixture.djId, KeysetCursor.START.getTimestamp(), KeysetCursor.START.getId(), PageRequest.of(0, LARGE + 1))));
+    }
+
+    @Test
+    void clientRequestPageRunsFixedStatements() {
+        assertConstant(fixture -> () -> assembler.toResponses(requestsRepository.findPageByClientId(
+                fixture.clientIds.get(0), KeysetCursor.START.getTimestamp(), KeysetCursor.START.getId(), PageRequest.of(0, LARGE + 1))),
+                true);
+    }
+
+    @Test
+    void sessionRequestPageRunsFixedStatements() {
+        assertConstant(fixture -> () -> assembler.toResponses(requestsRepository.findPageBySessionId(
+                fixture.sessionId, KeysetCursor.START.getTimestamp(), KeysetCursor.START.getId(), PageRequest.of(0, LARGE + 1))));
+    }
+
+    @Test
+    void sessionQueueRunsFixedStatements() {
+        assertConstant(fixture -> () -> assembler.toResponses(
+                requestsRepository.findBySessionIdOrderByCreatedAtDesc(fixture.sessionId)));
+    }
+
+    private void assertConstant(Function<Fixture, Supplier<List<PlaySongResponse>>> listing) {
+        assertConstant(listing, false);
+    }
+
+    private void assertConstant(Function<Fixture, Supplier<List<PlaySongResponse>>> listing, boolean oneClient) {
+        Fixture small = seed(SMALL, oneClient);
+        long smallStatements = count(listing.apply(small), SMALL);
+        Fixture large = seed(LARGE, oneClient);
+        long largeStatements = count(listing.apply(large), LARGE);
+
+        assertThat(largeStatements).isEqualTo(smallStatements);
+        assertThat(largeStatements).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    private long count(Supplier<List<PlaySongResponse>> listing, int expectedSize) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<PlaySongResponse> responses = listing.get();
+        responses.forEach(response -> {
+            assertThat(response.getDjName()).isNotNull();
+            assertThat(response.getClientName()).isNotNull();
+            assertThat(response.getSongResponse()).hasSize(2)
+                    .allSatisfy(song -> assertThat(song.getArtistName()).isEqualTo("Artist"));
+        });
+        assertThat(responses).hasSize(expectedSize);
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * One DJ and session with the given number of requests for two songs each. Requests come
+     * from distinct clients, except that client pages need them all from the same one.
+     */
+    private Fixture seed(int requests, boolean oneClient) {
+        Users dj = user(djRole);
+        UUID sessionId = session(dj).getId();
+        List<UUID> clientIds = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            Users client = oneClient && i > 0 ? null : user(clientRole);
+            if (client != null) {
+                clientIds.add(client.getId());
+            }
+            Songs first = song();
+            Songs second = song();
+            Request request = new Request();
+            request.setDjId(dj.getId());
+            request.setClientId(clientIds.get(clientIds.size() - 1));
+            request.setSessionId(sessionId);
+            request.setStatus(Request.RequestStatus.ACCEPTED);
+            request.setAmount(100.0);
+            entityManager.persist(request);
+            requestSongService.replaceSongs(request.getId(), List.of(first.getId(), second.getId()));
+        }
+        return new Fixture(dj.getId(), sessionId, clientIds);
+    }
+
+    private Session session(Users dj) {
+        Session session = new Session();
+        session.setDjId(dj.getId());
+        session.setType(Session.SessionType.CLUB);
+        session.setStatus(Session.SessionStatus.LIVE);
+        session.setTitle("Busy set");
+        session.setStartTime(LocalDateTime.now());
+        entityManager.persist(session);
+        return session;
+    }
+
+    private Roles role(String name) {
+        Roles role = new Roles();
+        role.setRoleName(name);
+        role.setCreatedAt(LocalDateTime.now());
+        role.setUpdatedAt(LocalDateTime.now());
+        entityManager.persist(role);
+        return role;
+    }
+
+    private Users user(Roles role) {
+        String name = role.getRoleName().toLowerCase() + "-" + UUID.randomUUID();
+        Users user = new Users();
+        user.setEmailAddress(name + "@spinwish.test");
+        user.setActualUsername(name);
+        user.setPassword("secret");
+        user.setIsActive(true);
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Songs song() {
+        Songs song = new Songs();
+        song.setName("Song " + UUID.randomUUID());
+        song.setArtistId(artist.getId());
+        song.setAlbum("Album");
+        entityManager.persist(song);
+        return song;
+    }
+
+    private record Fixture(UUID djId, UUID sessionId, List<UUID> clientIds) {
+    }
+}
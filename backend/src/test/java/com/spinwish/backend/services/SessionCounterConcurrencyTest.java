@@ -0,0 +1,157 @@
+package com.spinwish.backend.services;
+
+import com.spinwish.backend.entities.Roles;
+import com.spinwish.backend.entities.Session;
+import com.spinwish.backend.entities.Users;
+import com.spinwish.backend.repositories.RoleRepository;
+import com.spinwish.backend.repositories.SessionRepository;
+import com.spinwish.backend.repositories.UsersRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Session counters must not lose increments under concurrent request creation. Every
+ * creation runs in its own transaction, released together from a start gate, while other
+ * threads accept requests, add tips and save the session entity they read earlier.
+ */
+@DataJpaTest
+@Import({SessionService.class, GenreLoader.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SessionCounterConcurrencyTest {
+
+    private static final int CREATIONS = 500;
+    private static final int THREADS = 32;
+    // Every ACCEPT_EVERYth creation is also accepted, and every TIP_EVERYth tipped
+    private static final int ACCEPT_EVERY = 2;
+    private static final int TIP_EVERY = 5;
+    private static final int EDIT_EVERY = 10;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UsersRepository usersRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private SessionAnalyticsService sessionAnalyticsService;
+
+    @MockitoBean
+    private ListenerPresenceService listenerPresenceService;
+
+    @MockitoBean
+    private LiveSessionDirectory liveSessionDirectory;
+
+    @MockitoBean
+    private DJDirectory djDirectory;
+
+    @MockitoBean
+    private DJStatsService djStatsService;
+
+    private UUID sessionId;
+
+    @BeforeEach
+    void setUp() {
+        sessionId = new TransactionTemplate(transactionManager).execute(status -> {
+            Roles role = new Roles();
+            role.setRoleName("DJ");
+            role.setCreatedAt(LocalDateTime.now());
+            role.setUpdatedAt(LocalDateTime.now());
+            roleRepository.save(role);
+
+            Users dj = new Users();
+            dj.setEmailAddress("dj-" + UUID.randomUUID() + "@spinwish.test");
+            dj.setActualUsername("dj");
+            dj.setPassword("secret");
+            dj.setIsActive(true);
+            dj.setRole(role);
+            usersRepository.save(dj);
+
+            Session session = new Session();
+            session.setDjId(dj.getId());
+            session.setType(Session.SessionType.CLUB);
+            session.setTitle("Busy set");
+            return sessionService.createSession(session).getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll();
+        usersRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentRequestCreationsLoseNoIncrements() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CREATIONS; i++) {
+                int n = i;
+                results.add(executor.submit(() -> {
+                    // Read before the gate, so the save below carries counters that are stale by then
+                    Session stale = n % EDIT_EVERY == 0 ? sessionRepository.findById(sessionId).orElseThrow() : null;
+                    start.await();
+                    sessionService.updateSessionOnRequestCreated(sessionId);
+                    if (n % ACCEPT_EVERY == 0) {
+                        sessionService.updateSessionOnRequestAccepted(sessionId, 100.0);
+                    }
+                    if (n % TIP_EVERY == 0) {
+                        sessionService.addTips(sessionId, 10.0);
+                    }
+                    if (stale != null) {
+                        stale.setDescription("Edit " + n);
+                        sessionRepository.save(stale);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Session session = sessionRepository.findById(sessionId).orElseThrow();
+        int accepted = CREATIONS / ACCEPT_EVERY;
+        int tipped = CREATIONS / TIP_EVERY;
+        assertThat(session.getTotalRequests()).isEqualTo(CREATIONS);
+        assertThat(session.getAcceptedRequests()).isEqualTo(accepted);
+        assertThat(session.getTotalEarnings()).isEqualTo(accepted * 100.0);
+        assertThat(session.getTotalTips()).isEqualTo(tipped * 10.0);
+        assertThat(session.getDescription()).startsWith("Edit ");
+    }
+}